@@ -35,6 +35,9 @@ dependencies {
     implementation("com.sun.xml.bind:jaxb-impl:4.0.4")
     implementation("org.apache.commons:commons-lang3:3.14.0")
 
+    // Archive uploads (.tar.gz)
+    implementation("org.apache.commons:commons-compress:1.27.1")
+
     // REST test generation
     implementation("io.rest-assured:rest-assured:5.4.0")
     implementation("com.google.code.gson:gson:2.11.0")
@@ -57,6 +60,52 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("large-report", "large-ingestion", "benchmark")
+    }
+}
+
+// Parses a generated report far larger than the heap to prove the streaming parser stays flat
+val largeReportTest by tasks.registering(Test::class) {
+    description = "Runs the large JUnit report tests inside a small heap."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    maxHeapSize = "64m"
+    useJUnitPlatform {
+        includeTags("large-report")
+    }
+}
+
+// Ingests a report of a million distinct tests to prove an upload's aggregates stay bounded too
+val largeIngestionTest by tasks.registering(Test::class) {
+    description = "Runs the large JUnit ingestion tests inside a small heap."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    maxHeapSize = "256m"
+    useJUnitPlatform {
+        includeTags("large-ingestion")
+    }
+}
+
+tasks.check {
+    dependsOn(largeReportTest, largeIngestionTest)
+}
+
+// Asserts on wall-clock times, so it is left out of check and run on a quiet machine
+val benchmarkTest by tasks.registering(Test::class) {
+    description = "Runs the benchmark tests, which seed millions of rows."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    maxHeapSize = "4g"
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+}
+
 tasks.withType<org.gradle.jvm.tasks.Jar> {
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
 }
@@ -2,8 +2,10 @@ package com.rnd.testinghub;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RndTestingHubApplication {
     public static void main(String[] args) {
         SpringApplication.run(RndTestingHubApplication.class, args);
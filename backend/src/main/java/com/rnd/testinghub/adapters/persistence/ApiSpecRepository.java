@@ -4,6 +4,9 @@ import com.rnd.testinghub.domain.ApiSpec;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface ApiSpecRepository extends JpaRepository<ApiSpec, Long> {
+    Optional<ApiSpec> findFirstByUploadSourceId(String uploadSourceId);
 }
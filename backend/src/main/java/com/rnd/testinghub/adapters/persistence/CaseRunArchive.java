@@ -0,0 +1,106 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive files of compacted test case runs on local disk: one gzipped file per day holding one
+ * {@link CaseRunView} as JSON per line, in the order they were written.
+ */
+@Repository
+public class CaseRunArchive {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    public CaseRunArchive(@Value("${ingestion.compaction.archive-dir:./data/archive}") Path directory,
+                          ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+    }
+
+    public String fileName(LocalDate day) {
+        return "test-case-runs-" + day + ".ndjson.gz";
+    }
+
+    /**
+     * Writes every run {@code source} hands to its consumer as the archive of {@code day},
+     * replacing an earlier one only once complete. Returns the number of runs written.
+     */
+    public long write(LocalDate day, Consumer<Consumer<CaseRunView>> source) {
+        long[] written = new long[1];
+        try {
+            Files.createDirectories(directory);
+            Path partial = Files.createTempFile(directory, fileName(day), ".partial");
+            try {
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(partial), BUFFER_SIZE), StandardCharsets.UTF_8))) {
+                    source.accept(run -> {
+                        try {
+                            out.write(objectMapper.writeValueAsString(run));
+                            out.write('\n');
+                            written[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+                Files.move(partial, directory.resolve(fileName(day)),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the archive of " + day, e);
+        }
+        return written[0];
+    }
+
+    /**
+     * Reads the runs of archive file {@code fileName} in order until {@code visitor} returns false.
+     */
+    public void read(String fileName, Predicate<CaseRunView> visitor) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(directory.resolve(fileName)), BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!visitor.test(objectMapper.readValue(line, CaseRunView.class))) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive " + fileName, e);
+        }
+    }
+
+    /**
+     * Deletes archive file {@code fileName}; false if it was already gone.
+     */
+    public boolean delete(String fileName) {
+        try {
+            return Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete archive " + fileName, e);
+        }
+    }
+}
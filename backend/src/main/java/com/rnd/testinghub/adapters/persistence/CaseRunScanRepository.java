@@ -0,0 +1,58 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.infrastructure.CaseRunColumns;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Reads test case runs of a time range straight into {@link CaseRunColumns}, without entities.
+ */
+@Repository
+public class CaseRunScanRepository {
+
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CaseRunScanRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the runs in {@code [from, until)} to {@code batch}, newest first; without
+     * {@code until}, all from {@code from} on. Rows are fetched {@value #FETCH_SIZE} at a time
+     * inside a transaction, and reading stops as soon as {@code more} returns false.
+     *
+     * @return whether every run of the range was added
+     */
+    public boolean scan(LocalDateTime from, LocalDateTime until, CaseRunColumns.Batch batch, BooleanSupplier more) {
+        String sql = "SELECT id, test_identity_id, status, duration_ms, timestamp FROM test_case_run WHERE timestamp >= ?"
+            + (until != null ? " AND timestamp < ?" : "") + " ORDER BY timestamp DESC";
+        Boolean complete = jdbcTemplate.query(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setFetchSize(FETCH_SIZE);
+                statement.setTimestamp(1, Timestamp.valueOf(from));
+                if (until != null) {
+                    statement.setTimestamp(2, Timestamp.valueOf(until));
+                }
+                return statement;
+            },
+            rs -> {
+                while (rs.next()) {
+                    if (!more.getAsBoolean()) {
+                        return false;
+                    }
+                    batch.add(rs.getLong(1), rs.getInt(2), CaseRunColumns.statusCode(rs.getString(3)), rs.getLong(4),
+                        rs.getTimestamp(5).getTime());
+                }
+                return true;
+            });
+        return Boolean.TRUE.equals(complete);
+    }
+}
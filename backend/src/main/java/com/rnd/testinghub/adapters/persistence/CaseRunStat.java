@@ -0,0 +1,7 @@
+package com.rnd.testinghub.adapters.persistence;
+
+/**
+ * What the per-test daily counters need of one test case run.
+ */
+public record CaseRunStat(String suiteName, Integer testIdentityId, String status, long durationMs) {
+}
@@ -0,0 +1,10 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * One test case run as listed for its suite, read without materializing the entity.
+ */
+public record CaseRunView(long id, long suiteRunId, String testName, String status, long durationMs,
+                          String errorMessage, LocalDateTime timestamp) {
+}
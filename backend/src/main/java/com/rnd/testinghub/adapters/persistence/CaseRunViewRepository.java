@@ -0,0 +1,82 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The test case runs of a suite in ID order, as {@link CaseRunView}s: a page after a keyset
+ * cursor, or all of them streamed from a cursor so that memory stays bounded for any suite size.
+ */
+@Repository
+public class CaseRunViewRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT =
+        "SELECT c.id, c.suite_run_id, i.test_name, c.status, c.duration_ms, m.message, c.timestamp " +
+        "FROM test_case_run c JOIN test_identity i ON i.id = c.test_identity_id " +
+        "LEFT JOIN failure_message m ON m.id = c.failure_message_id " +
+        "WHERE c.suite_run_id = ? AND c.id > ?";
+
+    private static final RowMapper<CaseRunView> ROW_MAPPER = (rs, rowNum) -> new CaseRunView(
+        rs.getLong(1),
+        rs.getLong(2),
+        rs.getString(3),
+        rs.getString(4),
+        rs.getLong(5),
+        rs.getString(6),
+        rs.getTimestamp(7).toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CaseRunViewRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Up to {@code limit} runs of the suite with an ID above {@code afterId}, optionally only
+     * those with {@code status}.
+     */
+    public List<CaseRunView> findPage(long suiteRunId, long afterId, String status, int limit) {
+        List<Object> args = new ArrayList<>(List.of(suiteRunId, afterId));
+        String sql = SELECT + statusFilter(status, args) + " ORDER BY c.id LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Streams every run of the suite, optionally only those with {@code status}. Rows are
+     * fetched {@value #FETCH_SIZE} at a time, which PostgreSQL only does inside a transaction.
+     */
+    public void forEachInSuite(long suiteRunId, String status, Consumer<CaseRunView> consumer) {
+        List<Object> args = new ArrayList<>(List.of(suiteRunId, 0L));
+        String sql = SELECT + statusFilter(status, args) + " ORDER BY c.id";
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < args.size(); i++) {
+                    statement.setObject(i + 1, args.get(i));
+                }
+                return statement;
+            },
+            rs -> {
+                consumer.accept(ROW_MAPPER.mapRow(rs, 0));
+            });
+    }
+
+    private static String statusFilter(String status, List<Object> args) {
+        if (status == null) {
+            return "";
+        }
+        args.add(status);
+        return " AND c.status = ?";
+    }
+}
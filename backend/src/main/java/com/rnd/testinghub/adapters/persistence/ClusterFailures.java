@@ -0,0 +1,9 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * Failed test case runs of one failure cluster: how many, across how many tests, and the latest.
+ */
+public record ClusterFailures(Long clusterId, long failures, long tests, LocalDateTime lastSeen) {
+}
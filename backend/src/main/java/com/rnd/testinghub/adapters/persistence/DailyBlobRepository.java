@@ -0,0 +1,197 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Serialized values kept per day and suite name or block of test identities: duration
+ * sketches, per-test counters, distinct test sketches and duration baselines. The values are
+ * opaque bytes here; decoding and merging happen in the application layer.
+ */
+@Repository
+public class DailyBlobRepository {
+
+    /**
+     * The tables, which differ only in their column names.
+     */
+    public enum Table {
+        SUITE_DURATION_SKETCH("suite_duration_sketch", "sketch_day", "suite_name", "sketch"),
+        // Test identity IDs [block_id * 1024, (block_id + 1) * 1024)
+        TEST_DURATION_SKETCH("test_duration_sketch", "sketch_day", "block_id", "sketch"),
+        TEST_DAILY_STATS("test_daily_stats", "stat_day", "suite_name", "stats"),
+        DISTINCT_TEST_SKETCH("distinct_test_sketch", "sketch_day", "suite_name", "sketch"),
+        // Baselines carry over from day to day, so the table has no day column and days are ignored
+        TEST_DURATION_BASELINE("test_duration_baseline", null, "block_id", "baselines");
+
+        private final String name;
+        private final String dayColumn;
+        private final String keyColumn;
+        private final String valueColumn;
+
+        Table(String name, String dayColumn, String keyColumn, String valueColumn) {
+            this.name = name;
+            this.dayColumn = dayColumn;
+            this.keyColumn = keyColumn;
+            this.valueColumn = valueColumn;
+        }
+
+        private String dayIs() {
+            return dayColumn == null ? "" : dayColumn + " = ? AND ";
+        }
+
+        private String dayBetween() {
+            if (dayColumn == null) {
+                throw new UnsupportedOperationException(name + " is not kept per day");
+            }
+            return dayColumn + " >= ? AND " + dayColumn + " <= ?";
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailyBlobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The given keys that have a row on {@code day}, without locking them.
+     */
+    public <K> Set<K> findExistingKeys(Table table, LocalDate day, Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        Set<K> existing = new HashSet<>();
+        jdbcTemplate.query(
+            "SELECT " + table.keyColumn + " FROM " + table.name + " WHERE " + table.dayIs() +
+            table.keyColumn + " IN (" + placeholders(keys.size()) + ")",
+            rs -> {
+                @SuppressWarnings("unchecked")
+                K key = (K) rs.getObject(1);
+                existing.add(key);
+            },
+            keyArgs(table, day, keys));
+        return existing;
+    }
+
+    /**
+     * Reads and locks the values of {@code day} for the given keys, in key order.
+     */
+    public <K> Map<K, byte[]> findForUpdate(Table table, LocalDate day, Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<K, byte[]> values = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT " + table.keyColumn + ", " + table.valueColumn + " FROM " + table.name + " WHERE " + table.dayIs() +
+            table.keyColumn + " IN (" + placeholders(keys.size()) + ") ORDER BY " + table.keyColumn + " FOR UPDATE",
+            rs -> {
+                @SuppressWarnings("unchecked")
+                K key = (K) rs.getObject(1);
+                values.put(key, rs.getBytes(2));
+            },
+            keyArgs(table, day, keys));
+        return values;
+    }
+
+    public <K> void insert(Table table, LocalDate day, Map<K, byte[]> values) {
+        String dayColumn = table.dayColumn == null ? "" : table.dayColumn + ", ";
+        String dayValue = table.dayColumn == null ? "" : "?, ";
+        write("INSERT INTO " + table.name + " (" + table.valueColumn + ", updated_at, " + dayColumn + table.keyColumn +
+            ") VALUES (?, ?, " + dayValue + "?)", table, day, values);
+    }
+
+    public <K> void update(Table table, LocalDate day, Map<K, byte[]> values) {
+        write("UPDATE " + table.name + " SET " + table.valueColumn + " = ?, updated_at = ? WHERE " + table.dayIs() +
+            table.keyColumn + " = ?", table, day, values);
+    }
+
+    /**
+     * Values of one key from {@code from} to {@code to}, inclusive, in day order.
+     */
+    public List<byte[]> findBetween(Table table, Object key, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+            "SELECT " + table.valueColumn + " FROM " + table.name + " WHERE " + table.keyColumn + " = ? AND " +
+            table.dayBetween() + " ORDER BY " + table.dayColumn,
+            (rs, rowNum) -> rs.getBytes(1),
+            key, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Streams the keys and values from {@code from} to {@code to}, inclusive, of one key or, if
+     * {@code key} is null, of all keys.
+     */
+    public <K> void forEachBetween(Table table, LocalDate from, LocalDate to, K key, BiConsumer<K, byte[]> consumer) {
+        String sql = "SELECT " + table.keyColumn + ", " + table.valueColumn + " FROM " + table.name +
+            " WHERE " + table.dayBetween();
+        Object[] args = key == null
+            ? new Object[] {Date.valueOf(from), Date.valueOf(to)}
+            : new Object[] {Date.valueOf(from), Date.valueOf(to), key};
+        jdbcTemplate.query(key == null ? sql : sql + " AND " + table.keyColumn + " = ?",
+            rs -> {
+                @SuppressWarnings("unchecked")
+                K rowKey = (K) rs.getObject(1);
+                consumer.accept(rowKey, rs.getBytes(2));
+            },
+            args);
+    }
+
+    /**
+     * Streams the values of all keys from {@code from} to {@code to}, inclusive, day by day.
+     */
+    public void forEachDayBetween(Table table, LocalDate from, LocalDate to, BiConsumer<LocalDate, byte[]> consumer) {
+        jdbcTemplate.query(
+            "SELECT " + table.dayColumn + ", " + table.valueColumn + " FROM " + table.name + " WHERE " +
+            table.dayBetween() + " ORDER BY " + table.dayColumn,
+            rs -> {
+                consumer.accept(rs.getDate(1).toLocalDate(), rs.getBytes(2));
+            },
+            Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public int deleteBetween(Table table, LocalDate from, LocalDate to) {
+        return jdbcTemplate.update("DELETE FROM " + table.name + " WHERE " + table.dayBetween(),
+            Date.valueOf(from), Date.valueOf(to));
+    }
+
+    private <K> void write(String sql, Table table, LocalDate day, Map<K, byte[]> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(values.size());
+        if (table.dayColumn == null) {
+            values.forEach((key, value) -> rows.add(new Object[] {value, now, key}));
+        } else {
+            Date valueDay = Date.valueOf(day);
+            values.forEach((key, value) -> rows.add(new Object[] {value, now, valueDay, key}));
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    private static Object[] keyArgs(Table table, LocalDate day, Collection<?> keys) {
+        List<Object> args = new ArrayList<>(keys.size() + 1);
+        if (table.dayColumn != null) {
+            args.add(Date.valueOf(day));
+        }
+        args.addAll(keys);
+        return args.toArray();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,13 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import java.time.LocalDate;
+
+/**
+ * Suite-run counters summed per day, projected straight from an aggregate query.
+ */
+public record DailyRunTotals(LocalDate day, long suiteRuns, long totalTests, long passedTests, long failedTests,
+                             long durationMs) {
+    public RunTotals totals() {
+        return new RunTotals(suiteRuns, totalTests, passedTests, failedTests);
+    }
+}
@@ -0,0 +1,15 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.DurationRegression;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DurationRegressionRepository extends JpaRepository<DurationRegression, Long> {
+    List<DurationRegression> findByDetectedAtAfterOrderByDetectedAtDescIdDesc(LocalDateTime detectedAt, Pageable pageable);
+    long countByDetectedAtAfter(LocalDateTime detectedAt);
+}
@@ -0,0 +1,22 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.FailureCluster;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FailureClusterRepository extends JpaRepository<FailureCluster, Long> {
+    Optional<FailureCluster> findBySignatureHash(String signatureHash);
+
+    /**
+     * Clusters sharing at least one SimHash band, the candidates for a near-duplicate match.
+     */
+    @Query("SELECT c FROM FailureCluster c WHERE c.band0 = :band0 OR c.band1 = :band1 OR c.band2 = :band2 OR c.band3 = :band3")
+    List<FailureCluster> findByAnyBand(@Param("band0") int band0, @Param("band1") int band1,
+                                       @Param("band2") int band2, @Param("band3") int band3);
+}
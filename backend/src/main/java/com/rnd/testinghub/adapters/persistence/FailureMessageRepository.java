@@ -0,0 +1,16 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.FailureMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FailureMessageRepository extends JpaRepository<FailureMessage, Long> {
+    List<FailureMessage> findByMessageHashIn(Collection<String> messageHashes);
+
+    List<FailureMessage> findByClusterIdIsNullOrderById(Pageable pageable);
+}
@@ -0,0 +1,14 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Suite-run counters summed per hour of a day, projected straight from an aggregate query.
+ */
+public record HourlyRunTotals(LocalDate day, int hour, long suiteRuns, long totalTests, long passedTests,
+                              long failedTests, long durationMs) {
+    public LocalDateTime start() {
+        return day.atTime(hour, 0);
+    }
+}
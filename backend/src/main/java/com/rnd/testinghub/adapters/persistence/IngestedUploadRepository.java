@@ -0,0 +1,12 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.IngestedUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IngestedUploadRepository extends JpaRepository<IngestedUpload, Long> {
+    Optional<IngestedUpload> findByUploadKindAndContentDigest(String uploadKind, String contentDigest);
+}
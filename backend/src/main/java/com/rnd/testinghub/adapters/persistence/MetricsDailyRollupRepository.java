@@ -0,0 +1,55 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.MetricsDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MetricsDailyRollupRepository extends JpaRepository<MetricsDailyRollup, Long> {
+    Optional<MetricsDailyRollup> findByDayAndSuiteName(LocalDate day, String suiteName);
+
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.RunTotals(" +
+           "COALESCE(SUM(r.suiteRuns), 0), COALESCE(SUM(r.totalTests), 0), " +
+           "COALESCE(SUM(r.passedTests), 0), COALESCE(SUM(r.failedTests), 0)) " +
+           "FROM MetricsDailyRollup r WHERE r.day >= :from AND r.day <= :to")
+    RunTotals sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.DailyRunTotals(" +
+           "r.day, SUM(r.suiteRuns), SUM(r.totalTests), SUM(r.passedTests), SUM(r.failedTests), SUM(r.durationMs)) " +
+           "FROM MetricsDailyRollup r WHERE r.day >= :from AND r.day <= :to GROUP BY r.day ORDER BY r.day")
+    List<DailyRunTotals> sumByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("UPDATE MetricsDailyRollup r SET r.suiteRuns = r.suiteRuns + :suiteRuns, " +
+           "r.totalTests = r.totalTests + :totalTests, r.passedTests = r.passedTests + :passedTests, " +
+           "r.failedTests = r.failedTests + :failedTests, r.skippedTests = r.skippedTests + :skippedTests, " +
+           "r.durationMs = r.durationMs + :durationMs, r.updatedAt = :updatedAt " +
+           "WHERE r.day = :day AND r.suiteName = :suiteName")
+    int addRuns(@Param("day") LocalDate day, @Param("suiteName") String suiteName,
+                @Param("suiteRuns") long suiteRuns, @Param("totalTests") long totalTests,
+                @Param("passedTests") long passedTests, @Param("failedTests") long failedTests,
+                @Param("skippedTests") long skippedTests, @Param("durationMs") long durationMs,
+                @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("DELETE FROM MetricsDailyRollup r WHERE r.day >= :from AND r.day <= :to")
+    int deleteByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO metrics_daily_rollup (rollup_day, suite_name, suite_runs, total_tests, passed_tests, " +
+                   "failed_tests, skipped_tests, duration_ms, updated_at) " +
+                   "SELECT CAST(timestamp AS DATE), suite_name, COUNT(*), SUM(total_tests), SUM(passed_tests), " +
+                   "SUM(failed_tests), SUM(skipped_tests), SUM(duration_ms), CURRENT_TIMESTAMP " +
+                   "FROM test_suite_run WHERE timestamp >= :from AND timestamp < :until " +
+                   "GROUP BY CAST(timestamp AS DATE), suite_name",
+           nativeQuery = true)
+    int insertFromSuiteRuns(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,7 @@
+package com.rnd.testinghub.adapters.persistence;
+
+/**
+ * One recorded duration and what it belongs to: a suite name or a test identity ID.
+ */
+public record NamedDuration<K>(K key, long durationMs) {
+}
@@ -0,0 +1,7 @@
+package com.rnd.testinghub.adapters.persistence;
+
+/**
+ * One test's outcome bit set from {@code test_flakiness}, without the entity around it.
+ */
+public record OutcomeBits(Integer testIdentityId, long outcomeBits, int outcomeCount, long flipCount) {
+}
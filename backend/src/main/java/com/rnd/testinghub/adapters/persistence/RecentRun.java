@@ -0,0 +1,9 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * One of the latest runs of a test, as read for its history.
+ */
+public record RecentRun(int testIdentityId, String status, long durationMs, LocalDateTime timestamp) {
+}
@@ -0,0 +1,73 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The latest runs of many tests in one query over the (test_identity_id, timestamp DESC, id DESC)
+ * index. On PostgreSQL a lateral join reads only the first {@code limit} index entries of each
+ * test; elsewhere each test's runs are numbered newest first and cut off after the limit.
+ */
+@Repository
+public class RecentRunRepository {
+
+    private static final RowMapper<RecentRun> RECENT_RUN = (rs, rowNum) -> new RecentRun(
+        rs.getInt(1),
+        rs.getString(2),
+        rs.getLong(3),
+        rs.getTimestamp(4).toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public RecentRunRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Up to {@code limit} runs of each test, grouped by test and newest first within a test.
+     */
+    public List<RecentRun> findRecent(Collection<Integer> testIdentityIds, int limit) {
+        if (testIdentityIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(testIdentityIds);
+        args.add(limit);
+        if (isPostgres()) {
+            // The window function would read every run of each test before cutting it off
+            return jdbcTemplate.query(
+                "SELECT t.id, r.status, r.duration_ms, r.timestamp FROM (VALUES " +
+                String.join(", ", Collections.nCopies(testIdentityIds.size(), "(?)")) + ") AS t(id) " +
+                "JOIN LATERAL (SELECT id, status, duration_ms, timestamp FROM test_case_run " +
+                "WHERE test_identity_id = t.id ORDER BY timestamp DESC, id DESC LIMIT ?) r ON true " +
+                "ORDER BY t.id, r.timestamp DESC, r.id DESC",
+                RECENT_RUN,
+                args.toArray());
+        }
+        return jdbcTemplate.query(
+            "SELECT test_identity_id, status, duration_ms, timestamp FROM (" +
+            "SELECT test_identity_id, status, duration_ms, timestamp, ROW_NUMBER() OVER (" +
+            "PARTITION BY test_identity_id ORDER BY timestamp DESC, id DESC) AS run_rank " +
+            "FROM test_case_run WHERE test_identity_id IN (" +
+            String.join(", ", Collections.nCopies(testIdentityIds.size(), "?")) + ")) ranked " +
+            "WHERE run_rank <= ? ORDER BY test_identity_id, run_rank",
+            RECENT_RUN,
+            args.toArray());
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,7 @@
+package com.rnd.testinghub.adapters.persistence;
+
+/**
+ * Summed suite-run counters, projected straight from an aggregate query.
+ */
+public record RunTotals(long suiteRuns, long totalTests, long passedTests, long failedTests) {
+}
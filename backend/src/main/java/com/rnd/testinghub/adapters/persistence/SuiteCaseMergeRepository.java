@@ -0,0 +1,117 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Walks the case runs of two suite runs side by side, ordered by test identity, so that they
+ * can be compared in one pass without holding either suite in memory.
+ */
+@Repository
+public class SuiteCaseMergeRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT =
+        "SELECT test_identity_id, status, duration_ms FROM test_case_run WHERE suite_run_id = ? " +
+        "ORDER BY test_identity_id";
+
+    /**
+     * The runs of one test in one suite run: failed if any run failed, else passed if any
+     * passed, else skipped; durations are summed.
+     */
+    public record CaseOutcome(String status, long durationMs) {
+    }
+
+    /**
+     * Receives each test of either suite run once, in test identity order; the outcome of the
+     * side without the test is null.
+     */
+    @FunctionalInterface
+    public interface MergeVisitor {
+        void visit(int testIdentityId, CaseOutcome base, CaseOutcome head);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SuiteCaseMergeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Merge-joins the case runs of {@code baseSuiteRunId} and {@code headSuiteRunId} on two
+     * open cursors. Both are fetched {@value #FETCH_SIZE} rows at a time, which PostgreSQL only
+     * does inside a transaction.
+     */
+    public void mergeJoin(long baseSuiteRunId, long headSuiteRunId, MergeVisitor visitor) {
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement baseStatement = prepare(connection, baseSuiteRunId);
+                 PreparedStatement headStatement = prepare(connection, headSuiteRunId);
+                 ResultSet baseRows = baseStatement.executeQuery();
+                 ResultSet headRows = headStatement.executeQuery()) {
+                Cursor base = new Cursor(baseRows);
+                Cursor head = new Cursor(headRows);
+                while (base.hasCurrent() || head.hasCurrent()) {
+                    if (!head.hasCurrent() || (base.hasCurrent() && base.testIdentityId < head.testIdentityId)) {
+                        visitor.visit(base.testIdentityId, base.next(), null);
+                    } else if (!base.hasCurrent() || head.testIdentityId < base.testIdentityId) {
+                        visitor.visit(head.testIdentityId, null, head.next());
+                    } else {
+                        visitor.visit(base.testIdentityId, base.next(), head.next());
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static PreparedStatement prepare(Connection connection, long suiteRunId) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(SELECT);
+        statement.setFetchSize(FETCH_SIZE);
+        statement.setLong(1, suiteRunId);
+        return statement;
+    }
+
+    /**
+     * A result set read one test at a time, combining the rows of a test that ran more than once.
+     */
+    private static final class Cursor {
+        private final ResultSet rows;
+        private boolean onRow;
+        private int testIdentityId;
+
+        Cursor(ResultSet rows) throws SQLException {
+            this.rows = rows;
+            this.onRow = rows.next();
+            this.testIdentityId = onRow ? rows.getInt(1) : 0;
+        }
+
+        boolean hasCurrent() {
+            return onRow;
+        }
+
+        /**
+         * The outcome of the current test; moves on to the next test.
+         */
+        CaseOutcome next() throws SQLException {
+            int current = testIdentityId;
+            boolean failed = false;
+            boolean passed = false;
+            long durationMs = 0;
+            while (onRow && testIdentityId == current) {
+                String status = rows.getString(2);
+                failed |= "failed".equals(status);
+                passed |= "passed".equals(status);
+                durationMs += rows.getLong(3);
+                onRow = rows.next();
+                testIdentityId = onRow ? rows.getInt(1) : 0;
+            }
+            return new CaseOutcome(failed ? "failed" : passed ? "passed" : "skipped", durationMs);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The monthly partitions of test_case_run on PostgreSQL (see V19), and the batched deletes
+ * that stand in for dropping them where the table is not partitioned.
+ */
+@Repository
+public class TestCaseRunPartitionRepository {
+
+    private static final String PARTITION_PREFIX = "test_case_run_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestCaseRunPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPartitioned() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            return false;
+        }
+        Integer partitioned = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+            "WHERE c.relname = 'test_case_run' AND pg_table_is_visible(c.oid)",
+            Integer.class);
+        return partitioned != null && partitioned > 0;
+    }
+
+    /**
+     * Creates the partition of {@code month} unless it exists.
+     */
+    public void createPartition(YearMonth month) {
+        jdbcTemplate.queryForObject("SELECT create_test_case_run_partition(?)", Object.class, month.atDay(1));
+    }
+
+    /**
+     * The months with a partition, oldest first; the default partition is not included.
+     */
+    public List<YearMonth> findPartitionMonths() {
+        List<YearMonth> months = jdbcTemplate.query(
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'test_case_run' AND pg_table_is_visible(p.oid) AND c.relname LIKE '" + PARTITION_PREFIX + "%'",
+            (rs, rowNum) -> YearMonth.parse(rs.getString(1).substring(PARTITION_PREFIX.length()), PARTITION_MONTH));
+        Collections.sort(months);
+        return months;
+    }
+
+    /**
+     * Detaches the partition of {@code month} and drops it with all its rows. The detach runs
+     * concurrently, so uploads and queries on the other months are not blocked; PostgreSQL
+     * only allows that outside a transaction.
+     */
+    public void dropPartition(YearMonth month) {
+        String partition = PARTITION_PREFIX + month.format(PARTITION_MONTH);
+        jdbcTemplate.execute("ALTER TABLE test_case_run DETACH PARTITION " + partition + " CONCURRENTLY");
+        jdbcTemplate.execute("DROP TABLE " + partition);
+    }
+
+    /**
+     * Deletes up to {@code limit} of the oldest suite runs before {@code cutoff} together with
+     * their test case runs. Returns the number of suite runs deleted.
+     */
+    public int deleteSuiteRunsBefore(LocalDateTime cutoff, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT id FROM test_suite_run WHERE timestamp < ? ORDER BY timestamp, id LIMIT ?",
+            Long.class, cutoff, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("DELETE FROM test_case_run WHERE suite_run_id IN (" + placeholders + ")", ids.toArray());
+        return jdbcTemplate.update("DELETE FROM test_suite_run WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+}
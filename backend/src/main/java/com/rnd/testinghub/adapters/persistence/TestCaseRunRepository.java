@@ -1,20 +1,62 @@
 package com.rnd.testinghub.adapters.persistence;
 
 import com.rnd.testinghub.domain.TestCaseRun;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TestCaseRunRepository extends JpaRepository<TestCaseRun, Long> {
-    @Query("SELECT t FROM TestCaseRun t WHERE t.suiteRun.id = :suiteRunId")
+    @Query("SELECT t FROM TestCaseRun t JOIN FETCH t.testIdentity LEFT JOIN FETCH t.failureMessage WHERE t.suiteRun.id = :suiteRunId")
     List<TestCaseRun> findBySuiteRunId(@Param("suiteRunId") Long suiteRunId);
 
-    List<TestCaseRun> findByTestName(String testName);
+    @Query("SELECT t FROM TestCaseRun t WHERE t.testIdentity.id = :testIdentityId")
+    List<TestCaseRun> findByTestIdentityId(@Param("testIdentityId") Integer testIdentityId);
 
-    @Query(value = "SELECT t FROM TestCaseRun t WHERE t.testName = :testName ORDER BY t.timestamp DESC")
-    List<TestCaseRun> findRecentRunsForTest(@Param("testName") String testName, @Param("limit") int limit);
+    @Query("SELECT t FROM TestCaseRun t WHERE t.testIdentity.id = :testIdentityId ORDER BY t.timestamp DESC, t.id DESC")
+    List<TestCaseRun> findRecentRunsForTest(@Param("testIdentityId") Integer testIdentityId, Pageable pageable);
+
+    @Query("SELECT t.status FROM TestCaseRun t WHERE t.testIdentity.id = :testIdentityId " +
+           "AND t.status IN ('passed', 'failed') ORDER BY t.timestamp DESC, t.id DESC")
+    List<String> findRecentOutcomes(@Param("testIdentityId") Integer testIdentityId, Pageable pageable);
+
+    @Query("SELECT DISTINCT i.testName FROM TestCaseRun t JOIN t.testIdentity i")
+    List<String> findDistinctTestNames();
+
+    /**
+     * Case durations of the suite runs in {@code [from, until)}; cases carry their suite's timestamp.
+     */
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.NamedDuration(t.testIdentity.id, COALESCE(t.durationMs, 0)) " +
+           "FROM TestCaseRun t WHERE t.suiteRun.timestamp >= :from AND t.suiteRun.timestamp < :until")
+    List<NamedDuration<Integer>> findCaseDurations(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.CaseRunStat(" +
+           "t.suiteRun.suiteName, t.testIdentity.id, t.status, COALESCE(t.durationMs, 0)) " +
+           "FROM TestCaseRun t WHERE t.suiteRun.timestamp >= :from AND t.suiteRun.timestamp < :until")
+    List<CaseRunStat> findCaseRunStats(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    /**
+     * Failed runs since {@code since} per failure cluster, most failures first.
+     */
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.ClusterFailures(" +
+           "m.clusterId, COUNT(t), COUNT(DISTINCT t.testIdentity.id), MAX(t.timestamp)) " +
+           "FROM TestCaseRun t JOIN t.failureMessage m " +
+           "WHERE t.status = 'failed' AND t.timestamp >= :since AND m.clusterId IS NOT NULL " +
+           "GROUP BY m.clusterId ORDER BY COUNT(t) DESC, m.clusterId")
+    List<ClusterFailures> findClusterFailures(@Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT COUNT(DISTINCT m.clusterId) FROM TestCaseRun t JOIN t.failureMessage m " +
+           "WHERE t.status = 'failed' AND t.timestamp >= :since")
+    long countFailingClusters(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM TestCaseRun t WHERE t.suiteRun.id IN :suiteRunIds")
+    int deleteBySuiteRunIdIn(@Param("suiteRunIds") Collection<Long> suiteRunIds);
 }
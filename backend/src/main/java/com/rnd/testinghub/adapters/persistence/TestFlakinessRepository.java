@@ -0,0 +1,25 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.TestFlakiness;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TestFlakinessRepository extends JpaRepository<TestFlakiness, Integer>, TestFlakinessRepositoryCustom {
+    @Query("SELECT f.testIdentityId FROM TestFlakiness f WHERE f.testIdentityId IN :testIdentityIds")
+    List<Integer> findExistingIds(@Param("testIdentityIds") Collection<Integer> testIdentityIds);
+
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.OutcomeBits(" +
+           "f.testIdentityId, f.outcomeBits, f.outcomeCount, f.flipCount) FROM TestFlakiness f")
+    List<OutcomeBits> findAllOutcomeBits();
+
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.OutcomeBits(" +
+           "f.testIdentityId, f.outcomeBits, f.outcomeCount, f.flipCount) FROM TestFlakiness f " +
+           "WHERE f.testIdentityId IN :testIdentityIds")
+    List<OutcomeBits> findOutcomeBits(@Param("testIdentityIds") Collection<Integer> testIdentityIds);
+}
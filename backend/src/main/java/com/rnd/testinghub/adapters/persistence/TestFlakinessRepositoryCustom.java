@@ -0,0 +1,20 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.TestFlakiness;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface TestFlakinessRepositoryCustom {
+    /**
+     * Appends each test's outcomes to its stored bit set in one JDBC batch, without reading
+     * the rows first. Returns the IDs whose row does not exist yet.
+     */
+    List<Integer> appendOutcomes(Map<Integer, TestFlakiness.Outcomes> outcomesByTest);
+
+    /**
+     * Inserts rows without any outcomes, in one JDBC batch.
+     */
+    void insertEmpty(Collection<Integer> testIdentityIds);
+}
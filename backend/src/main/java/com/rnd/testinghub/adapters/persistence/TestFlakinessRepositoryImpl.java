@@ -0,0 +1,76 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.TestFlakiness;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bit set is shifted with MOD and multiplication instead of bit operators, which
+ * PostgreSQL and H2 spell differently. Keeping the sign bit clear makes both exact:
+ * {@code MOD(bits, 2^(63 - n)) * 2^n} drops the oldest n outcomes and shifts the rest.
+ */
+class TestFlakinessRepositoryImpl implements TestFlakinessRepositoryCustom {
+
+    private static final String APPEND_SQL =
+        "UPDATE test_flakiness SET " +
+        "flip_count = flip_count + ? + CASE WHEN outcome_count > 0 AND MOD(outcome_bits, 2) <> ? THEN 1 ELSE 0 END, " +
+        "outcome_bits = MOD(outcome_bits, ?) * ? + ?, " +
+        "outcome_count = LEAST(?, outcome_count + ?), " +
+        "updated_at = ? " +
+        "WHERE test_identity_id = ?";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO test_flakiness (test_identity_id, outcome_bits, outcome_count, flip_count, updated_at) " +
+        "VALUES (?, 0, 0, 0, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    TestFlakinessRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Integer> appendOutcomes(Map<Integer, TestFlakiness.Outcomes> outcomesByTest) {
+        List<Integer> testIdentityIds = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        outcomesByTest.forEach((testIdentityId, outcomes) -> {
+            if (outcomes.getCount() == 0) {
+                return;
+            }
+            int shift = Math.min(outcomes.getCount(), TestFlakiness.MAX_OUTCOMES);
+            long keepModulus = 1L << (TestFlakiness.MAX_OUTCOMES - shift);
+            long multiplier = shift == TestFlakiness.MAX_OUTCOMES ? 0 : 1L << shift;
+            testIdentityIds.add(testIdentityId);
+            rows.add(new Object[] {
+                outcomes.getFlips(), outcomes.isFirstFailed() ? 1 : 0,
+                keepModulus, multiplier, outcomes.getBits(),
+                TestFlakiness.MAX_OUTCOMES, outcomes.getCount(),
+                now, testIdentityId
+            });
+        });
+
+        int[] updated = jdbcTemplate.batchUpdate(APPEND_SQL, rows);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(testIdentityIds.get(i));
+            }
+        }
+        return missing;
+    }
+
+    @Override
+    public void insertEmpty(Collection<Integer> testIdentityIds) {
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        testIdentityIds.forEach(testIdentityId -> rows.add(new Object[] {testIdentityId, now}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+}
@@ -0,0 +1,33 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.TestIdentity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TestIdentityRepository extends JpaRepository<TestIdentity, Integer> {
+    Optional<TestIdentity> findByTestName(String testName);
+
+    List<TestIdentity> findByTestNameIn(Collection<String> testNames);
+
+    @Query("SELECT i.id FROM TestIdentity i ORDER BY i.id")
+    List<Integer> findAllIds();
+
+    /**
+     * Names of the tests with a run at or after {@code since}, found through the
+     * (test_identity_id, timestamp DESC, id DESC) index.
+     */
+    @Query("SELECT i.testName FROM TestIdentity i WHERE EXISTS " +
+           "(SELECT 1 FROM TestCaseRun r WHERE r.testIdentity = i AND r.timestamp >= :since)")
+    List<String> findTestNamesRunSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT DISTINCT r.testIdentity.testName FROM TestCaseRun r WHERE r.suiteRun.id = :suiteId")
+    List<String> findTestNamesRunInSuite(@Param("suiteId") Long suiteId);
+}
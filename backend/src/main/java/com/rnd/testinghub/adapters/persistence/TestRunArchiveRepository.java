@@ -0,0 +1,17 @@
+package com.rnd.testinghub.adapters.persistence;
+
+import com.rnd.testinghub.domain.TestRunArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TestRunArchiveRepository extends JpaRepository<TestRunArchive, LocalDate> {
+    @Query("SELECT MAX(a.day) FROM TestRunArchive a")
+    LocalDate findLatestDay();
+
+    List<TestRunArchive> findByDayBefore(LocalDate day);
+}
@@ -14,4 +14,23 @@ public interface TestSuiteRunRepository extends JpaRepository<TestSuiteRun, Long
     List<TestSuiteRun> findByTimestampAfter(LocalDateTime timestamp);
     @Query("SELECT t FROM TestSuiteRun t WHERE t.timestamp >= :from AND t.timestamp <= :to")
     List<TestSuiteRun> findByTimestampBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    @Query("SELECT t.id FROM TestSuiteRun t WHERE t.uploadSourceId = :uploadSourceId ORDER BY t.id")
+    List<Long> findIdsByUploadSourceId(@Param("uploadSourceId") String uploadSourceId);
+    @Query("SELECT t.id FROM TestSuiteRun t WHERE t.timestamp >= :from AND t.timestamp < :until ORDER BY t.id")
+    List<Long> findIdsBetween(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+    @Query("SELECT MIN(t.timestamp) FROM TestSuiteRun t")
+    LocalDateTime findEarliestTimestamp();
+    @Query("SELECT MAX(t.timestamp) FROM TestSuiteRun t")
+    LocalDateTime findLatestTimestamp();
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.NamedDuration(t.suiteName, COALESCE(t.durationMs, 0)) " +
+           "FROM TestSuiteRun t WHERE t.timestamp >= :from AND t.timestamp < :until")
+    List<NamedDuration<String>> findSuiteDurations(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+    @Query("SELECT new com.rnd.testinghub.adapters.persistence.HourlyRunTotals(" +
+           "CAST(t.timestamp AS LocalDate), EXTRACT(HOUR FROM t.timestamp), COUNT(t), " +
+           "COALESCE(SUM(t.totalTests), 0), COALESCE(SUM(t.passedTests), 0), COALESCE(SUM(t.failedTests), 0), " +
+           "COALESCE(SUM(t.durationMs), 0)) " +
+           "FROM TestSuiteRun t WHERE t.timestamp >= :from AND t.timestamp < :until " +
+           "GROUP BY CAST(t.timestamp AS LocalDate), EXTRACT(HOUR FROM t.timestamp) " +
+           "ORDER BY CAST(t.timestamp AS LocalDate), EXTRACT(HOUR FROM t.timestamp)")
+    List<HourlyRunTotals> sumByHourBetween(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
 }
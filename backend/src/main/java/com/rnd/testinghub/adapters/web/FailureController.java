@@ -0,0 +1,51 @@
+package com.rnd.testinghub.adapters.web;
+
+import com.rnd.testinghub.application.FailureClusterService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/failures")
+public class FailureController {
+
+    private final FailureClusterService failureClusterService;
+
+    public FailureController(FailureClusterService failureClusterService) {
+        this.failureClusterService = failureClusterService;
+    }
+
+    /**
+     * Failures grouped by normalized stack signature, the clusters with the most failed runs in
+     * the last {@code days} days first.
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters(
+        @RequestParam(defaultValue = "7") int days,
+        @RequestParam(defaultValue = "50") int limit) {
+
+        try {
+            return ResponseEntity.ok(failureClusterService.getClusters(days, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Clusters the failure messages stored before clustering existed.
+     */
+    @PostMapping("/clusters/rebuild")
+    public ResponseEntity<?> rebuildClusters() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "success");
+        result.put("message", "Failure clusters rebuilt");
+        result.putAll(failureClusterService.rebuild());
+        return ResponseEntity.ok(result);
+    }
+}
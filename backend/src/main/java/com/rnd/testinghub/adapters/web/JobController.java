@@ -0,0 +1,72 @@
+package com.rnd.testinghub.adapters.web;
+
+import com.rnd.testinghub.application.IngestionJob;
+import com.rnd.testinghub.application.IngestionJobService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private final IngestionJobService ingestionJobService;
+
+    public JobController(IngestionJobService ingestionJobService) {
+        this.ingestionJobService = ingestionJobService;
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        IngestionJob job = ingestionJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.toView());
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getQueue() {
+        return ResponseEntity.ok(Map.of(
+            "queueDepth", ingestionJobService.getQueueDepth(),
+            "activeWorkers", ingestionJobService.getActiveWorkers()
+        ));
+    }
+
+    /**
+     * Queues an upload and answers 202 with the job location, or 503 when the queue is full.
+     */
+    static ResponseEntity<?> submit(IngestionJobService ingestionJobService, String type, MultipartFile file,
+                                    IngestionJobService.IngestionTask task) {
+        try (InputStream upload = file.getInputStream()) {
+            IngestionJob job = ingestionJobService.submit(type, upload, task);
+
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(Map.of(
+                    "status", "accepted",
+                    "message", "Upload queued for ingestion",
+                    "jobId", job.getId(),
+                    "statusUrl", "/api/jobs/" + job.getId()
+                ));
+        } catch (IngestionJobService.QueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+                ));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.rnd.testinghub.adapters.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rnd.testinghub.application.IngestionJobService;
 import com.rnd.testinghub.application.JunitIngestionService;
-import com.rnd.testinghub.domain.TestCaseRun;
+import com.rnd.testinghub.application.RunDiffService;
+import com.rnd.testinghub.application.TestHistoryService;
+import com.rnd.testinghub.application.TestRunArchiveService;
 import com.rnd.testinghub.domain.TestSuiteRun;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,17 +26,40 @@ import java.util.Map;
 @RequestMapping("/api/junit")
 public class JunitController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final JunitIngestionService junitIngestionService;
+    private final IngestionJobService ingestionJobService;
+    private final TestHistoryService testHistoryService;
+    private final RunDiffService runDiffService;
+    private final TestRunArchiveService testRunArchiveService;
+    private final ObjectMapper objectMapper;
 
-    public JunitController(JunitIngestionService junitIngestionService) {
+    public JunitController(JunitIngestionService junitIngestionService,
+                           IngestionJobService ingestionJobService,
+                           TestHistoryService testHistoryService,
+                           RunDiffService runDiffService,
+                           TestRunArchiveService testRunArchiveService,
+                           ObjectMapper objectMapper) {
         this.junitIngestionService = junitIngestionService;
+        this.ingestionJobService = ingestionJobService;
+        this.testHistoryService = testHistoryService;
+        this.runDiffService = runDiffService;
+        this.testRunArchiveService = testRunArchiveService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadJunitReport(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadJunitReport(@RequestParam("file") MultipartFile file,
+                                               @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return JobController.submit(ingestionJobService, "junit", file,
+                (upload, contentDigest) -> Map.of("suiteIds",
+                    junitIngestionService.ingestJunitReport(upload, contentDigest)));
+        }
+
         try {
-            String xmlContent = new String(file.getBytes(), StandardCharsets.UTF_8);
-            List<Long> suiteIds = junitIngestionService.ingestJunitReport(xmlContent);
+            List<Long> suiteIds = ingestionJobService.runNow(() -> junitIngestionService.ingestJunitReport(file));
 
             return ResponseEntity.ok(Map.of(
                 "status", "success",
@@ -42,6 +75,30 @@ public class JunitController {
         }
     }
 
+    @PostMapping("/upload-archive")
+    public ResponseEntity<?> uploadJunitArchive(@RequestParam("file") MultipartFile file,
+                                                @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return JobController.submit(ingestionJobService, "junit-archive", file,
+                junitIngestionService::ingestJunitArchive);
+        }
+
+        try {
+            Map<String, Object> result = ingestionJobService.runNow(() -> junitIngestionService.ingestJunitArchive(file));
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", "success");
+            response.put("message", "JUnit report archive uploaded and parsed");
+            response.putAll(result);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
     @GetMapping("/{suiteId}")
     public ResponseEntity<?> getTestSuite(@PathVariable Long suiteId) {
         TestSuiteRun suite = junitIngestionService.getTestSuiteRun(suiteId);
@@ -51,13 +108,113 @@ public class JunitController {
         return ResponseEntity.ok(suite);
     }
 
+    /**
+     * One page of the suite's case runs in ID order, optionally only those with {@code status}.
+     * Pass the returned {@code next_cursor} as {@code after} to fetch the next page.
+     */
     @GetMapping("/{suiteId}/cases")
-    public ResponseEntity<?> getTestCases(@PathVariable Long suiteId) {
-        List<TestCaseRun> cases = junitIngestionService.getTestCasesForSuite(suiteId);
-        return ResponseEntity.ok(Map.of(
-            "suiteId", suiteId,
-            "cases", cases,
-            "total", cases.size()
-        ));
+    public ResponseEntity<?> getTestCases(@PathVariable Long suiteId,
+                                          @RequestParam(required = false) Long after,
+                                          @RequestParam(defaultValue = "1000") int limit,
+                                          @RequestParam(required = false) String status) {
+        try {
+            return ResponseEntity.ok(junitIngestionService.getTestCasePage(suiteId, after, limit, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * All of the suite's case runs as newline-delimited JSON, written while they are read from
+     * the database, so neither side holds the whole suite.
+     */
+    @GetMapping(value = "/{suiteId}/cases", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamTestCases(@PathVariable Long suiteId,
+                                                                 @RequestParam(required = false) String status) {
+        StreamingResponseBody body = out -> {
+            try {
+                junitIngestionService.forEachTestCase(suiteId, status, testCase -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(testCase));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * What changed from suite run {@code base} to suite run {@code head}: newly failing and
+     * passing, added, removed and much slower tests, at most {@code limit} of each listed.
+     */
+    @GetMapping("/diff")
+    public ResponseEntity<?> diffRuns(@RequestParam Long base,
+                                      @RequestParam Long head,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        try {
+            Map<String, Object> diff = runDiffService.diff(base, head, limit);
+            if (diff == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(diff);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * The latest {@code limit} runs of each of many tests, e.g. for a dashboard of sparklines.
+     */
+    @PostMapping("/history")
+    public ResponseEntity<?> getTestHistory(@RequestBody HistoryRequest request) {
+        try {
+            return ResponseEntity.ok(testHistoryService.getRecentRuns(request.testNames, request.limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Compacts the test case runs of every day before {@code before} into archive files now,
+     * instead of waiting for the scheduled compaction.
+     */
+    @PostMapping("/compact")
+    public ResponseEntity<?> compact(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("status", "success");
+            result.put("message", "Test case runs archived");
+            result.putAll(testRunArchiveService.compactBefore(before));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    public static class HistoryRequest {
+        public List<String> testNames = List.of();
+        public int limit = 20;
     }
 }
@@ -1,9 +1,25 @@
 package com.rnd.testinghub.adapters.web;
 
+import com.rnd.testinghub.application.DistinctTestService;
+import com.rnd.testinghub.application.DurationMetricsService;
+import com.rnd.testinghub.application.DurationRegressionService;
+import com.rnd.testinghub.application.FlakyTestService;
+import com.rnd.testinghub.application.MetricsRollupService;
 import com.rnd.testinghub.application.MetricsService;
+import com.rnd.testinghub.application.MetricsStreamService;
+import com.rnd.testinghub.application.TopTestsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -11,9 +27,33 @@ import java.util.Map;
 public class MetricsController {
 
     private final MetricsService metricsService;
+    private final MetricsRollupService metricsRollupService;
+    private final FlakyTestService flakyTestService;
+    private final DurationMetricsService durationMetricsService;
+    private final DurationRegressionService durationRegressionService;
+    private final TopTestsService topTestsService;
+    private final DistinctTestService distinctTestService;
+    private final MetricsStreamService metricsStreamService;
+    private final Duration streamTimeout;
 
-    public MetricsController(MetricsService metricsService) {
+    public MetricsController(MetricsService metricsService,
+                             MetricsRollupService metricsRollupService,
+                             FlakyTestService flakyTestService,
+                             DurationMetricsService durationMetricsService,
+                             DurationRegressionService durationRegressionService,
+                             TopTestsService topTestsService,
+                             DistinctTestService distinctTestService,
+                             MetricsStreamService metricsStreamService,
+                             @Value("${metrics.stream.timeout:30m}") Duration streamTimeout) {
         this.metricsService = metricsService;
+        this.metricsRollupService = metricsRollupService;
+        this.flakyTestService = flakyTestService;
+        this.durationMetricsService = durationMetricsService;
+        this.durationRegressionService = durationRegressionService;
+        this.topTestsService = topTestsService;
+        this.distinctTestService = distinctTestService;
+        this.metricsStreamService = metricsStreamService;
+        this.streamTimeout = streamTimeout;
     }
 
     @GetMapping("/summary")
@@ -22,13 +62,82 @@ public class MetricsController {
         return ResponseEntity.ok(metrics);
     }
 
+    /**
+     * Server-sent events: one {@code metrics} event after each committed upload with its suite
+     * results, today's pass rate and newly flaky tests, merged if the client falls behind. The
+     * connection ends after {@code metrics.stream.timeout}; EventSource clients reconnect.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream() {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Runnable unsubscribe;
+        try {
+            unsubscribe = metricsStreamService.subscribe(new MetricsStreamService.Sink() {
+                @Override
+                public void send(Map<String, Object> delta) throws IOException {
+                    emitter.send(SseEmitter.event().name("metrics").data(delta, MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void ping() throws IOException {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+            });
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        try {
+            // Commits the response headers, so the client sees the stream open right away
+            emitter.send(SseEmitter.event().name("ready").data(Map.of("status", "subscribed")));
+        } catch (IOException e) {
+            unsubscribe.run();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Totals of the test case runs of the last {@code hours} hours and the {@code limit} most
+     * failing tests among them, summed from the runs held in memory rather than the day rollups.
+     */
+    @GetMapping("/recent")
+    public ResponseEntity<?> getRecentWindow(
+        @RequestParam(defaultValue = "24") int hours,
+        @RequestParam(defaultValue = "10") int limit) {
+
+        try {
+            return ResponseEntity.ok(metricsService.getRecentWindow(hours, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * A gap-filled, time-ordered series of {@code metric} (passRate, failureRate, flakyRate,
+     * testCount, suiteRuns or meanDurationMs) in hour, day or week buckets. Without
+     * {@code from}, the window is the {@code period} before {@code to} (default today).
+     */
     @GetMapping("/trends")
     public ResponseEntity<?> getTrends(
         @RequestParam(defaultValue = "passRate") String metric,
-        @RequestParam(defaultValue = "30d") String period) {
+        @RequestParam(defaultValue = "30d") String period,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(defaultValue = "day") String bucket) {
 
-        Map<String, Object> trends = metricsService.getTestTrends(metric, period);
-        return ResponseEntity.ok(trends);
+        try {
+            return ResponseEntity.ok(metricsService.getTestTrends(metric, period, from, to, bucket));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
     }
 
     @GetMapping("/api-coverage/{specId}")
@@ -36,4 +145,223 @@ public class MetricsController {
         Map<String, Object> coverage = metricsService.calculateApiCoverage(specId);
         return ResponseEntity.ok(coverage);
     }
+
+    /**
+     * Hit, miss and load-time counters of the metrics result cache.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(metricsService.getCacheStats());
+    }
+
+    @GetMapping("/flaky-tests")
+    public ResponseEntity<?> getFlakyTests(
+        @RequestParam(required = false) Integer window,
+        @RequestParam(defaultValue = "20") int limit) {
+
+        try {
+            return ResponseEntity.ok(flakyTestService.getFlakyTests(window, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Reloads the per-test outcome histories from the raw test case runs.
+     */
+    @PostMapping("/flaky-tests/rebuild")
+    public ResponseEntity<?> rebuildFlakyTests() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "success");
+        result.put("message", "Flaky test histories rebuilt");
+        result.putAll(flakyTestService.rebuild());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * p50/p90/p99 run durations per suite, slowest first. Without {@code from}/{@code to},
+     * the last 30 days.
+     */
+    @GetMapping("/durations/suites")
+    public ResponseEntity<?> getSuiteDurations(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(defaultValue = "50") int limit) {
+
+        try {
+            return ResponseEntity.ok(durationMetricsService.getSuiteDurations(from, to, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/durations/tests")
+    public ResponseEntity<?> getTestDurations(
+        @RequestParam String name,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        try {
+            return ResponseEntity.ok(durationMetricsService.getTestDurations(name, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Test case runs flagged as far slower than their test's moving baseline, newest first.
+     */
+    @GetMapping("/slow-regressions")
+    public ResponseEntity<?> getSlowRegressions(
+        @RequestParam(defaultValue = "7") int days,
+        @RequestParam(defaultValue = "50") int limit) {
+
+        try {
+            return ResponseEntity.ok(durationRegressionService.getSlowRegressions(days, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * The {@code k} tests with the highest mean duration, most failures or most total time
+     * ({@code by} = duration, failures or total-time), optionally within one suite. Without
+     * {@code from}/{@code to}, the last 7 days.
+     */
+    @GetMapping("/top-tests")
+    public ResponseEntity<?> getTopTests(
+        @RequestParam(defaultValue = "duration") String by,
+        @RequestParam(defaultValue = "20") int k,
+        @RequestParam(required = false) String suite,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        try {
+            return ResponseEntity.ok(topTestsService.getTopTests(by, k, suite, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Recomputes the per-day test counters behind {@code /top-tests} from the raw runs.
+     * Without {@code from}/{@code to}, every day with runs is rebuilt.
+     */
+    @PostMapping("/top-tests/rebuild")
+    public ResponseEntity<?> rebuildTopTests(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("status", "success");
+            result.put("message", "Test counters rebuilt");
+            result.putAll(topTestsService.rebuild(from, to));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Approximate number of distinct tests run from {@code from} to {@code to}, with bounds,
+     * optionally within one suite, and the suites that ran the most. Without
+     * {@code from}/{@code to}, the last 30 days.
+     */
+    @GetMapping("/distinct-tests")
+    public ResponseEntity<?> getDistinctTests(
+        @RequestParam(required = false) String suite,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(defaultValue = "100") int limit) {
+
+        try {
+            return ResponseEntity.ok(distinctTestService.getDistinctTests(suite, from, to, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Recomputes the per-day distinct test sketches from the raw runs, e.g. after a backfill.
+     * Without {@code from}/{@code to}, every day with runs is rebuilt.
+     */
+    @PostMapping("/distinct-tests/rebuild")
+    public ResponseEntity<?> rebuildDistinctTests(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("status", "success");
+            result.put("message", "Distinct test sketches rebuilt");
+            result.putAll(distinctTestService.rebuild(from, to));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Recomputes the per-day duration sketches from the raw runs, e.g. after a backfill.
+     * Without {@code from}/{@code to}, every day with runs is rebuilt.
+     */
+    @PostMapping("/durations/rebuild")
+    public ResponseEntity<?> rebuildDurations(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("status", "success");
+            result.put("message", "Duration sketches rebuilt");
+            result.putAll(durationMetricsService.rebuild(from, to));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Recomputes the daily rollups from the raw suite runs, e.g. after a backfill.
+     * Without {@code from}/{@code to}, every day with runs is rebuilt.
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "success");
+        result.put("message", "Daily rollups rebuilt");
+        result.putAll(metricsRollupService.rebuild(from, to));
+        return ResponseEntity.ok(result);
+    }
 }
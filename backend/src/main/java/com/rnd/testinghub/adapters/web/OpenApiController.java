@@ -1,5 +1,6 @@
 package com.rnd.testinghub.adapters.web;
 
+import com.rnd.testinghub.application.IngestionJobService;
 import com.rnd.testinghub.application.OpenApiIngestionService;
 import com.rnd.testinghub.domain.ApiEndpoint;
 import com.rnd.testinghub.domain.ApiSpec;
@@ -17,18 +18,27 @@ import java.util.Map;
 public class OpenApiController {
 
     private final OpenApiIngestionService openApiIngestionService;
+    private final IngestionJobService ingestionJobService;
 
-    public OpenApiController(OpenApiIngestionService openApiIngestionService) {
+    public OpenApiController(OpenApiIngestionService openApiIngestionService,
+                             IngestionJobService ingestionJobService) {
         this.openApiIngestionService = openApiIngestionService;
+        this.ingestionJobService = ingestionJobService;
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadOpenApi(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadOpenApi(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(defaultValue = "false") boolean async) {
+        String specFormat = specFormat(file.getOriginalFilename());
+
+        if (async) {
+            return JobController.submit(ingestionJobService, "openapi", file, (upload, contentDigest) -> Map.of(
+                "specId", openApiIngestionService.ingestOpenApiSpec(
+                    new String(upload.readAllBytes(), StandardCharsets.UTF_8), specFormat)));
+        }
+
         try {
             String specContent = new String(file.getBytes(), StandardCharsets.UTF_8);
-            String specFormat = file.getOriginalFilename().endsWith(".yaml") || file.getOriginalFilename().endsWith(".yml")
-                    ? "yaml"
-                    : "json";
 
             Long specId = openApiIngestionService.ingestOpenApiSpec(specContent, specFormat);
 
@@ -63,4 +73,10 @@ public class OpenApiController {
             "total", endpoints.size()
         ));
     }
+
+    private static String specFormat(String fileName) {
+        return fileName != null && (fileName.endsWith(".yaml") || fileName.endsWith(".yml"))
+                ? "yaml"
+                : "json";
+    }
 }
@@ -39,12 +39,29 @@ class InfoController {
         endpoints.put("Health Check", "GET /health");
         endpoints.put("Metrics Summary", "GET /api/metrics/summary");
         endpoints.put("Metrics Trends", "GET /api/metrics/trends");
+        endpoints.put("Recent Metrics", "GET /api/metrics/recent?hours={n}");
+        endpoints.put("Live Metrics Stream", "GET /api/metrics/stream");
         endpoints.put("API Coverage", "GET /api/metrics/api-coverage");
+        endpoints.put("Rebuild Metrics Rollups", "POST /api/metrics/rollups/rebuild");
+        endpoints.put("Flaky Tests", "GET /api/metrics/flaky-tests");
+        endpoints.put("Metrics Cache Stats", "GET /api/metrics/cache/stats");
+        endpoints.put("Suite Durations", "GET /api/metrics/durations/suites");
+        endpoints.put("Test Durations", "GET /api/metrics/durations/tests");
+        endpoints.put("Slow Regressions", "GET /api/metrics/slow-regressions");
+        endpoints.put("Top Tests", "GET /api/metrics/top-tests");
+        endpoints.put("Failure Clusters", "GET /api/failures/clusters");
+        endpoints.put("Distinct Tests", "GET /api/metrics/distinct-tests");
         endpoints.put("Best Practices", "GET /api/practices");
         endpoints.put("Test Cases", "GET /api/junit/{id}/cases");
+        endpoints.put("Stream Test Cases", "GET /api/junit/{id}/cases?format=ndjson");
+        endpoints.put("Test History", "POST /api/junit/history");
+        endpoints.put("Run Diff", "GET /api/junit/diff?base={id}&head={id}");
+        endpoints.put("Compact Test Runs", "POST /api/junit/compact?before={date}");
         endpoints.put("API Endpoints", "GET /api/openapi/{id}/endpoints");
         endpoints.put("Upload JUnit Report", "POST /api/junit/upload");
+        endpoints.put("Upload JUnit Report Archive", "POST /api/junit/upload-archive");
         endpoints.put("Upload OpenAPI Spec", "POST /api/openapi/upload");
+        endpoints.put("Ingestion Job Status", "GET /api/jobs/{id}");
         endpoints.put("Generate Tests", "POST /api/generator/restassured");
         endpoints.put("Preview Tests", "POST /api/generator/preview");
 
@@ -73,12 +90,31 @@ class InfoController {
         Map<String, String> metrics = new HashMap<>();
         metrics.put("summary", "GET /api/metrics/summary");
         metrics.put("trends", "GET /api/metrics/trends");
+        metrics.put("recent", "GET /api/metrics/recent?hours={n}");
+        metrics.put("stream", "GET /api/metrics/stream");
         metrics.put("api_coverage", "GET /api/metrics/api-coverage");
+        metrics.put("rebuild_rollups", "POST /api/metrics/rollups/rebuild");
+        metrics.put("flaky_tests", "GET /api/metrics/flaky-tests");
+        metrics.put("rebuild_flaky_tests", "POST /api/metrics/flaky-tests/rebuild");
+        metrics.put("cache_stats", "GET /api/metrics/cache/stats");
+        metrics.put("suite_durations", "GET /api/metrics/durations/suites");
+        metrics.put("test_durations", "GET /api/metrics/durations/tests");
+        metrics.put("rebuild_durations", "POST /api/metrics/durations/rebuild");
+        metrics.put("slow_regressions", "GET /api/metrics/slow-regressions");
+        metrics.put("top_tests", "GET /api/metrics/top-tests");
+        metrics.put("rebuild_top_tests", "POST /api/metrics/top-tests/rebuild");
+        metrics.put("distinct_tests", "GET /api/metrics/distinct-tests");
+        metrics.put("rebuild_distinct_tests", "POST /api/metrics/distinct-tests/rebuild");
         resources.put("metrics", metrics);
 
         Map<String, String> junit = new HashMap<>();
         junit.put("upload", "POST /api/junit/upload");
+        junit.put("upload_archive", "POST /api/junit/upload-archive");
         junit.put("cases", "GET /api/junit/{id}/cases");
+        junit.put("cases_ndjson", "GET /api/junit/{id}/cases?format=ndjson");
+        junit.put("history", "POST /api/junit/history");
+        junit.put("diff", "GET /api/junit/diff?base={id}&head={id}");
+        junit.put("compact", "POST /api/junit/compact?before={date}");
         resources.put("junit", junit);
 
         Map<String, String> openapi = new HashMap<>();
@@ -86,6 +122,16 @@ class InfoController {
         openapi.put("endpoints", "GET /api/openapi/{id}/endpoints");
         resources.put("openapi", openapi);
 
+        Map<String, String> failures = new HashMap<>();
+        failures.put("clusters", "GET /api/failures/clusters");
+        failures.put("rebuild_clusters", "POST /api/failures/clusters/rebuild");
+        resources.put("failures", failures);
+
+        Map<String, String> jobs = new HashMap<>();
+        jobs.put("status", "GET /api/jobs/{id}");
+        jobs.put("queue", "GET /api/jobs");
+        resources.put("jobs", jobs);
+
         Map<String, String> practices = new HashMap<>();
         practices.put("list", "GET /api/practices");
         resources.put("practices", practices);
@@ -0,0 +1,171 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.ApiEndpointRepository;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.infrastructure.AhoCorasickMatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * API coverage of a spec: an endpoint counts as tested once some test run in the last
+ * {@code window-days} days has a name containing its {@code "METHOD path"} key. Each spec's keys
+ * are compiled into one {@link AhoCorasickMatcher}, so every test name is scanned once instead
+ * of once per endpoint.
+ *
+ * <p>A spec's result is computed on first use from the names of the tests with runs inside the
+ * window, and cached for the day; once an upload commits, the names of its tests are matched
+ * against every cached spec.
+ */
+@Service
+public class ApiCoverageService {
+
+    /**
+     * Endpoint keys of one spec and which of them are tested so far.
+     */
+    private static class SpecCoverage {
+        final int endpoints;
+        final AhoCorasickMatcher matcher;
+        final LocalDate loadedOn;
+        final BitSet tested = new BitSet();
+
+        SpecCoverage(List<String> endpointKeys, LocalDate loadedOn) {
+            this.endpoints = endpointKeys.size();
+            this.matcher = new AhoCorasickMatcher(endpointKeys);
+            this.loadedOn = loadedOn;
+        }
+
+        void add(String testName) {
+            if (tested.cardinality() < endpoints) {
+                matcher.forEachMatch(testName, tested::set);
+            }
+        }
+    }
+
+    private final ApiEndpointRepository apiEndpointRepository;
+    private final TestIdentityRepository testIdentityRepository;
+    private final int windowDays;
+    private final Map<Long, SpecCoverage> coverageBySpec;
+    // Specs whose names are being read; guarded by coverageBySpec, like the cache itself
+    private final Set<SpecCoverage> loading = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public ApiCoverageService(ApiEndpointRepository apiEndpointRepository,
+                              TestIdentityRepository testIdentityRepository,
+                              @Value("${metrics.coverage.cache-size:64}") int cacheSize,
+                              @Value("${metrics.coverage.window-days:30}") int windowDays) {
+        if (windowDays < 1) {
+            throw new IllegalArgumentException("metrics.coverage.window-days must be positive");
+        }
+        this.apiEndpointRepository = apiEndpointRepository;
+        this.testIdentityRepository = testIdentityRepository;
+        this.windowDays = windowDays;
+        this.coverageBySpec = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SpecCoverage> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public Map<String, Object> calculateApiCoverage(Long specId) {
+        SpecCoverage coverage;
+        synchronized (coverageBySpec) {
+            coverage = coverageBySpec.get(specId);
+        }
+        // Tests age out of the window, so a spec is read again on the next day
+        if (coverage == null || !coverage.loadedOn.equals(LocalDate.now())) {
+            coverage = load(specId);
+        }
+        int totalEndpoints = coverage.endpoints;
+        int testedEndpoints;
+        synchronized (coverageBySpec) {
+            testedEndpoints = coverage.tested.cardinality();
+        }
+
+        double coverageRate = totalEndpoints == 0 ? 0.0 : (double) testedEndpoints / totalEndpoints;
+
+        return Map.of(
+            "spec_id", specId,
+            "total_endpoints", totalEndpoints,
+            "tested_endpoints", testedEndpoints,
+            "coverage", String.format("%.2f%%", coverageRate * 100),
+            "coverage_decimal", coverageRate
+        );
+    }
+
+    /**
+     * Matches the tests of a committed upload against the cached specs and those being loaded.
+     */
+    @TransactionalEventListener
+    public void onSuiteRunsCommitted(SuiteRunsCommittedEvent event) {
+        synchronized (coverageBySpec) {
+            if (coverageBySpec.isEmpty() && loading.isEmpty()) {
+                return;
+            }
+        }
+        // Suite by suite, so only one suite's names are held at a time
+        for (Long suiteId : event.suiteIds()) {
+            addTestNames(testIdentityRepository.findTestNamesRunInSuite(suiteId));
+        }
+    }
+
+    /**
+     * Updates the cached specs, and those being loaded, with the names of tests that just ran.
+     */
+    private void addTestNames(Collection<String> testNames) {
+        if (testNames.isEmpty()) {
+            return;
+        }
+        synchronized (coverageBySpec) {
+            for (SpecCoverage coverage : coverageBySpec.values()) {
+                testNames.forEach(coverage::add);
+            }
+            for (SpecCoverage coverage : loading) {
+                testNames.forEach(coverage::add);
+            }
+        }
+    }
+
+    /**
+     * Reads the spec's endpoints and the names of the tests run inside the window without
+     * holding the lock; uploads committing meanwhile add their names to it as to a cached spec,
+     * so none slip past it.
+     */
+    private SpecCoverage load(Long specId) {
+        List<String> endpointKeys = apiEndpointRepository.findByApiSpecId(specId)
+            .stream()
+            .map(endpoint -> endpoint.getMethod() + " " + endpoint.getPath())
+            .toList();
+        LocalDate today = LocalDate.now();
+        SpecCoverage coverage = new SpecCoverage(endpointKeys, today);
+        if (endpointKeys.isEmpty()) {
+            // Not cached: the spec may simply not have been uploaded yet
+            return coverage;
+        }
+        synchronized (coverageBySpec) {
+            loading.add(coverage);
+        }
+        try {
+            List<String> testNames = testIdentityRepository.findTestNamesRunSince(today.minusDays(windowDays).atStartOfDay());
+            synchronized (coverageBySpec) {
+                testNames.forEach(coverage::add);
+                coverageBySpec.put(specId, coverage);
+            }
+        } finally {
+            synchronized (coverageBySpec) {
+                loading.remove(coverage);
+            }
+        }
+        return coverage;
+    }
+}
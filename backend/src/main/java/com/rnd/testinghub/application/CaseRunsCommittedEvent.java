@@ -0,0 +1,11 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.infrastructure.CaseRunColumns;
+
+/**
+ * Published with the test case runs an upload wrote; listeners run after the upload commits.
+ * {@code runs} is null if the upload wrote too many to hold on to, and listeners have to read
+ * them back.
+ */
+public record CaseRunsCommittedEvent(CaseRunColumns.Batch runs) {
+}
@@ -0,0 +1,108 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository.Table;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Merges uploads into the serialized values of a {@link Table}, keyed by day and suite name or
+ * block ID. Like {@link MetricsRollupService#addRuns}, missing rows are first created empty in
+ * their own transaction, so that concurrent uploads can all lock them; the rows are then locked
+ * in key order, in chunks, so those uploads cannot deadlock, and updated in the caller's
+ * transaction, so nothing an upload added outlives its rollback.
+ */
+@Service
+public class DailyBlobStore {
+
+    private static final int UPDATE_CHUNK = 500;
+
+    /**
+     * How the values of one table are read, written, combined and started from.
+     */
+    public record Codec<V>(Function<byte[], V> decode, Function<V, byte[]> encode, BiConsumer<V, V> merge,
+                           Supplier<V> empty) {
+    }
+
+    private final DailyBlobRepository dailyBlobRepository;
+    private final TransactionTemplate newTransaction;
+
+    public DailyBlobStore(DailyBlobRepository dailyBlobRepository, PlatformTransactionManager transactionManager) {
+        this.dailyBlobRepository = dailyBlobRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Merges {@code values} into the stored values of {@code day}.
+     */
+    @Transactional
+    public <K, V> void merge(Table table, LocalDate day, SortedMap<K, V> values, Codec<V> codec) {
+        update(table, day, values.keySet(), codec.encode().apply(codec.empty().get()),
+            (key, bytes) -> {
+                V value = codec.decode().apply(bytes);
+                codec.merge().accept(value, values.get(key));
+                return codec.encode().apply(value);
+            });
+    }
+
+    /**
+     * Replaces the stored value of each of {@code keys}, given in key order, on {@code day} by
+     * what {@code update} makes of it; keys without a row start from {@code empty}.
+     */
+    @Transactional
+    public <K> void update(Table table, LocalDate day, Collection<K> keys, byte[] empty,
+                           BiFunction<K, byte[], byte[]> update) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<K> sortedKeys = new ArrayList<>(keys);
+        try {
+            newTransaction.executeWithoutResult(status -> createMissingRows(table, day, sortedKeys, empty));
+        } catch (DataIntegrityViolationException e) {
+            // Another upload created one of the rows first
+            newTransaction.executeWithoutResult(status -> createMissingRows(table, day, sortedKeys, empty));
+        }
+
+        for (int start = 0; start < sortedKeys.size(); start += UPDATE_CHUNK) {
+            List<K> chunk = sortedKeys.subList(start, Math.min(start + UPDATE_CHUNK, sortedKeys.size()));
+            Map<K, byte[]> stored = dailyBlobRepository.findForUpdate(table, day, chunk);
+            Map<K, byte[]> updated = new LinkedHashMap<>();
+            for (K key : chunk) {
+                byte[] bytes = stored.get(key);
+                if (bytes == null) {
+                    throw new IllegalStateException("Row " + key + " of " + table + " on " + day + " was deleted while updating it");
+                }
+                updated.put(key, update.apply(key, bytes));
+            }
+            dailyBlobRepository.update(table, day, updated);
+        }
+    }
+
+    private <K> void createMissingRows(Table table, LocalDate day, List<K> keys, byte[] empty) {
+        for (int start = 0; start < keys.size(); start += UPDATE_CHUNK) {
+            List<K> chunk = keys.subList(start, Math.min(start + UPDATE_CHUNK, keys.size()));
+            Set<K> existing = dailyBlobRepository.findExistingKeys(table, day, chunk);
+            Map<K, byte[]> missing = new LinkedHashMap<>();
+            chunk.stream().filter(key -> !existing.contains(key)).forEach(key -> missing.put(key, empty));
+            dailyBlobRepository.insert(table, day, missing);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.CaseRunStat;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository.Table;
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestRunArchiveRepository;
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.application.DailyBlobStore.Codec;
+import com.rnd.testinghub.infrastructure.DistinctTestSketch;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Approximate numbers of distinct tests run over any window, overall and per suite. Ingestion
+ * adds every upload's tests to one {@link DistinctTestSketch} per suite and day; a query merges
+ * the sketches of its window, so its cost grows with days and suites, not with runs.
+ */
+@Service
+public class DistinctTestService {
+
+    private static final int DEFAULT_WINDOW_DAYS = 30;
+    // About 95% of estimates are within two standard errors of the true count
+    private static final double BOUND_ERRORS = 2;
+    private static final Codec<DistinctTestSketch> SKETCH = new Codec<>(
+        DistinctTestSketch::fromBytes, DistinctTestSketch::toBytes, DistinctTestSketch::merge, DistinctTestSketch::new);
+
+    private final DailyBlobRepository dailyBlobRepository;
+    private final DailyBlobStore dailyBlobStore;
+    private final TestCaseRunRepository testCaseRunRepository;
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final TestRunArchiveRepository testRunArchiveRepository;
+    private final MetricsCache metricsCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DistinctTestService(DailyBlobRepository dailyBlobRepository,
+                               DailyBlobStore dailyBlobStore,
+                               TestCaseRunRepository testCaseRunRepository,
+                               TestSuiteRunRepository testSuiteRunRepository,
+                               TestRunArchiveRepository testRunArchiveRepository,
+                               MetricsCache metricsCache,
+                               ApplicationEventPublisher eventPublisher) {
+        this.dailyBlobRepository = dailyBlobRepository;
+        this.dailyBlobStore = dailyBlobStore;
+        this.testCaseRunRepository = testCaseRunRepository;
+        this.testSuiteRunRepository = testSuiteRunRepository;
+        this.testRunArchiveRepository = testRunArchiveRepository;
+        this.metricsCache = metricsCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds an upload's tests to the sketches of {@code day}, in the caller's transaction, through
+     * the {@link DailyBlobStore}.
+     */
+    @Transactional
+    public void recordTests(LocalDate day, SortedMap<String, DistinctTestSketch> testsBySuite) {
+        dailyBlobStore.merge(Table.DISTINCT_TEST_SKETCH, day, testsBySuite, SKETCH);
+    }
+
+    /**
+     * The estimated number of distinct tests run from {@code from} to {@code to}, inclusive,
+     * with bounds, optionally within one suite, and the {@code limit} suites that ran the most.
+     * Without bounds, the last {@value #DEFAULT_WINDOW_DAYS} days.
+     */
+    public Map<String, Object> getDistinctTests(String suiteName, LocalDate from, LocalDate to, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        LocalDate toDay = to != null ? to : LocalDate.now();
+        LocalDate fromDay = from != null ? from : toDay.minusDays(DEFAULT_WINDOW_DAYS);
+        if (toDay.isBefore(fromDay)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        return metricsCache.get("distinct-tests:" + fromDay + ":" + toDay + ":" + limit + ":" + suiteName,
+            () -> computeDistinctTests(suiteName, fromDay, toDay, limit));
+    }
+
+    /**
+     * Recomputes the sketches of every day from {@code from} to {@code to} out of the raw test
+     * case runs. Without bounds, every day with runs is rebuilt.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate from, LocalDate to) {
+        LocalDate fromDay = from != null ? from : dayOf(testSuiteRunRepository.findEarliestTimestamp());
+        LocalDate toDay = to != null ? to : dayOf(testSuiteRunRepository.findLatestTimestamp());
+        if (fromDay == null || toDay == null) {
+            return Map.of("days", 0, "rows", 0);
+        }
+        if (toDay.isBefore(fromDay)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        // Compacted days have no raw runs left to rebuild from; their summaries are final
+        LocalDate archivedThrough = testRunArchiveRepository.findLatestDay();
+        if (archivedThrough != null && !fromDay.isAfter(archivedThrough)) {
+            fromDay = archivedThrough.plusDays(1);
+        }
+
+        dailyBlobRepository.deleteBetween(Table.DISTINCT_TEST_SKETCH, fromDay, toDay);
+        int days = 0;
+        int rows = 0;
+        for (LocalDate day = fromDay; !day.isAfter(toDay); day = day.plusDays(1)) {
+            Map<String, DistinctTestSketch> testsBySuite = new TreeMap<>();
+            for (CaseRunStat run : testCaseRunRepository.findCaseRunStats(day.atStartOfDay(), day.plusDays(1).atStartOfDay())) {
+                testsBySuite.computeIfAbsent(run.suiteName(), suiteName -> new DistinctTestSketch())
+                    .add(run.testIdentityId());
+            }
+            dailyBlobRepository.insert(Table.DISTINCT_TEST_SKETCH, day, encode(testsBySuite));
+            days++;
+            rows += testsBySuite.size();
+        }
+        eventPublisher.publishEvent(new MetricsDataChangedEvent("distinct-tests"));
+
+        return Map.of(
+            "from", fromDay,
+            "to", toDay,
+            "days", days,
+            "rows", rows
+        );
+    }
+
+    private Map<String, Object> computeDistinctTests(String suiteName, LocalDate from, LocalDate to, int limit) {
+        DistinctTestSketch total = new DistinctTestSketch();
+        Map<String, DistinctTestSketch> bySuite = new TreeMap<>();
+        dailyBlobRepository.forEachBetween(Table.DISTINCT_TEST_SKETCH, from, to, suiteName, (suite, bytes) -> {
+            DistinctTestSketch sketch = DistinctTestSketch.fromBytes(bytes);
+            total.merge(sketch);
+            bySuite.computeIfAbsent(suite, name -> new DistinctTestSketch()).merge(sketch);
+        });
+        // Rows are created empty before an upload fills them, and stay so if it rolls back
+        bySuite.values().removeIf(DistinctTestSketch::isEmpty);
+
+        List<Map<String, Object>> suites = bySuite.entrySet().stream()
+            .map(entry -> Map.entry(entry.getKey(), entry.getValue().estimate()))
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(limit)
+            .map(entry -> {
+                Map<String, Object> suite = new LinkedHashMap<>();
+                suite.put("suiteName", entry.getKey());
+                suite.put("distinct_tests", entry.getValue());
+                return suite;
+            })
+            .toList();
+
+        long estimate = total.estimate();
+        long margin = (long) Math.ceil(estimate * DistinctTestSketch.STANDARD_ERROR * BOUND_ERRORS);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("suite", suiteName);
+        result.put("distinct_tests", estimate);
+        result.put("standard_error", DistinctTestSketch.STANDARD_ERROR);
+        result.put("lower_bound", Math.max(0, estimate - margin));
+        result.put("upper_bound", estimate + margin);
+        result.put("total_suites", bySuite.size());
+        result.put("suites", suites);
+        return result;
+    }
+
+    private static Map<String, byte[]> encode(Map<String, DistinctTestSketch> testsBySuite) {
+        Map<String, byte[]> encoded = new TreeMap<>();
+        testsBySuite.forEach((suiteName, sketch) -> encoded.put(suiteName, SKETCH.encode().apply(sketch)));
+        return encoded;
+    }
+
+    private static LocalDate dayOf(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toLocalDate() : null;
+    }
+}
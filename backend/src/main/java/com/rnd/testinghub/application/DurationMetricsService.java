@@ -0,0 +1,240 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository.Table;
+import com.rnd.testinghub.adapters.persistence.NamedDuration;
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestRunArchiveRepository;
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.application.DailyBlobStore.Codec;
+import com.rnd.testinghub.infrastructure.DurationSketch;
+import com.rnd.testinghub.infrastructure.DurationSketchBlock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Duration percentiles per suite and per test. Ingestion merges every upload into one
+ * {@link DurationSketch} per day and suite or test, so a window query merges one sketch per
+ * day instead of sorting the raw durations of every run in it. Test sketches are stored in
+ * {@link DurationSketchBlock}s, so an upload of many new tests writes few rows.
+ */
+@Service
+public class DurationMetricsService {
+
+    private static final int DEFAULT_WINDOW_DAYS = 30;
+    private static final Codec<DurationSketch> SKETCH = new Codec<>(
+        DurationSketch::fromBytes, DurationSketch::toBytes, DurationSketch::merge, DurationSketch::new);
+    private static final Codec<DurationSketchBlock> BLOCK = new Codec<>(
+        DurationSketchBlock::fromBytes, DurationSketchBlock::toBytes, DurationSketchBlock::merge, DurationSketchBlock::new);
+
+    private final DailyBlobRepository dailyBlobRepository;
+    private final DailyBlobStore dailyBlobStore;
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final TestCaseRunRepository testCaseRunRepository;
+    private final TestRunArchiveRepository testRunArchiveRepository;
+    private final TestIdentityStore testIdentityStore;
+    private final MetricsCache metricsCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DurationMetricsService(DailyBlobRepository dailyBlobRepository,
+                                  DailyBlobStore dailyBlobStore,
+                                  TestSuiteRunRepository testSuiteRunRepository,
+                                  TestCaseRunRepository testCaseRunRepository,
+                                  TestRunArchiveRepository testRunArchiveRepository,
+                                  TestIdentityStore testIdentityStore,
+                                  MetricsCache metricsCache,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.dailyBlobRepository = dailyBlobRepository;
+        this.dailyBlobStore = dailyBlobStore;
+        this.testSuiteRunRepository = testSuiteRunRepository;
+        this.testCaseRunRepository = testCaseRunRepository;
+        this.testRunArchiveRepository = testRunArchiveRepository;
+        this.testIdentityStore = testIdentityStore;
+        this.metricsCache = metricsCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Merges an upload's durations into the sketches of {@code day}, in the caller's transaction,
+     * through the {@link DailyBlobStore}.
+     */
+    @Transactional
+    public void recordDurations(LocalDate day,
+                                SortedMap<String, DurationSketch> bySuite,
+                                SortedMap<Integer, DurationSketchBlock> byTestBlock) {
+        dailyBlobStore.merge(Table.SUITE_DURATION_SKETCH, day, bySuite, SKETCH);
+        dailyBlobStore.merge(Table.TEST_DURATION_SKETCH, day, byTestBlock, BLOCK);
+    }
+
+    /**
+     * p50/p90/p99 and maximum of every suite's run durations from {@code from} to {@code to},
+     * inclusive, slowest p90 first. Without bounds, the last {@value #DEFAULT_WINDOW_DAYS} days.
+     */
+    public Map<String, Object> getSuiteDurations(LocalDate from, LocalDate to, int limit) {
+        LocalDate toDay = to != null ? to : LocalDate.now();
+        LocalDate fromDay = from != null ? from : toDay.minusDays(DEFAULT_WINDOW_DAYS);
+        checkWindow(fromDay, toDay);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return metricsCache.get("durations:suites:" + fromDay + ":" + toDay + ":" + limit,
+            () -> computeSuiteDurations(fromDay, toDay, limit));
+    }
+
+    /**
+     * p50/p90/p99 and maximum of one test's durations from {@code from} to {@code to}, inclusive.
+     */
+    public Map<String, Object> getTestDurations(String testName, LocalDate from, LocalDate to) {
+        if (testName == null || testName.isBlank()) {
+            throw new IllegalArgumentException("Test name is required");
+        }
+        LocalDate toDay = to != null ? to : LocalDate.now();
+        LocalDate fromDay = from != null ? from : toDay.minusDays(DEFAULT_WINDOW_DAYS);
+        checkWindow(fromDay, toDay);
+        return metricsCache.get("durations:test:" + fromDay + ":" + toDay + ":" + testName,
+            () -> computeTestDurations(testName, fromDay, toDay));
+    }
+
+    /**
+     * Recomputes the sketches of every day from {@code from} to {@code to} out of the raw suite
+     * and case runs, e.g. after the tables were added or runs were backfilled. Without bounds,
+     * every day with runs is rebuilt.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate from, LocalDate to) {
+        LocalDate fromDay = from != null ? from : dayOf(testSuiteRunRepository.findEarliestTimestamp());
+        LocalDate toDay = to != null ? to : dayOf(testSuiteRunRepository.findLatestTimestamp());
+        if (fromDay == null || toDay == null) {
+            return Map.of("days", 0, "suite_sketches", 0, "test_sketches", 0);
+        }
+        checkWindow(fromDay, toDay);
+        // Compacted days have no raw runs left to rebuild from; their summaries are final
+        LocalDate archivedThrough = testRunArchiveRepository.findLatestDay();
+        if (archivedThrough != null && !fromDay.isAfter(archivedThrough)) {
+            fromDay = archivedThrough.plusDays(1);
+        }
+
+        dailyBlobRepository.deleteBetween(Table.SUITE_DURATION_SKETCH, fromDay, toDay);
+        dailyBlobRepository.deleteBetween(Table.TEST_DURATION_SKETCH, fromDay, toDay);
+        int days = 0;
+        int suiteSketches = 0;
+        int testSketches = 0;
+        for (LocalDate day = fromDay; !day.isAfter(toDay); day = day.plusDays(1)) {
+            LocalDateTime start = day.atStartOfDay();
+            LocalDateTime end = day.plusDays(1).atStartOfDay();
+            Map<String, DurationSketch> suites = new TreeMap<>();
+            for (NamedDuration<String> duration : testSuiteRunRepository.findSuiteDurations(start, end)) {
+                suites.computeIfAbsent(duration.key(), key -> new DurationSketch()).add(duration.durationMs());
+            }
+            Map<Integer, DurationSketchBlock> testBlocks = new TreeMap<>();
+            for (NamedDuration<Integer> duration : testCaseRunRepository.findCaseDurations(start, end)) {
+                testBlocks.computeIfAbsent(DurationSketchBlock.blockOf(duration.key()), block -> new DurationSketchBlock())
+                    .add(duration.key(), duration.durationMs());
+            }
+            dailyBlobRepository.insert(Table.SUITE_DURATION_SKETCH, day, encode(suites, SKETCH));
+            dailyBlobRepository.insert(Table.TEST_DURATION_SKETCH, day, encode(testBlocks, BLOCK));
+            days++;
+            suiteSketches += suites.size();
+            testSketches += testBlocks.values().stream().mapToInt(block -> block.getSketches().size()).sum();
+        }
+        eventPublisher.publishEvent(new MetricsDataChangedEvent("durations"));
+
+        return Map.of(
+            "from", fromDay,
+            "to", toDay,
+            "days", days,
+            "suite_sketches", suiteSketches,
+            "test_sketches", testSketches
+        );
+    }
+
+    private Map<String, Object> computeSuiteDurations(LocalDate from, LocalDate to, int limit) {
+        Map<String, DurationSketch> bySuite = new TreeMap<>();
+        dailyBlobRepository.<String>forEachBetween(Table.SUITE_DURATION_SKETCH, from, to, null, (suiteName, bytes) ->
+            bySuite.computeIfAbsent(suiteName, name -> new DurationSketch()).merge(DurationSketch.fromBytes(bytes)));
+        // Rows are created empty before an upload fills them, and stay so if it rolls back
+        List<Map.Entry<String, DurationSketch>> merged = bySuite.entrySet().stream()
+            .filter(entry -> entry.getValue().getCount() > 0)
+            .toList();
+
+        List<Map<String, Object>> suites = merged.stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, DurationSketch> entry) -> entry.getValue().quantile(0.9))
+                .reversed()
+                .thenComparing(Map.Entry::getKey))
+            .limit(limit)
+            .map(entry -> {
+                Map<String, Object> suite = new LinkedHashMap<>();
+                suite.put("suiteName", entry.getKey());
+                suite.putAll(percentiles(entry.getValue()));
+                return suite;
+            })
+            .toList();
+
+        return Map.of(
+            "from", from,
+            "to", to,
+            "total_suites", merged.size(),
+            "suites", suites
+        );
+    }
+
+    private Map<String, Object> computeTestDurations(String testName, LocalDate from, LocalDate to) {
+        Integer testIdentityId = testIdentityStore.findId(testName);
+        DurationSketch merged = testIdentityId == null
+            ? new DurationSketch()
+            : mergeAll(dailyBlobRepository.findBetween(
+                Table.TEST_DURATION_SKETCH, DurationSketchBlock.blockOf(testIdentityId), from, to)
+                .stream()
+                .map(block -> DurationSketchBlock.find(block, testIdentityId))
+                .toList());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("testName", testName);
+        result.put("from", from);
+        result.put("to", to);
+        result.putAll(percentiles(merged));
+        return result;
+    }
+
+    private static <K, V> Map<K, byte[]> encode(Map<K, V> values, Codec<V> codec) {
+        Map<K, byte[]> encoded = new LinkedHashMap<>();
+        values.forEach((key, value) -> encoded.put(key, codec.encode().apply(value)));
+        return encoded;
+    }
+
+    private static DurationSketch mergeAll(List<DurationSketch> sketches) {
+        DurationSketch merged = new DurationSketch();
+        sketches.forEach(merged::merge);
+        return merged;
+    }
+
+    private static Map<String, Object> percentiles(DurationSketch sketch) {
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("runs", sketch.getCount());
+        percentiles.put("p50_ms", sketch.quantile(0.5));
+        percentiles.put("p90_ms", sketch.quantile(0.9));
+        percentiles.put("p99_ms", sketch.quantile(0.99));
+        percentiles.put("max_ms", sketch.getMax());
+        return percentiles;
+    }
+
+    private static void checkWindow(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+    }
+
+    private static LocalDate dayOf(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toLocalDate() : null;
+    }
+}
@@ -0,0 +1,193 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository.Table;
+import com.rnd.testinghub.adapters.persistence.DurationRegressionRepository;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.domain.DurationRegression;
+import com.rnd.testinghub.domain.TestIdentity;
+import com.rnd.testinghub.infrastructure.DurationBaselineBlock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Flags test case runs that are far slower than usual. Every test keeps an exponentially
+ * weighted mean and variance of its durations ({@link DurationBaselineBlock.Baseline}); a run
+ * more than {@code sigmas} standard deviations above the mean is recorded as a
+ * {@link DurationRegression}. Checking and updating a baseline is O(1) per run.
+ */
+@Service
+public class DurationRegressionService {
+
+    /**
+     * Durations of one test within one upload, in the order they were read. Only the last
+     * {@value #MAX_DURATIONS} are kept; older ones would barely move the baseline anyway.
+     */
+    public static class Durations {
+        static final int MAX_DURATIONS = 64;
+
+        private long[] values = new long[1];
+        private int count;
+
+        public void add(long durationMs) {
+            if (count < MAX_DURATIONS && count == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_DURATIONS, values.length * 2));
+            }
+            values[count % MAX_DURATIONS] = durationMs;
+            count++;
+        }
+
+        long[] inOrder() {
+            if (count <= MAX_DURATIONS) {
+                return Arrays.copyOf(values, count);
+            }
+            long[] ordered = new long[MAX_DURATIONS];
+            int oldest = count % MAX_DURATIONS;
+            for (int i = 0; i < MAX_DURATIONS; i++) {
+                ordered[i] = values[(oldest + i) % MAX_DURATIONS];
+            }
+            return ordered;
+        }
+    }
+
+    private final DailyBlobStore dailyBlobStore;
+    private final DurationRegressionRepository durationRegressionRepository;
+    private final TestIdentityRepository testIdentityRepository;
+    private final MetricsCache metricsCache;
+    private final double alpha;
+    private final double sigmas;
+    private final int warmupRuns;
+    private final long minIncreaseMs;
+
+    public DurationRegressionService(DailyBlobStore dailyBlobStore,
+                                     DurationRegressionRepository durationRegressionRepository,
+                                     TestIdentityRepository testIdentityRepository,
+                                     MetricsCache metricsCache,
+                                     @Value("${metrics.regressions.alpha:0.1}") double alpha,
+                                     @Value("${metrics.regressions.sigmas:4}") double sigmas,
+                                     @Value("${metrics.regressions.warmup-runs:5}") int warmupRuns,
+                                     @Value("${metrics.regressions.min-increase-ms:100}") long minIncreaseMs) {
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("metrics.regressions.alpha must be between 0 and 1");
+        }
+        this.dailyBlobStore = dailyBlobStore;
+        this.durationRegressionRepository = durationRegressionRepository;
+        this.testIdentityRepository = testIdentityRepository;
+        this.metricsCache = metricsCache;
+        this.alpha = alpha;
+        this.sigmas = sigmas;
+        this.warmupRuns = warmupRuns;
+        this.minIncreaseMs = minIncreaseMs;
+    }
+
+    /**
+     * Checks an upload's durations against the tests' baselines and folds them in, in the caller's
+     * transaction, and stores the runs that were flagged. Baseline blocks are locked and updated
+     * through the {@link DailyBlobStore}; a missing block starts out empty.
+     *
+     * @return the number of runs flagged
+     */
+    @Transactional
+    public int recordDurations(String uploadSourceId, LocalDateTime timestamp, SortedMap<Integer, Durations> durationsByTest) {
+        SortedMap<Integer, Map<Integer, Durations>> byBlock = new TreeMap<>();
+        durationsByTest.forEach((testIdentityId, durations) -> byBlock
+            .computeIfAbsent(DurationBaselineBlock.blockOf(testIdentityId), block -> new TreeMap<>())
+            .put(testIdentityId, durations));
+
+        List<DurationRegression> regressions = new ArrayList<>();
+        // Baselines are not kept per day
+        dailyBlobStore.update(Table.TEST_DURATION_BASELINE, null, byBlock.keySet(), new byte[0], (blockId, bytes) ->
+            apply(bytes, byBlock.get(blockId), uploadSourceId, timestamp, regressions));
+
+        durationRegressionRepository.saveAll(regressions);
+        return regressions.size();
+    }
+
+    /**
+     * Runs flagged in the last {@code days} days, newest first.
+     */
+    public Map<String, Object> getSlowRegressions(int days, int limit) {
+        if (days < 1 || limit < 1) {
+            throw new IllegalArgumentException("Days and limit must be positive");
+        }
+        return metricsCache.get("slow-regressions:" + days + ":" + limit, () -> computeSlowRegressions(days, limit));
+    }
+
+    private Map<String, Object> computeSlowRegressions(int days, int limit) {
+        LocalDateTime since = LocalDateTime.now().minusDays(days);
+        List<DurationRegression> recent = durationRegressionRepository
+            .findByDetectedAtAfterOrderByDetectedAtDescIdDesc(since, PageRequest.of(0, limit));
+        Map<Integer, String> names = testIdentityRepository
+            .findAllById(recent.stream().map(DurationRegression::getTestIdentityId).distinct().toList())
+            .stream()
+            .collect(Collectors.toMap(TestIdentity::getId, TestIdentity::getTestName));
+
+        List<Map<String, Object>> regressions = recent.stream().map(regression -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("testName", names.get(regression.getTestIdentityId()));
+            entry.put("durationMs", regression.getDurationMs());
+            entry.put("baselineMeanMs", regression.getBaselineMeanMs());
+            entry.put("baselineStdDevMs", regression.getBaselineStdDevMs());
+            entry.put("sigmas", regression.getSigmas());
+            entry.put("slowdown", regression.getBaselineMeanMs() > 0
+                ? regression.getDurationMs() / regression.getBaselineMeanMs() : null);
+            entry.put("uploadSourceId", regression.getUploadSourceId());
+            entry.put("detectedAt", regression.getDetectedAt());
+            return entry;
+        }).toList();
+
+        return Map.of(
+            "window_days", days,
+            "sigma_threshold", sigmas,
+            "total_regressions", durationRegressionRepository.countByDetectedAtAfter(since),
+            "regressions", regressions
+        );
+    }
+
+    private byte[] apply(byte[] stored, Map<Integer, Durations> durationsByTest, String uploadSourceId,
+                         LocalDateTime timestamp, List<DurationRegression> regressions) {
+        DurationBaselineBlock block = DurationBaselineBlock.fromBytes(stored);
+        durationsByTest.forEach((testIdentityId, durations) -> {
+            DurationBaselineBlock.Baseline baseline = block.get(testIdentityId);
+            for (long durationMs : durations.inOrder()) {
+                DurationRegression regression = check(testIdentityId, baseline, durationMs, uploadSourceId, timestamp);
+                if (regression != null) {
+                    regressions.add(regression);
+                }
+                baseline.add(durationMs, alpha);
+            }
+        });
+        return block.toBytes();
+    }
+
+    /**
+     * A regression if the baseline has seen enough runs and {@code durationMs} lies more than
+     * {@code sigmas} standard deviations, and at least {@code min-increase-ms}, above its mean.
+     */
+    private DurationRegression check(Integer testIdentityId, DurationBaselineBlock.Baseline baseline, long durationMs,
+                                     String uploadSourceId, LocalDateTime timestamp) {
+        if (baseline.getCount() < warmupRuns) {
+            return null;
+        }
+        double increase = durationMs - baseline.getMean();
+        double stdDev = baseline.getStdDev();
+        if (increase < minIncreaseMs || increase <= sigmas * stdDev) {
+            return null;
+        }
+        // Durations are whole milliseconds, so a test that always took the same time has a 1 ms spread
+        double deviation = increase / Math.max(stdDev, 1.0);
+        return new DurationRegression(testIdentityId, durationMs, baseline.getMean(), stdDev, deviation,
+            uploadSourceId, timestamp);
+    }
+}
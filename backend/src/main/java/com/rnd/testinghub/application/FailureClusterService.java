@@ -0,0 +1,124 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.ClusterFailures;
+import com.rnd.testinghub.adapters.persistence.FailureClusterRepository;
+import com.rnd.testinghub.adapters.persistence.FailureMessageRepository;
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.domain.FailureCluster;
+import com.rnd.testinghub.domain.FailureMessage;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Failing tests grouped by the cause of their failure. Every stored failure message belongs to
+ * a cluster ({@link FailureClusterStore}), so ranking clusters is one aggregation over the
+ * failed runs of the window.
+ */
+@Service
+public class FailureClusterService {
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int REBUILD_BATCH = 500;
+
+    private final TestCaseRunRepository testCaseRunRepository;
+    private final FailureClusterRepository failureClusterRepository;
+    private final FailureMessageRepository failureMessageRepository;
+    private final FailureClusterStore failureClusterStore;
+    private final MetricsCache metricsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public FailureClusterService(TestCaseRunRepository testCaseRunRepository,
+                                 FailureClusterRepository failureClusterRepository,
+                                 FailureMessageRepository failureMessageRepository,
+                                 FailureClusterStore failureClusterStore,
+                                 MetricsCache metricsCache,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.testCaseRunRepository = testCaseRunRepository;
+        this.failureClusterRepository = failureClusterRepository;
+        this.failureMessageRepository = failureMessageRepository;
+        this.failureClusterStore = failureClusterStore;
+        this.metricsCache = metricsCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * The {@code limit} clusters with the most failed runs in the last {@code days} days, with
+     * the number of distinct tests hit and the latest failure.
+     */
+    public Map<String, Object> getClusters(int days, int limit) {
+        if (days < 1 || limit < 1) {
+            throw new IllegalArgumentException("Days and limit must be positive");
+        }
+        if (limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be at most " + MAX_LIMIT);
+        }
+        return metricsCache.get("failure-clusters:" + days + ":" + limit, () -> computeClusters(days, limit));
+    }
+
+    /**
+     * Assigns a cluster to every failure message stored without one, e.g. before clustering
+     * existed. Messages are processed in batches, each in its own transaction.
+     */
+    public Map<String, Object> rebuild() {
+        int messages = 0;
+        while (true) {
+            Integer assigned = transactionTemplate.execute(status -> {
+                List<FailureMessage> batch = failureMessageRepository
+                    .findByClusterIdIsNullOrderById(PageRequest.of(0, REBUILD_BATCH));
+                failureClusterStore.assign(batch);
+                failureMessageRepository.saveAll(batch);
+                return batch.size();
+            });
+            if (assigned == null || assigned == 0) {
+                break;
+            }
+            messages += assigned;
+        }
+        eventPublisher.publishEvent(new MetricsDataChangedEvent("failure-clusters"));
+
+        return Map.of(
+            "messages", messages,
+            "clusters", failureClusterRepository.count()
+        );
+    }
+
+    private Map<String, Object> computeClusters(int days, int limit) {
+        LocalDateTime since = LocalDateTime.now().minusDays(days);
+        List<ClusterFailures> ranked = testCaseRunRepository.findClusterFailures(since, PageRequest.of(0, limit));
+        Map<Long, FailureCluster> clusters = failureClusterRepository
+            .findAllById(ranked.stream().map(ClusterFailures::clusterId).toList())
+            .stream()
+            .collect(Collectors.toMap(FailureCluster::getId, Function.identity()));
+
+        List<Map<String, Object>> entries = ranked.stream().map(failures -> {
+            FailureCluster cluster = clusters.get(failures.clusterId());
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("clusterId", failures.clusterId());
+            entry.put("exceptionType", cluster.getExceptionType());
+            entry.put("signature", cluster.getSignature());
+            entry.put("failures", failures.failures());
+            entry.put("tests", failures.tests());
+            entry.put("lastSeen", failures.lastSeen());
+            return entry;
+        }).toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("days", days);
+        result.put("total_clusters", testCaseRunRepository.countFailingClusters(since));
+        result.put("clusters", entries);
+        return result;
+    }
+}
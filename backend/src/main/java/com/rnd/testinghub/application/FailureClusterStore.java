@@ -0,0 +1,77 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.FailureClusterRepository;
+import com.rnd.testinghub.domain.FailureCluster;
+import com.rnd.testinghub.domain.FailureMessage;
+import com.rnd.testinghub.infrastructure.FailureSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Assigns failure messages to {@link FailureCluster}s: the cluster with the same signature,
+ * else the nearest one whose SimHash is at most {@code max-distance} bits away, else a new one.
+ * Each message is assigned once, when it is stored, so the cost follows the number of distinct
+ * messages and not the number of failing runs.
+ */
+@Service
+public class FailureClusterStore {
+
+    private final FailureClusterRepository failureClusterRepository;
+    private final int maxDistance;
+
+    public FailureClusterStore(FailureClusterRepository failureClusterRepository,
+                               @Value("${metrics.failure-clusters.max-distance:3}") int maxDistance) {
+        // Within BANDS - 1 bits, a near duplicate always shares a band with its cluster
+        if (maxDistance < 0 || maxDistance >= FailureSignature.BANDS) {
+            throw new IllegalArgumentException("metrics.failure-clusters.max-distance must be between 0 and "
+                + (FailureSignature.BANDS - 1));
+        }
+        this.failureClusterRepository = failureClusterRepository;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Sets the cluster of every message, creating clusters in the caller's transaction.
+     */
+    public void assign(List<FailureMessage> messages) {
+        Map<String, Long> clusterIdsBySignature = new HashMap<>();
+        for (FailureMessage message : messages) {
+            FailureSignature signature = FailureSignature.of(message.getMessage());
+            message.setClusterId(clusterIdsBySignature.computeIfAbsent(signature.hash(), hash -> clusterIdOf(signature)));
+        }
+    }
+
+    private Long clusterIdOf(FailureSignature signature) {
+        Optional<FailureCluster> same = failureClusterRepository.findBySignatureHash(signature.hash());
+        if (same.isPresent()) {
+            return same.get().getId();
+        }
+
+        FailureCluster nearest = null;
+        int nearestDistance = maxDistance + 1;
+        List<FailureCluster> candidates = failureClusterRepository.findByAnyBand(
+            signature.band(0), signature.band(1), signature.band(2), signature.band(3));
+        for (FailureCluster candidate : candidates) {
+            int distance = signature.distance(candidate.getSimHash());
+            if (distance < nearestDistance) {
+                nearest = candidate;
+                nearestDistance = distance;
+            }
+        }
+        if (nearest != null) {
+            return nearest.getId();
+        }
+
+        int[] bands = new int[FailureSignature.BANDS];
+        for (int band = 0; band < bands.length; band++) {
+            bands[band] = signature.band(band);
+        }
+        return failureClusterRepository.save(new FailureCluster(
+            signature.hash(), signature.text(), signature.exceptionType(), signature.simHash(), bands)).getId();
+    }
+}
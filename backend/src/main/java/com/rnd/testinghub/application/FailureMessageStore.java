@@ -0,0 +1,119 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.FailureMessageRepository;
+import com.rnd.testinghub.domain.FailureMessage;
+import com.rnd.testinghub.infrastructure.ContentDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Maps failure messages to the IDs of their shared {@link FailureMessage} rows.
+ * Messages that differ only in stack-frame line numbers or memory addresses share one row.
+ * Lookups go through an LRU cache of hash to ID; misses are looked up and inserted per batch,
+ * and new messages are assigned to their failure cluster as they are inserted.
+ */
+@Service
+public class FailureMessageStore {
+
+    private static final Pattern LINE_NUMBER = Pattern.compile(":\\d+\\)");
+    private static final Pattern IDENTITY_HASH = Pattern.compile("@[0-9a-f]+");
+    private static final Pattern ADDRESS = Pattern.compile("0x[0-9a-fA-F]+");
+
+    private final FailureMessageRepository failureMessageRepository;
+    private final FailureClusterStore failureClusterStore;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Long> idsByHash;
+
+    public FailureMessageStore(FailureMessageRepository failureMessageRepository,
+                               FailureClusterStore failureClusterStore,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${ingestion.failure-message-cache-size:10000}") int cacheSize) {
+        this.failureMessageRepository = failureMessageRepository;
+        this.failureClusterStore = failureClusterStore;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.idsByHash = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Hash of the message with line numbers and addresses stripped; the PostgreSQL backfill
+     * migration computes the same value.
+     */
+    public static String hash(String message) {
+        String normalized = LINE_NUMBER.matcher(message).replaceAll(")");
+        normalized = IDENTITY_HASH.matcher(normalized).replaceAll("@");
+        normalized = ADDRESS.matcher(normalized).replaceAll("0x");
+        return ContentDigest.sha256(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the failure message ID for each hash in {@code messagesByHash}, inserting rows for
+     * hashes not stored yet. New rows are committed in their own transaction, so they can be
+     * cached right away and concurrent uploads never wait on each other's ingestion.
+     */
+    public Map<String, Long> resolve(Map<String, String> messagesByHash) {
+        Map<String, Long> ids = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (idsByHash) {
+            messagesByHash.keySet().forEach(messageHash -> {
+                Long id = idsByHash.get(messageHash);
+                if (id != null) {
+                    ids.put(messageHash, id);
+                } else {
+                    missing.add(messageHash);
+                }
+            });
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        Map<String, Long> loaded;
+        try {
+            loaded = newTransaction.execute(status -> lookUpOrInsert(missing, messagesByHash));
+        } catch (DataIntegrityViolationException e) {
+            // Another upload inserted one of the hashes first; its row is committed now
+            loaded = newTransaction.execute(status -> lookUpOrInsert(missing, messagesByHash));
+        }
+
+        synchronized (idsByHash) {
+            idsByHash.putAll(loaded);
+        }
+        ids.putAll(loaded);
+        return ids;
+    }
+
+    private Map<String, Long> lookUpOrInsert(List<String> messageHashes, Map<String, String> messagesByHash) {
+        Map<String, Long> ids = new HashMap<>();
+        failureMessageRepository.findByMessageHashIn(messageHashes)
+            .forEach(message -> ids.put(message.getMessageHash(), message.getId()));
+
+        List<FailureMessage> created = new ArrayList<>();
+        for (String messageHash : messageHashes) {
+            if (!ids.containsKey(messageHash)) {
+                created.add(new FailureMessage(messageHash, messagesByHash.get(messageHash)));
+            }
+        }
+        failureClusterStore.assign(created);
+        failureMessageRepository.saveAllAndFlush(created)
+            .forEach(message -> ids.put(message.getMessageHash(), message.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,285 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.OutcomeBits;
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestFlakinessRepository;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.domain.TestFlakiness;
+import com.rnd.testinghub.domain.TestIdentity;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Flaky-test detection from the per-test outcome bit sets in {@link TestFlakiness}.
+ * Ingestion appends each upload's outcomes; queries look only at the last {@code window}
+ * outcomes of every test, so they cost O(distinct tests) regardless of how much history exists.
+ */
+@Service
+public class FlakyTestService {
+
+    private static final int UPDATE_CHUNK = 500;
+
+    private final TestFlakinessRepository testFlakinessRepository;
+    private final TestIdentityRepository testIdentityRepository;
+    private final TestCaseRunRepository testCaseRunRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate newTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultWindow;
+
+    public FlakyTestService(TestFlakinessRepository testFlakinessRepository,
+                            TestIdentityRepository testIdentityRepository,
+                            TestCaseRunRepository testCaseRunRepository,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${metrics.flaky.window:20}") int defaultWindow) {
+        this.testFlakinessRepository = testFlakinessRepository;
+        this.testIdentityRepository = testIdentityRepository;
+        this.testCaseRunRepository = testCaseRunRepository;
+        this.entityManager = entityManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.defaultWindow = checkWindow(defaultWindow);
+    }
+
+    /**
+     * Appends an upload's outcomes to the tests' histories, in the caller's transaction.
+     * Rows are updated in ID order, in chunks, so concurrent uploads cannot deadlock.
+     * Tests in {@code newTestIds} were first seen in this upload, so their rows are created
+     * without trying an update first.
+     */
+    @Transactional
+    public void recordOutcomes(SortedMap<Integer, TestFlakiness.Outcomes> outcomesByTest, Set<Integer> newTestIds) {
+        List<Integer> testIdentityIds = new ArrayList<>(outcomesByTest.keySet());
+        for (int start = 0; start < testIdentityIds.size(); start += UPDATE_CHUNK) {
+            Map<Integer, TestFlakiness.Outcomes> known = new TreeMap<>();
+            List<Integer> missing = new ArrayList<>();
+            for (Integer id : testIdentityIds.subList(start, Math.min(start + UPDATE_CHUNK, testIdentityIds.size()))) {
+                if (newTestIds.contains(id)) {
+                    missing.add(id);
+                } else {
+                    known.put(id, outcomesByTest.get(id));
+                }
+            }
+            if (!known.isEmpty()) {
+                missing.addAll(testFlakinessRepository.appendOutcomes(known));
+            }
+            if (!missing.isEmpty()) {
+                createRows(missing, outcomesByTest);
+            }
+        }
+    }
+
+    /**
+     * Names of the tests that the given just-appended outcomes made flaky within the default
+     * window: flaky now, but not before the last {@code outcomes.getCount()} outcomes.
+     */
+    public List<String> findNewlyFlaky(Map<Integer, TestFlakiness.Outcomes> appendedByTest) {
+        List<Integer> testIdentityIds = new ArrayList<>(appendedByTest.keySet());
+        List<Integer> newlyFlaky = new ArrayList<>();
+        for (int start = 0; start < testIdentityIds.size(); start += UPDATE_CHUNK) {
+            List<Integer> chunk = testIdentityIds.subList(start, Math.min(start + UPDATE_CHUNK, testIdentityIds.size()));
+            for (OutcomeBits bits : testFlakinessRepository.findOutcomeBits(chunk)) {
+                int appended = Math.min(appendedByTest.get(bits.testIdentityId()).getCount(), TestFlakiness.MAX_OUTCOMES);
+                OutcomeBits before = new OutcomeBits(bits.testIdentityId(), bits.outcomeBits() >>> appended,
+                    Math.max(0, bits.outcomeCount() - appended), bits.flipCount());
+                if (appended > 0 && isFlaky(bits, defaultWindow) && !isFlaky(before, defaultWindow)) {
+                    newlyFlaky.add(bits.testIdentityId());
+                }
+            }
+        }
+        return testIdentityRepository.findAllById(newlyFlaky).stream()
+            .map(TestIdentity::getTestName)
+            .sorted()
+            .toList();
+    }
+
+    public double calculateFlakyRate() {
+        return calculateFlakyRate(defaultWindow);
+    }
+
+    /**
+     * Share of tests with both a pass and a failure among their last {@code window} outcomes.
+     */
+    public double calculateFlakyRate(int window) {
+        checkWindow(window);
+        // Rows without outcomes were created by uploads that rolled back
+        List<OutcomeBits> all = testFlakinessRepository.findAllOutcomeBits().stream()
+            .filter(bits -> bits.outcomeCount() > 0)
+            .toList();
+        if (all.isEmpty()) return 0.0;
+
+        long flakyTests = all.stream().filter(bits -> isFlaky(bits, window)).count();
+        return (double) flakyTests / all.size();
+    }
+
+    /**
+     * The {@code limit} flakiest tests of the window, ranked by pass/fail flips and then by
+     * failures within the window.
+     */
+    public Map<String, Object> getFlakyTests(Integer window, int limit) {
+        int effectiveWindow = window != null ? checkWindow(window) : defaultWindow;
+        Comparator<WindowStats> ranking = Comparator.comparingInt((WindowStats stats) -> stats.flips)
+            .thenComparingInt(stats -> stats.failures)
+            .thenComparing(stats -> stats.testIdentityId, Comparator.reverseOrder());
+
+        // Keep only the current top entries while scanning all tests
+        PriorityQueue<WindowStats> top = new PriorityQueue<>(ranking);
+        int totalTests = 0;
+        int flakyTests = 0;
+        for (OutcomeBits bits : testFlakinessRepository.findAllOutcomeBits()) {
+            // Rows without outcomes were created by uploads that rolled back
+            if (bits.outcomeCount() == 0) {
+                continue;
+            }
+            totalTests++;
+            WindowStats stats = new WindowStats(bits, effectiveWindow);
+            if (stats.failures == 0 || stats.failures == stats.runs) {
+                continue;
+            }
+            flakyTests++;
+            top.add(stats);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<WindowStats> ranked = new ArrayList<>(top);
+        ranked.sort(ranking.reversed());
+        Map<Integer, String> names = testIdentityRepository
+            .findAllById(ranked.stream().map(stats -> stats.testIdentityId).toList())
+            .stream()
+            .collect(Collectors.toMap(TestIdentity::getId, TestIdentity::getTestName));
+
+        List<Map<String, Object>> tests = ranked.stream().map(stats -> {
+            Map<String, Object> test = new LinkedHashMap<>();
+            test.put("testName", names.get(stats.testIdentityId));
+            test.put("runs", stats.runs);
+            test.put("failures", stats.failures);
+            test.put("flips", stats.flips);
+            test.put("flipRate", stats.runs > 1 ? (double) stats.flips / (stats.runs - 1) : 0.0);
+            test.put("totalFlips", stats.totalFlips);
+            return test;
+        }).toList();
+
+        return Map.of(
+            "window", effectiveWindow,
+            "total_tests", totalTests,
+            "flaky_tests", flakyTests,
+            "flaky_rate", totalTests == 0 ? 0.0 : (double) flakyTests / totalTests,
+            "tests", tests
+        );
+    }
+
+    /**
+     * Reloads every test's last {@value TestFlakiness#MAX_OUTCOMES} outcomes from the raw test
+     * case runs, e.g. after the table was added or runs were backfilled.
+     */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        testFlakinessRepository.deleteAllInBatch();
+        int rebuilt = 0;
+        for (Integer testIdentityId : testIdentityRepository.findAllIds()) {
+            List<String> newestFirst = testCaseRunRepository.findRecentOutcomes(
+                testIdentityId, PageRequest.of(0, TestFlakiness.MAX_OUTCOMES));
+            TestFlakiness.Outcomes outcomes = new TestFlakiness.Outcomes();
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                outcomes.add(newestFirst.get(i));
+            }
+            entityManager.persist(new TestFlakiness(testIdentityId, outcomes));
+            if (++rebuilt % UPDATE_CHUNK == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        eventPublisher.publishEvent(new MetricsDataChangedEvent("flaky"));
+        return Map.of("tests", rebuilt);
+    }
+
+    /**
+     * Inserts rows holding just this upload's outcomes, committed in their own transaction.
+     * Rows another upload created in the meantime get the outcomes appended instead.
+     */
+    private void createRows(List<Integer> testIdentityIds, Map<Integer, TestFlakiness.Outcomes> outcomesByTest) {
+        try {
+            newTransaction.executeWithoutResult(status -> createMissingRows(testIdentityIds));
+        } catch (DataIntegrityViolationException e) {
+            // Another upload created one of the rows first
+            newTransaction.executeWithoutResult(status -> createMissingRows(testIdentityIds));
+        }
+        testFlakinessRepository.appendOutcomes(select(testIdentityIds, outcomesByTest));
+    }
+
+    /**
+     * Commits rows without outcomes, like {@link MetricsRollupService#addRuns} does, so the
+     * outcomes themselves are only appended in the caller's transaction and roll back with it.
+     */
+    private void createMissingRows(List<Integer> testIdentityIds) {
+        Set<Integer> existing = new HashSet<>(testFlakinessRepository.findExistingIds(testIdentityIds));
+        testFlakinessRepository.insertEmpty(testIdentityIds.stream().filter(id -> !existing.contains(id)).toList());
+    }
+
+    private static Map<Integer, TestFlakiness.Outcomes> select(Collection<Integer> testIdentityIds,
+                                                             Map<Integer, TestFlakiness.Outcomes> outcomesByTest) {
+        Map<Integer, TestFlakiness.Outcomes> selected = new TreeMap<>();
+        testIdentityIds.forEach(id -> selected.put(id, outcomesByTest.get(id)));
+        return selected;
+    }
+
+    private static boolean isFlaky(OutcomeBits bits, int window) {
+        WindowStats stats = new WindowStats(bits, window);
+        return stats.failures > 0 && stats.failures < stats.runs;
+    }
+
+    private static int checkWindow(int window) {
+        if (window < 2 || window > TestFlakiness.MAX_OUTCOMES) {
+            throw new IllegalArgumentException("Flaky window must be between 2 and " + TestFlakiness.MAX_OUTCOMES);
+        }
+        return window;
+    }
+
+    /**
+     * Counts over the last {@code window} outcomes of one test.
+     */
+    private static class WindowStats {
+        final int testIdentityId;
+        final int runs;
+        final int failures;
+        final int flips;
+        final long totalFlips;
+
+        WindowStats(OutcomeBits bits, int window) {
+            testIdentityId = bits.testIdentityId();
+            runs = Math.min(window, bits.outcomeCount());
+            long mask = (1L << runs) - 1;
+            long recent = bits.outcomeBits() & mask;
+            failures = Long.bitCount(recent);
+            // Adjacent outcome pairs that differ; the oldest outcome has no older neighbour
+            flips = Long.bitCount((recent ^ (recent >>> 1)) & (mask >>> 1));
+            totalFlips = bits.flipCount();
+        }
+    }
+}
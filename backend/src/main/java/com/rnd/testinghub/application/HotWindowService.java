@@ -0,0 +1,222 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.CaseRunScanRepository;
+import com.rnd.testinghub.infrastructure.CaseRunColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The test case runs of the last {@code days} days held in memory as {@link CaseRunColumns},
+ * so window aggregations over them are loops over primitive arrays instead of SQL. Loaded on
+ * startup by scanning time slices of the window in parallel, newest first, until
+ * {@code max-rows} runs are read; every upload's runs are appended once it commits. Retention
+ * and compaction, which delete runs, and uploads too large to hand over trigger a reload.
+ */
+@Service
+public class HotWindowService {
+
+    private static final Logger log = LoggerFactory.getLogger(HotWindowService.class);
+
+    // More slices than threads, so the scan can stop soon after max-rows is reached
+    private static final int SLICES_PER_THREAD = 4;
+
+    /**
+     * The per-test and total sums of one window; {@code runs} and {@code failures} are parallel
+     * to {@code testIds}.
+     */
+    public record Window(CaseRunColumns.WindowTotals totals, int[] testIds, int[] runs, int[] failures) {
+    }
+
+    /**
+     * The runs scanned from one time slice, and whether those are all of them.
+     */
+    private record Slice(long fromMillis, long untilMillis, CaseRunColumns.Batch runs, boolean complete) {
+    }
+
+    private final CaseRunScanRepository caseRunScanRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int days;
+    private final long maxRows;
+    private final int loadThreads;
+    private final Object loadLock = new Object();
+    private volatile CaseRunColumns columns = new CaseRunColumns(Long.MAX_VALUE);
+    private List<CaseRunColumns.Batch> arrivedWhileLoading; // non-null during a load, guarded by this
+
+    public HotWindowService(CaseRunScanRepository caseRunScanRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${metrics.hot-window.days:7}") int days,
+                            @Value("${metrics.hot-window.max-rows:5000000}") long maxRows,
+                            @Value("${metrics.hot-window.load-threads:4}") int loadThreads) {
+        if (days < 0 || maxRows < 1 || loadThreads < 1) {
+            throw new IllegalArgumentException("metrics.hot-window.days must not be negative, max-rows and load-threads must be positive");
+        }
+        this.caseRunScanRepository = caseRunScanRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.days = days;
+        this.maxRows = maxRows;
+        this.loadThreads = loadThreads;
+    }
+
+    /**
+     * Replaces the held runs with the window as currently stored. One load runs at a time; the
+     * runs of uploads that commit meanwhile are added once it is done.
+     */
+    public void load() {
+        if (days == 0) {
+            return;
+        }
+        synchronized (loadLock) {
+            synchronized (this) {
+                arrivedWhileLoading = new ArrayList<>();
+            }
+            LocalDateTime since = LocalDateTime.now().minusDays(days);
+            List<Slice> slices;
+            try {
+                slices = scanNewestFirst(since);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    arrivedWhileLoading = null;
+                }
+                throw e;
+            }
+
+            // Only the slices from the newest one through the first incomplete one are gap-free
+            long coveredFrom = millis(since);
+            int kept = 0;
+            while (kept < slices.size()) {
+                Slice slice = slices.get(kept++);
+                if (!slice.complete()) {
+                    coveredFrom = slice.runs().size() == 0 ? slice.untilMillis() : slice.runs().minTimestamp() + 1;
+                    break;
+                }
+            }
+            List<Slice> gapFree = slices.subList(0, kept);
+            CaseRunColumns fresh = new CaseRunColumns(coveredFrom);
+            long[] loadedIds = new long[gapFree.stream().mapToInt(slice -> slice.runs().size()).sum()];
+            int offset = 0;
+            for (Slice slice : gapFree.reversed()) {
+                fresh.append(slice.runs());
+                long[] ids = slice.runs().sortedIds();
+                System.arraycopy(ids, 0, loadedIds, offset, ids.length);
+                offset += ids.length;
+            }
+            Arrays.sort(loadedIds);
+            synchronized (this) {
+                // Uploads that committed during the scan may already be part of it
+                for (CaseRunColumns.Batch batch : arrivedWhileLoading) {
+                    fresh.appendExcept(batch, loadedIds);
+                }
+                arrivedWhileLoading = null;
+                fresh.evict(coveredFrom, maxRows);
+                columns = fresh;
+            }
+            log.info("Hot window loaded: {} test case runs since {}", fresh.rows(), since);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCaseRunsCommitted(CaseRunsCommittedEvent event) {
+        if (days == 0) {
+            return;
+        }
+        if (event.runs() == null) {
+            load();
+            return;
+        }
+        synchronized (this) {
+            if (arrivedWhileLoading != null) {
+                arrivedWhileLoading.add(event.runs());
+                return;
+            }
+            columns.append(event.runs());
+            columns.evict(millis(LocalDateTime.now().minusDays(days)), maxRows);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMetricsDataChanged(MetricsDataChangedEvent event) {
+        if ("retention".equals(event.source()) || "archive".equals(event.source())) {
+            load();
+        }
+    }
+
+    /**
+     * Sums the held runs in {@code [from, until)}, per test and in total.
+     */
+    public Window aggregate(LocalDateTime from, LocalDateTime until) {
+        CaseRunColumns current = columns;
+        if (millis(from) < current.coveredFrom()) {
+            throw new IllegalArgumentException("Only the test case runs of the last " + days + " days are held in memory"
+                + (current.coveredFrom() == Long.MAX_VALUE ? " (not loaded yet)" : ""));
+        }
+        int tests = current.testCount();
+        int[] runs = new int[tests];
+        int[] failures = new int[tests];
+        CaseRunColumns.WindowTotals totals = current.aggregate(millis(from), millis(until), runs, failures);
+        return new Window(totals, current.testIds(tests), runs, failures);
+    }
+
+    /**
+     * Scans the window in slices, newest first, on {@code load-threads} threads. Together the
+     * slices read at most {@code max-rows} runs; the slices still running when that is reached
+     * stop early and the later ones read nothing.
+     */
+    private List<Slice> scanNewestFirst(LocalDateTime since) {
+        int sliceCount = loadThreads * SLICES_PER_THREAD;
+        Duration slice = Duration.ofDays(days).dividedBy(sliceCount);
+        AtomicLong budget = new AtomicLong(maxRows);
+        ExecutorService scanners = Executors.newFixedThreadPool(loadThreads);
+        try {
+            List<Future<Slice>> scans = new ArrayList<>();
+            for (int i = sliceCount - 1; i >= 0; i--) {
+                LocalDateTime from = since.plus(slice.multipliedBy(i));
+                // The newest slice is open-ended, so it also takes runs stamped after the load began
+                LocalDateTime until = i == sliceCount - 1 ? null : since.plus(slice.multipliedBy(i + 1));
+                long untilMillis = until == null ? System.currentTimeMillis() : millis(until);
+                scans.add(scanners.submit(() -> {
+                    CaseRunColumns.Batch batch = new CaseRunColumns.Batch();
+                    if (budget.get() <= 0) {
+                        return new Slice(millis(from), untilMillis, batch, false);
+                    }
+                    boolean complete = Boolean.TRUE.equals(readOnlyTransaction.execute(status ->
+                        caseRunScanRepository.scan(from, until, batch, () -> budget.getAndDecrement() > 0)));
+                    return new Slice(millis(from), untilMillis, batch, complete);
+                }));
+            }
+            List<Slice> slices = new ArrayList<>();
+            for (Future<Slice> scan : scans) {
+                slices.add(scan.get());
+            }
+            return slices;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the hot window", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not load the hot window", e.getCause());
+        } finally {
+            scanners.shutdownNow();
+        }
+    }
+
+    private static long millis(LocalDateTime timestamp) {
+        return Timestamp.valueOf(timestamp).getTime();
+    }
+}
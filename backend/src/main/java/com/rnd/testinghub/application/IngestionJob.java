@@ -0,0 +1,86 @@
+package com.rnd.testinghub.application;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * State of an upload that is parsed and persisted in the background.
+ * Workers update it while the job runs, so every field is safe to read from request threads.
+ */
+public class IngestionJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    private final String id;
+    private final String type;
+    private final long sizeBytes;
+    private final LocalDateTime submittedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile long bytesRead;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Map<String, Object> result;
+    private volatile String error;
+
+    public IngestionJob(String id, String type, long sizeBytes) {
+        this.id = id;
+        this.type = type;
+        this.sizeBytes = sizeBytes;
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void markSucceeded(Map<String, Object> result) {
+        this.result = result;
+        bytesRead = sizeBytes;
+        finishedAt = LocalDateTime.now();
+        status = Status.SUCCEEDED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    void addBytesRead(long count) {
+        bytesRead += count;
+    }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    public double getProgress() {
+        if (status == Status.SUCCEEDED) return 1.0;
+        return sizeBytes == 0 ? 0.0 : Math.min(1.0, (double) bytesRead / sizeBytes);
+    }
+
+    public Map<String, Object> toView() {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("jobId", id);
+        view.put("type", type);
+        view.put("status", status.name().toLowerCase());
+        view.put("progress", String.format("%.2f%%", getProgress() * 100));
+        view.put("bytesRead", bytesRead);
+        view.put("sizeBytes", sizeBytes);
+        view.put("submittedAt", submittedAt);
+        view.put("startedAt", startedAt);
+        view.put("finishedAt", finishedAt);
+        if (result != null) view.putAll(result);
+        if (error != null) view.put("message", error);
+        return view;
+    }
+
+    public String getId() { return id; }
+    public String getType() { return type; }
+    public Status getStatus() { return status; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public Map<String, Object> getResult() { return result; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,203 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.infrastructure.ContentDigest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs uploads in the background so clients get an answer before parsing starts.
+ * Uploads are spooled to disk, queued in a bounded queue and processed by a fixed number of
+ * virtual-thread workers; a full queue is reported to the caller instead of buffering more work.
+ * Synchronous uploads run on the request thread but are limited too: every ingestion holds two
+ * pooled connections at once while it creates rows in their own transactions, so the pool is
+ * sized for both limits together.
+ */
+@Service
+public class IngestionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionJobService.class);
+
+    /**
+     * Parses and persists one spooled upload and returns the fields reported as the job result.
+     * The SHA-256 of the upload is computed while it is spooled and passed along with it.
+     */
+    @FunctionalInterface
+    public interface IngestionTask {
+        Map<String, Object> run(InputStream upload, String contentDigest) throws Exception;
+    }
+
+    /**
+     * An ingestion run on the caller's thread.
+     */
+    @FunctionalInterface
+    public interface SyncIngestion<T> {
+        T run() throws Exception;
+    }
+
+    public static class QueueFullException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public QueueFullException(int capacity) {
+            super("Ingestion queue is full (" + capacity + " jobs waiting), retry later");
+        }
+    }
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor workers;
+    private final int queueCapacity;
+    private final Duration jobRetention;
+    private final Path spoolDirectory;
+    private final Semaphore syncPermits;
+
+    public IngestionJobService(@Value("${ingestion.async.worker-concurrency:4}") int workerConcurrency,
+                               @Value("${ingestion.async.queue-capacity:100}") int queueCapacity,
+                               @Value("${ingestion.async.job-retention:1h}") Duration jobRetention,
+                               @Value("${ingestion.async.spool-dir:${java.io.tmpdir}}") Path spoolDirectory,
+                               @Value("${ingestion.sync.max-concurrent:4}") int syncConcurrency) {
+        if (syncConcurrency < 1) {
+            throw new IllegalArgumentException("ingestion.sync.max-concurrent must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        this.jobRetention = jobRetention;
+        this.spoolDirectory = spoolDirectory;
+        this.syncPermits = new Semaphore(syncConcurrency, true);
+        this.workers = new ThreadPoolExecutor(workerConcurrency, workerConcurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            Thread.ofVirtual().name("ingestion-worker-", 0).factory());
+    }
+
+    /**
+     * Spools {@code upload} to disk and queues {@code task} for it.
+     *
+     * @throws QueueFullException if {@code ingestion.async.queue-capacity} jobs are already waiting
+     */
+    public IngestionJob submit(String type, InputStream upload, IngestionTask task) throws IOException, QueueFullException {
+        removeExpiredJobs();
+        if (workers.getQueue().remainingCapacity() == 0) {
+            throw new QueueFullException(queueCapacity);
+        }
+
+        Files.createDirectories(spoolDirectory);
+        Path spoolFile = Files.createTempFile(spoolDirectory, "ingestion-", ".upload");
+        MessageDigest digest = ContentDigest.newDigest();
+        try {
+            Files.copy(new DigestInputStream(upload, digest), spoolFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), type, Files.size(spoolFile));
+        jobs.put(job.getId(), job);
+        String contentDigest = ContentDigest.toHex(digest);
+
+        try {
+            workers.execute(() -> run(job, spoolFile, contentDigest, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(spoolFile);
+            throw new QueueFullException(queueCapacity);
+        }
+
+        return job;
+    }
+
+    /**
+     * Runs {@code ingestion} on the calling thread once fewer than
+     * {@code ingestion.sync.max-concurrent} other synchronous uploads are running.
+     */
+    public <T> T runNow(SyncIngestion<T> ingestion) throws Exception {
+        syncPermits.acquire();
+        try {
+            return ingestion.run();
+        } finally {
+            syncPermits.release();
+        }
+    }
+
+    public IngestionJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    public int getActiveWorkers() {
+        return workers.getActiveCount();
+    }
+
+    private void run(IngestionJob job, Path spoolFile, String contentDigest, IngestionTask task) {
+        job.markRunning();
+        try (InputStream upload = new ProgressInputStream(Files.newInputStream(spoolFile), job)) {
+            job.markSucceeded(task.run(upload, contentDigest));
+        } catch (Exception e) {
+            log.warn("Ingestion job {} ({}) failed", job.getId(), job.getType(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                log.warn("Could not delete spooled upload {}", spoolFile, e);
+            }
+        }
+    }
+
+    private void removeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Counts bytes as the worker reads the spooled upload so the job can report progress.
+     */
+    private static class ProgressInputStream extends FilterInputStream {
+        private final IngestionJob job;
+
+        ProgressInputStream(InputStream in, IngestionJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) job.addBytesRead(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) job.addBytesRead(count);
+            return count;
+        }
+    }
+}
@@ -1,44 +1,363 @@
 package com.rnd.testinghub.application;
 
+import com.rnd.testinghub.adapters.persistence.CaseRunView;
+import com.rnd.testinghub.adapters.persistence.CaseRunViewRepository;
+import com.rnd.testinghub.adapters.persistence.IngestedUploadRepository;
 import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
 import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.domain.FailureMessage;
+import com.rnd.testinghub.domain.IngestedUpload;
 import com.rnd.testinghub.domain.TestCaseRun;
+import com.rnd.testinghub.domain.TestFlakiness;
+import com.rnd.testinghub.domain.TestIdentity;
 import com.rnd.testinghub.domain.TestSuiteRun;
+import com.rnd.testinghub.infrastructure.CaseRunColumns;
+import com.rnd.testinghub.infrastructure.ContentDigest;
+import com.rnd.testinghub.infrastructure.DistinctTestSketch;
+import com.rnd.testinghub.infrastructure.DurationSketch;
+import com.rnd.testinghub.infrastructure.DurationSketchBlock;
+import com.rnd.testinghub.infrastructure.SuiteTestStats;
+import com.rnd.testinghub.infrastructure.parser.JunitArchiveParser;
 import com.rnd.testinghub.infrastructure.parser.JunitXmlParser;
+import jakarta.persistence.EntityManager;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class JunitIngestionService {
 
+    // Matches hibernate.jdbc.batch_size so every flush sends full insert batches
+    private static final int FLUSH_INTERVAL = 500;
+    // Runs of one upload kept for the hot window; larger uploads make it reload instead
+    private static final int MAX_WRITTEN_RUNS = 100_000;
+    // Distinct tests an upload holds outcomes, durations and counters of before adding them to
+    // the histories, sketches and rollups; larger uploads add them in several rounds
+    private static final int MAX_PENDING_TESTS = 50_000;
+    private static final String UPLOAD_KIND = "junit";
+    private static final int MAX_CASE_PAGE = 10_000;
+
     private final TestSuiteRunRepository testSuiteRunRepository;
     private final TestCaseRunRepository testCaseRunRepository;
+    private final CaseRunViewRepository caseRunViewRepository;
+    private final IngestedUploadRepository ingestedUploadRepository;
+    private final FailureMessageStore failureMessageStore;
+    private final TestIdentityStore testIdentityStore;
+    private final MetricsRollupService metricsRollupService;
+    private final FlakyTestService flakyTestService;
+    private final DurationMetricsService durationMetricsService;
+    private final DurationRegressionService durationRegressionService;
+    private final TopTestsService topTestsService;
+    private final DistinctTestService distinctTestService;
+    private final TestRunArchiveService testRunArchiveService;
     private final JunitXmlParser junitXmlParser;
+    private final JunitArchiveParser junitArchiveParser;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     public JunitIngestionService(TestSuiteRunRepository testSuiteRunRepository,
                                  TestCaseRunRepository testCaseRunRepository,
-                                 JunitXmlParser junitXmlParser) {
+                                 CaseRunViewRepository caseRunViewRepository,
+                                 IngestedUploadRepository ingestedUploadRepository,
+                                 FailureMessageStore failureMessageStore,
+                                 TestIdentityStore testIdentityStore,
+                                 MetricsRollupService metricsRollupService,
+                                 FlakyTestService flakyTestService,
+                                 DurationMetricsService durationMetricsService,
+                                 DurationRegressionService durationRegressionService,
+                                 TopTestsService topTestsService,
+                                 DistinctTestService distinctTestService,
+                                 TestRunArchiveService testRunArchiveService,
+                                 JunitXmlParser junitXmlParser,
+                                 JunitArchiveParser junitArchiveParser,
+                                 EntityManager entityManager,
+                                 ApplicationEventPublisher eventPublisher) {
         this.testSuiteRunRepository = testSuiteRunRepository;
         this.testCaseRunRepository = testCaseRunRepository;
+        this.caseRunViewRepository = caseRunViewRepository;
+        this.ingestedUploadRepository = ingestedUploadRepository;
+        this.failureMessageStore = failureMessageStore;
+        this.testIdentityStore = testIdentityStore;
+        this.metricsRollupService = metricsRollupService;
+        this.flakyTestService = flakyTestService;
+        this.durationMetricsService = durationMetricsService;
+        this.durationRegressionService = durationRegressionService;
+        this.topTestsService = topTestsService;
+        this.distinctTestService = distinctTestService;
+        this.testRunArchiveService = testRunArchiveService;
         this.junitXmlParser = junitXmlParser;
+        this.junitArchiveParser = junitArchiveParser;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public List<Long> ingestJunitReport(String xmlContent) throws Exception {
-        List<JunitXmlParser.TestSuiteInfo> suites = junitXmlParser.parse(xmlContent);
-        String uploadSourceId = UUID.randomUUID().toString();
-        List<Long> suiteIds = new java.util.ArrayList<>();
+        return ingestJunitReport(new ByteArrayResource(xmlContent.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Hashes the report in a first streaming pass, then ingests it unless the same content was
+     * ingested before; a repeated upload is neither parsed nor written.
+     */
+    @Transactional
+    public List<Long> ingestJunitReport(InputStreamSource report) throws Exception {
+        String contentDigest;
+        try (InputStream reportStream = report.getInputStream()) {
+            contentDigest = ContentDigest.sha256(reportStream);
+        }
+        try (InputStream reportStream = report.getInputStream()) {
+            return ingestJunitReport(reportStream, contentDigest);
+        }
+    }
+
+    /**
+     * Parses and persists the report while it is being read. The persistence context is flushed
+     * and cleared every {@value #FLUSH_INTERVAL} cases, so heap use stays flat for any report size.
+     * A report whose digest was seen before is not read at all; the suite IDs of the first
+     * upload are returned instead.
+     */
+    @Transactional
+    public List<Long> ingestJunitReport(InputStream reportStream, String contentDigest) throws Exception {
+        PreviousUpload previous = findPreviousUpload(contentDigest);
+        if (previous != null) {
+            return previous.suiteIds();
+        }
+
+        ReportWriter writer = new ReportWriter(registerUpload(contentDigest, UUID.randomUUID().toString()));
+        junitXmlParser.parse(reportStream, writer);
+        writer.finish();
+        return writer.suiteIds;
+    }
+
+    /**
+     * Like {@link #ingestJunitReport(InputStreamSource)}, hashing the archive before reading its
+     * files.
+     */
+    @Transactional
+    public Map<String, Object> ingestJunitArchive(InputStreamSource archive) throws Exception {
+        String contentDigest;
+        try (InputStream archiveStream = archive.getInputStream()) {
+            contentDigest = ContentDigest.sha256(archiveStream);
+        }
+        try (InputStream archiveStream = archive.getInputStream()) {
+            return ingestJunitArchive(archiveStream, contentDigest);
+        }
+    }
+
+    /**
+     * Ingests every JUnit XML file of a .zip or .tar.gz archive under one upload source ID.
+     * Files are parsed in parallel and written in archive order; the result lists each file's
+     * parse time, slowest first.
+     */
+    @Transactional
+    public Map<String, Object> ingestJunitArchive(InputStream archiveStream, String contentDigest) throws Exception {
+        PreviousUpload previous = findPreviousUpload(contentDigest);
+        if (previous != null) {
+            return duplicateOf(previous);
+        }
+
+        ReportWriter writer = new ReportWriter(registerUpload(contentDigest, UUID.randomUUID().toString()));
+        Map<String, Object> result = writeArchive(archiveStream, writer);
+        writer.finish();
+        return result;
+    }
+
+    private Map<String, Object> writeArchive(InputStream archiveStream, ReportWriter writer) throws Exception {
+        List<Map<String, Object>> files = new ArrayList<>();
+        long start = System.nanoTime();
+
+        junitArchiveParser.parse(archiveStream, file -> {
+            int cases = 0;
+            for (JunitXmlParser.TestSuiteInfo suiteInfo : file.suites) {
+                writer.onTestSuite(suiteInfo);
+                for (JunitXmlParser.TestCaseInfo caseInfo : suiteInfo.cases) {
+                    writer.onTestCase(caseInfo);
+                }
+                cases += suiteInfo.cases.size();
+            }
+            files.add(Map.of(
+                "file", file.name,
+                "sizeBytes", file.sizeBytes,
+                "suites", file.suites.size(),
+                "cases", cases,
+                "parseMillis", file.parseMillis
+            ));
+        });
+
+        files.sort(Comparator.comparing((Map<String, Object> file) -> (Long) file.get("parseMillis")).reversed());
+
+        return Map.of(
+            "uploadSourceId", writer.uploadSourceId,
+            "suiteIds", writer.suiteIds,
+            "files", files,
+            "totalFiles", files.size(),
+            "elapsedMillis", (System.nanoTime() - start) / 1_000_000,
+            "duplicate", false
+        );
+    }
+
+    /**
+     * An earlier upload of the same content and the suite runs it wrote.
+     */
+    private record PreviousUpload(String uploadSourceId, List<Long> suiteIds) {
+    }
+
+    /**
+     * The earlier upload of the same content, or null if there was none. An upload whose suite
+     * runs retention has removed since no longer counts: its record is dropped, so the content
+     * is ingested again.
+     */
+    private PreviousUpload findPreviousUpload(String contentDigest) {
+        Optional<IngestedUpload> previous = ingestedUploadRepository.findByUploadKindAndContentDigest(UPLOAD_KIND, contentDigest);
+        if (previous.isEmpty()) {
+            return null;
+        }
+        String uploadSourceId = previous.get().getUploadSourceId();
+        List<Long> suiteIds = testSuiteRunRepository.findIdsByUploadSourceId(uploadSourceId);
+        if (suiteIds.isEmpty()) {
+            ingestedUploadRepository.delete(previous.get());
+            ingestedUploadRepository.flush();
+            return null;
+        }
+        return new PreviousUpload(uploadSourceId, suiteIds);
+    }
+
+    private static Map<String, Object> duplicateOf(PreviousUpload previous) {
+        return Map.of(
+            "uploadSourceId", previous.uploadSourceId(),
+            "suiteIds", previous.suiteIds(),
+            "duplicate", true
+        );
+    }
+
+    /**
+     * Records the digest. A concurrent upload of the same content blocks on the unique index
+     * and fails instead of keeping the runs a second time.
+     */
+    private String registerUpload(String contentDigest, String uploadSourceId) {
+        ingestedUploadRepository.saveAndFlush(new IngestedUpload(UPLOAD_KIND, contentDigest, uploadSourceId));
+        return uploadSourceId;
+    }
+
+    public TestSuiteRun getTestSuiteRun(Long id) {
+        return testSuiteRunRepository.findById(id).orElse(null);
+    }
 
-        LocalDateTime now = LocalDateTime.now();
+    public List<TestCaseRun> getTestCasesForSuite(Long suiteId) {
+        return testCaseRunRepository.findBySuiteRunId(suiteId);
+    }
 
-        for (JunitXmlParser.TestSuiteInfo suiteInfo : suites) {
+    /**
+     * Up to {@code limit} case runs of the suite after the run with ID {@code after} (from the
+     * start if null), optionally only those with {@code status}. {@code next_cursor} is the
+     * {@code after} of the following page, or null on the last one.
+     */
+    public Map<String, Object> getTestCasePage(Long suiteId, Long after, int limit, String status) {
+        if (limit < 1 || limit > MAX_CASE_PAGE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_CASE_PAGE);
+        }
+        // One extra row tells whether another page follows
+        List<CaseRunView> cases = caseRunViewRepository.findPage(suiteId, after != null ? after : 0L, status, limit + 1);
+        if (cases.isEmpty()) {
+            // Runs of compacted days are read back from their archive file
+            cases = testRunArchiveService.findArchivedPage(suiteId, after != null ? after : 0L, status, limit + 1);
+        }
+        boolean hasMore = cases.size() > limit;
+        if (hasMore) {
+            cases = cases.subList(0, limit);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("suiteId", suiteId);
+        page.put("status", status);
+        page.put("cases", cases);
+        page.put("count", cases.size());
+        page.put("next_cursor", hasMore ? cases.get(cases.size() - 1).id() : null);
+        return page;
+    }
+
+    /**
+     * Hands every case run of the suite to {@code consumer} in ID order, optionally only those
+     * with {@code status}, reading them from a database cursor, or from the archive once compacted.
+     */
+    @Transactional(readOnly = true)
+    public void forEachTestCase(Long suiteId, String status, Consumer<CaseRunView> consumer) {
+        boolean[] found = new boolean[1];
+        caseRunViewRepository.forEachInSuite(suiteId, status, testCase -> {
+            found[0] = true;
+            consumer.accept(testCase);
+        });
+        if (!found[0]) {
+            testRunArchiveService.forEachArchived(suiteId, status, consumer);
+        }
+    }
+
+    public List<TestSuiteRun> getTestSuiteRunsInTimeWindow(LocalDateTime from, LocalDateTime to) {
+        return testSuiteRunRepository.findByTimestampBetween(from, to);
+    }
+
+    /**
+     * Writes one upload's suites and cases as they arrive, in batches of {@value #FLUSH_INTERVAL} cases.
+     * Cases are held back until a batch is full so their test names and failure messages can be
+     * resolved together. The upload's suite totals, test outcomes and durations are added to the
+     * daily rollups, flakiness histories, duration sketches, duration baselines and distinct test
+     * sketches by {@link #finish()}, or at the end of a batch once they cover
+     * {@value #MAX_PENDING_TESTS} tests, so heap use stays flat however many tests a report has.
+     * Once the upload commits, cached metrics are dropped, the written runs join the in-memory
+     * hot window and the live metrics stream is told about the new suites.
+     */
+    private class ReportWriter implements JunitXmlParser.ReportHandler {
+        private final String uploadSourceId;
+        private final LocalDateTime now = LocalDateTime.now();
+        private final List<Long> suiteIds = new ArrayList<>();
+        private final List<TestCaseRun> pendingCases = new ArrayList<>();
+        private final List<String> pendingTestNames = new ArrayList<>(); // parallel to pendingCases
+        private final List<String> pendingMessageHashes = new ArrayList<>(); // parallel to pendingCases
+        private final Map<String, String> pendingMessages = new HashMap<>();
+        private final SortedMap<String, MetricsRollupService.SuiteTotals> rollupTotals = new TreeMap<>();
+        private final SortedMap<Integer, TestFlakiness.Outcomes> outcomesByTest = new TreeMap<>();
+        private final SortedMap<String, DurationSketch> durationsBySuite = new TreeMap<>();
+        private final SortedMap<Integer, DurationSketchBlock> durationsByTestBlock = new TreeMap<>();
+        private final SortedMap<Integer, DurationRegressionService.Durations> durationsByTest = new TreeMap<>();
+        private final SortedMap<String, SuiteTestStats> statsBySuite = new TreeMap<>();
+        private final SortedMap<String, DistinctTestSketch> distinctTestsBySuite = new TreeMap<>();
+        private final Set<Integer> newTestIds = new HashSet<>();
+        private final SortedSet<String> newFlakyTests = new TreeSet<>();
+        private CaseRunColumns.Batch writtenRuns = new CaseRunColumns.Batch(); // null once past MAX_WRITTEN_RUNS
+        private TestSuiteRun suiteRun;
+
+        ReportWriter(String uploadSourceId) {
+            this.uploadSourceId = uploadSourceId;
+        }
+
+        @Override
+        public void onTestSuite(JunitXmlParser.TestSuiteInfo suiteInfo) {
             String status = suiteInfo.failed > 0 ? "failed" : (suiteInfo.tests == suiteInfo.passed ? "passed" : "mixed");
 
-            TestSuiteRun suiteRun = new TestSuiteRun(
+            suiteRun = testSuiteRunRepository.save(new TestSuiteRun(
                 suiteInfo.name,
                 status,
                 suiteInfo.tests,
@@ -48,36 +367,114 @@ public class JunitIngestionService {
                 suiteInfo.durationMs,
                 now,
                 uploadSourceId
-            );
-            suiteRun = testSuiteRunRepository.save(suiteRun);
+            ));
             suiteIds.add(suiteRun.getId());
+            rollupTotals.computeIfAbsent(suiteInfo.name, name -> new MetricsRollupService.SuiteTotals()).add(suiteInfo);
+            durationsBySuite.computeIfAbsent(suiteInfo.name, name -> new DurationSketch()).add(suiteInfo.durationMs);
+        }
 
-            // Save test cases
-            for (JunitXmlParser.TestCaseInfo caseInfo : suiteInfo.cases) {
-                TestCaseRun caseRun = new TestCaseRun(
-                    suiteRun,
-                    caseInfo.name,
-                    caseInfo.status,
-                    caseInfo.durationMs,
-                    caseInfo.errorMessage,
-                    now
-                );
-                testCaseRunRepository.save(caseRun);
+        @Override
+        public void onTestCase(JunitXmlParser.TestCaseInfo caseInfo) {
+            TestCaseRun caseRun = new TestCaseRun(
+                suiteRun,
+                null,
+                caseInfo.status,
+                caseInfo.durationMs,
+                null,
+                now
+            );
+            String messageHash = null;
+            if (caseInfo.errorMessage != null) {
+                messageHash = FailureMessageStore.hash(caseInfo.errorMessage);
+                pendingMessages.putIfAbsent(messageHash, caseInfo.errorMessage);
+            }
+            pendingCases.add(caseRun);
+            pendingTestNames.add(caseInfo.name);
+            pendingMessageHashes.add(messageHash);
+
+            if (pendingCases.size() == FLUSH_INTERVAL) {
+                writePendingCases();
             }
         }
 
-        return suiteIds;
-    }
+        void finish() {
+            writePendingCases();
+            recordAggregates();
+            eventPublisher.publishEvent(new CaseRunsCommittedEvent(writtenRuns));
+            eventPublisher.publishEvent(new SuiteRunsCommittedEvent(suiteIds, newFlakyTests));
+            eventPublisher.publishEvent(new MetricsDataChangedEvent(UPLOAD_KIND));
+        }
 
-    public TestSuiteRun getTestSuiteRun(Long id) {
-        return testSuiteRunRepository.findById(id).orElse(null);
-    }
+        /**
+         * Adds what the upload has accumulated since the last round and starts over. Each round
+         * locks its rows in key order, so an upload taking one round cannot deadlock with
+         * another; two uploads both past {@value #MAX_PENDING_TESTS} tests may, and the database
+         * then fails one of them.
+         */
+        private void recordAggregates() {
+            metricsRollupService.addRuns(now.toLocalDate(), rollupTotals);
+            flakyTestService.recordOutcomes(outcomesByTest, newTestIds);
+            // Read back in this transaction, while the outcomes appended by this round are known
+            newFlakyTests.addAll(flakyTestService.findNewlyFlaky(outcomesByTest));
+            durationMetricsService.recordDurations(now.toLocalDate(), durationsBySuite, durationsByTestBlock);
+            durationRegressionService.recordDurations(uploadSourceId, now, durationsByTest);
+            topTestsService.recordRuns(now.toLocalDate(), statsBySuite);
+            distinctTestService.recordTests(now.toLocalDate(), distinctTestsBySuite);
+            rollupTotals.clear();
+            outcomesByTest.clear();
+            newTestIds.clear();
+            durationsBySuite.clear();
+            durationsByTestBlock.clear();
+            durationsByTest.clear();
+            statsBySuite.clear();
+            distinctTestsBySuite.clear();
+        }
 
-    public List<TestCaseRun> getTestCasesForSuite(Long suiteId) {
-        return testCaseRunRepository.findBySuiteRunId(suiteId);
-    }
+        private void writePendingCases() {
+            Set<Integer> createdIds = new HashSet<>();
+            Map<String, Integer> testIdentityIds = testIdentityStore.resolve(pendingTestNames, createdIds);
+            newTestIds.addAll(createdIds);
+            Map<String, Long> messageIds = failureMessageStore.resolve(pendingMessages);
+            for (int i = 0; i < pendingCases.size(); i++) {
+                Integer testIdentityId = testIdentityIds.get(pendingTestNames.get(i));
+                pendingCases.get(i).setTestIdentity(entityManager.getReference(TestIdentity.class, testIdentityId));
+                outcomesByTest.computeIfAbsent(testIdentityId, id -> new TestFlakiness.Outcomes())
+                    .add(pendingCases.get(i).getStatus());
+                durationsByTestBlock.computeIfAbsent(DurationSketchBlock.blockOf(testIdentityId), block -> new DurationSketchBlock())
+                    .add(testIdentityId, pendingCases.get(i).getDurationMs());
+                durationsByTest.computeIfAbsent(testIdentityId, id -> new DurationRegressionService.Durations())
+                    .add(pendingCases.get(i).getDurationMs());
+                statsBySuite.computeIfAbsent(pendingCases.get(i).getSuiteRun().getSuiteName(), name -> new SuiteTestStats())
+                    .add(testIdentityId, pendingCases.get(i).getStatus(), pendingCases.get(i).getDurationMs());
+                distinctTestsBySuite.computeIfAbsent(pendingCases.get(i).getSuiteRun().getSuiteName(), name -> new DistinctTestSketch())
+                    .add(testIdentityId);
+                String messageHash = pendingMessageHashes.get(i);
+                if (messageHash != null) {
+                    pendingCases.get(i).setFailureMessage(entityManager.getReference(FailureMessage.class, messageIds.get(messageHash)));
+                }
+            }
+            testCaseRunRepository.saveAll(pendingCases);
+            if (writtenRuns != null && writtenRuns.size() + pendingCases.size() > MAX_WRITTEN_RUNS) {
+                writtenRuns = null;
+            }
+            if (writtenRuns != null) {
+                long timestampMillis = Timestamp.valueOf(now).getTime();
+                for (TestCaseRun caseRun : pendingCases) {
+                    writtenRuns.add(caseRun.getId(), caseRun.getTestIdentityId(), CaseRunColumns.statusCode(caseRun.getStatus()),
+                        caseRun.getDurationMs(), timestampMillis);
+                }
+            }
 
-    public List<TestSuiteRun> getTestSuiteRunsInTimeWindow(LocalDateTime from, LocalDateTime to) {
-        return testSuiteRunRepository.findByTimestampBetween(from, to);
+            // Detach what has been written so far; the suite stays usable as a reference
+            entityManager.flush();
+            entityManager.clear();
+            pendingCases.clear();
+            pendingTestNames.clear();
+            pendingMessageHashes.clear();
+            pendingMessages.clear();
+            if (outcomesByTest.size() >= MAX_PENDING_TESTS) {
+                recordAggregates();
+            }
+        }
     }
 }
@@ -0,0 +1,145 @@
+package com.rnd.testinghub.application;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of computed metrics results. Entries expire {@code metrics.cache.ttl} after they
+ * were loaded, the least recently used ones are evicted beyond {@code metrics.cache.max-size},
+ * and everything is dropped once a {@link MetricsDataChangedEvent} commits.
+ *
+ * <p>Concurrent misses for one key are coalesced: the first caller computes the result and the
+ * others wait for it, so a burst of dashboard polls costs one computation.
+ */
+@Service
+public class MetricsCache {
+
+    private static class Entry {
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        volatile long loadedAtNanos;
+
+        boolean isExpired(long nowNanos, long ttlNanos) {
+            return result.isDone() && nowNanos - loadedAtNanos > ttlNanos;
+        }
+    }
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong totalLoadNanos = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public MetricsCache(@Value("${metrics.cache.max-size:1000}") int maxSize,
+                        @Value("${metrics.cache.ttl:30s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result for {@code key}, computing it with {@code loader} on the calling
+     * thread if it is missing or expired. A failed load is not cached.
+     */
+    public Map<String, Object> get(String key, Supplier<Map<String, Object>> loader) {
+        Entry entry;
+        boolean load = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime(), ttlNanos)) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                load = true;
+            }
+        }
+
+        if (!load) {
+            hits.incrementAndGet();
+            return await(entry);
+        }
+
+        misses.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> result = loader.get();
+            entry.loadedAtNanos = System.nanoTime();
+            totalLoadNanos.addAndGet(entry.loadedAtNanos - start);
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            loadFailures.incrementAndGet();
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops every entry. Loads already running still complete for their waiting callers,
+     * but their results are not kept.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMetricsDataChanged(MetricsDataChangedEvent event) {
+        invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return Map.of(
+            "size", size,
+            "hits", hitCount,
+            "misses", missCount,
+            "hit_rate", requests == 0 ? 0.0 : (double) hitCount / requests,
+            "load_failures", loadFailures.get(),
+            "average_load_millis", missCount == 0 ? 0.0 : totalLoadNanos.get() / 1_000_000.0 / missCount,
+            "evictions", evictions.get(),
+            "invalidations", invalidations.get()
+        );
+    }
+
+    private static Map<String, Object> await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.rnd.testinghub.application;
+
+/**
+ * Published when stored data that metrics are computed from has changed, e.g. by an upload
+ * ({@code source} is the upload kind) or a rebuild. Listeners run after the change commits.
+ */
+public record MetricsDataChangedEvent(String source) {
+}
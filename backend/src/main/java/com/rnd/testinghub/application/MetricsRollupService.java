@@ -0,0 +1,129 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.MetricsDailyRollupRepository;
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.domain.MetricsDailyRollup;
+import com.rnd.testinghub.infrastructure.parser.JunitXmlParser;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Keeps {@link MetricsDailyRollup} rows in step with ingested suite runs.
+ */
+@Service
+public class MetricsRollupService {
+
+    /**
+     * Totals of the runs of one suite within one upload.
+     */
+    public static class SuiteTotals {
+        private long suiteRuns;
+        private long totalTests;
+        private long passedTests;
+        private long failedTests;
+        private long skippedTests;
+        private long durationMs;
+
+        public void add(JunitXmlParser.TestSuiteInfo suite) {
+            suiteRuns++;
+            totalTests += suite.tests;
+            passedTests += suite.passed;
+            failedTests += suite.failed;
+            skippedTests += suite.skipped;
+            durationMs += suite.durationMs;
+        }
+    }
+
+    private final MetricsDailyRollupRepository metricsDailyRollupRepository;
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final TransactionTemplate newTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MetricsRollupService(MetricsDailyRollupRepository metricsDailyRollupRepository,
+                                TestSuiteRunRepository testSuiteRunRepository,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher) {
+        this.metricsDailyRollupRepository = metricsDailyRollupRepository;
+        this.testSuiteRunRepository = testSuiteRunRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds an upload's totals to the rollups of {@code day}, in the caller's transaction.
+     * Missing rows are created empty in their own transaction first, so the increments are
+     * plain row updates that concurrent uploads apply one after the other. Suites are
+     * updated in name order so two uploads never lock the same rows in opposite order.
+     */
+    @Transactional
+    public void addRuns(LocalDate day, SortedMap<String, SuiteTotals> totalsBySuite) {
+        if (totalsBySuite.isEmpty()) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> createMissingRows(day, totalsBySuite));
+        } catch (DataIntegrityViolationException e) {
+            // Another upload created one of the rows first
+            newTransaction.executeWithoutResult(status -> createMissingRows(day, totalsBySuite));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<String, SuiteTotals> entry : totalsBySuite.entrySet()) {
+            SuiteTotals totals = entry.getValue();
+            metricsDailyRollupRepository.addRuns(day, entry.getKey(), totals.suiteRuns, totals.totalTests,
+                totals.passedTests, totals.failedTests, totals.skippedTests, totals.durationMs, now);
+        }
+    }
+
+    /**
+     * Recomputes the rollups of every day from {@code from} to {@code to} out of the raw suite
+     * runs, e.g. after runs were backfilled or deleted. Without bounds, all days are rebuilt.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate from, LocalDate to) {
+        LocalDate fromDay = from != null ? from : dayOf(testSuiteRunRepository.findEarliestTimestamp());
+        LocalDate toDay = to != null ? to : dayOf(testSuiteRunRepository.findLatestTimestamp());
+        if (fromDay == null || toDay == null) {
+            // There are no suite runs at all, so no rollup may remain either
+            long deleted = metricsDailyRollupRepository.count();
+            metricsDailyRollupRepository.deleteAllInBatch();
+            eventPublisher.publishEvent(new MetricsDataChangedEvent("rollups"));
+            return Map.of("deleted", deleted, "inserted", 0);
+        }
+
+        int deleted = metricsDailyRollupRepository.deleteByDayBetween(fromDay, toDay);
+        int inserted = metricsDailyRollupRepository.insertFromSuiteRuns(
+            fromDay.atStartOfDay(), toDay.plusDays(1).atStartOfDay());
+        eventPublisher.publishEvent(new MetricsDataChangedEvent("rollups"));
+
+        return Map.of(
+            "from", fromDay,
+            "to", toDay,
+            "deleted", deleted,
+            "inserted", inserted
+        );
+    }
+
+    private void createMissingRows(LocalDate day, SortedMap<String, SuiteTotals> totalsBySuite) {
+        for (String suiteName : totalsBySuite.keySet()) {
+            if (metricsDailyRollupRepository.findByDayAndSuiteName(day, suiteName).isEmpty()) {
+                metricsDailyRollupRepository.saveAndFlush(new MetricsDailyRollup(day, suiteName));
+            }
+        }
+    }
+
+    private static LocalDate dayOf(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toLocalDate() : null;
+    }
+}
@@ -1,163 +1,378 @@
 package com.rnd.testinghub.application;
 
-import com.rnd.testinghub.adapters.persistence.ApiEndpointRepository;
-import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository.Table;
+import com.rnd.testinghub.adapters.persistence.DailyRunTotals;
+import com.rnd.testinghub.adapters.persistence.HourlyRunTotals;
+import com.rnd.testinghub.adapters.persistence.MetricsDailyRollupRepository;
+import com.rnd.testinghub.adapters.persistence.RunTotals;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
 import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
-import com.rnd.testinghub.domain.TestCaseRun;
-import com.rnd.testinghub.domain.TestSuiteRun;
+import com.rnd.testinghub.domain.TestIdentity;
+import com.rnd.testinghub.infrastructure.CaseRunColumns;
+import com.rnd.testinghub.infrastructure.SuiteTestStats;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 public class MetricsService {
 
-    private final TestSuiteRunRepository testSuiteRunRepository;
-    private final TestCaseRunRepository testCaseRunRepository;
-    private final ApiEndpointRepository apiEndpointRepository;
+    private static final int MAX_TREND_BUCKETS = 10_000;
+    private static final long DEFAULT_PERIOD_DAYS = 30;
 
-    public MetricsService(TestSuiteRunRepository testSuiteRunRepository,
-                          TestCaseRunRepository testCaseRunRepository,
-                          ApiEndpointRepository apiEndpointRepository) {
+    private final MetricsDailyRollupRepository metricsDailyRollupRepository;
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final DailyBlobRepository dailyBlobRepository;
+    private final FlakyTestService flakyTestService;
+    private final ApiCoverageService apiCoverageService;
+    private final MetricsCache metricsCache;
+    private final HotWindowService hotWindowService;
+    private final TestIdentityRepository testIdentityRepository;
+
+    public MetricsService(MetricsDailyRollupRepository metricsDailyRollupRepository,
+                          TestSuiteRunRepository testSuiteRunRepository,
+                          DailyBlobRepository dailyBlobRepository,
+                          FlakyTestService flakyTestService,
+                          ApiCoverageService apiCoverageService,
+                          MetricsCache metricsCache,
+                          HotWindowService hotWindowService,
+                          TestIdentityRepository testIdentityRepository) {
+        this.metricsDailyRollupRepository = metricsDailyRollupRepository;
         this.testSuiteRunRepository = testSuiteRunRepository;
-        this.testCaseRunRepository = testCaseRunRepository;
-        this.apiEndpointRepository = apiEndpointRepository;
+        this.dailyBlobRepository = dailyBlobRepository;
+        this.flakyTestService = flakyTestService;
+        this.apiCoverageService = apiCoverageService;
+        this.metricsCache = metricsCache;
+        this.hotWindowService = hotWindowService;
+        this.testIdentityRepository = testIdentityRepository;
     }
 
     public Map<String, Object> calculateSummaryMetrics(int daysWindow) {
-        LocalDateTime from = LocalDateTime.now().minusDays(daysWindow);
-        LocalDateTime to = LocalDateTime.now();
+        return metricsCache.get("summary:" + daysWindow, () -> computeSummaryMetrics(daysWindow));
+    }
 
-        List<TestSuiteRun> suites = testSuiteRunRepository.findByTimestampBetween(from, to);
+    private Map<String, Object> computeSummaryMetrics(int daysWindow) {
+        // Whole days from the rollups: today and the daysWindow days before it
+        LocalDate today = LocalDate.now();
+        RunTotals totals = metricsDailyRollupRepository.sumBetween(today.minusDays(daysWindow), today);
 
-        double passRate = calculatePassRate(suites);
-        double failureRate = calculateFailureRate(suites);
+        double passRate = calculatePassRate(totals);
+        double failureRate = calculateFailureRate(totals);
         double flakyRate = calculateFlakyRate();
+        long suiteRuns = totals.suiteRuns();
 
+        // Window totals can pass 2^31 runs, so they are reported as long
         return Map.of(
             "window_days", daysWindow,
             "pass_rate", String.format("%.2f%%", passRate * 100),
             "failure_rate", String.format("%.2f%%", failureRate * 100),
             "flaky_rate", String.format("%.2f%%", flakyRate * 100),
-            "total_test_runs", suites.size(),
-            "total_run_suites", suites.size(),
-            "total_tests_executed", suites.stream().mapToInt(TestSuiteRun::getTotalTests).sum(),
-            "total_passed", suites.stream().mapToInt(TestSuiteRun::getPassedTests).sum(),
-            "total_failed", suites.stream().mapToInt(TestSuiteRun::getFailedTests).sum(),
+            "total_test_runs", suiteRuns,
+            "total_run_suites", suiteRuns,
+            "total_tests_executed", totals.totalTests(),
+            "total_passed", totals.passedTests(),
+            "total_failed", totals.failedTests(),
             "timestamp", LocalDateTime.now()
         );
     }
 
-    public double calculatePassRate(List<TestSuiteRun> suites) {
-        if (suites.isEmpty()) return 0.0;
+    public double calculatePassRate(RunTotals totals) {
+        return totals.totalTests() == 0 ? 0.0 : (double) totals.passedTests() / totals.totalTests();
+    }
 
-        int totalTests = suites.stream().mapToInt(TestSuiteRun::getTotalTests).sum();
-        int passedTests = suites.stream().mapToInt(TestSuiteRun::getPassedTests).sum();
+    public double calculateFailureRate(RunTotals totals) {
+        return totals.totalTests() == 0 ? 0.0 : (double) totals.failedTests() / totals.totalTests();
+    }
 
-        return totalTests == 0 ? 0.0 : (double) passedTests / totalTests;
+    public double calculateFlakyRate() {
+        // A test is flaky if it both passed and failed within its recent runs
+        return flakyTestService.calculateFlakyRate();
     }
 
-    public double calculateFailureRate(List<TestSuiteRun> suites) {
-        if (suites.isEmpty()) return 0.0;
+    public Map<String, Object> calculateApiCoverage(Long specId) {
+        return metricsCache.get("api-coverage:" + specId, () -> apiCoverageService.calculateApiCoverage(specId));
+    }
 
-        int totalTests = suites.stream().mapToInt(TestSuiteRun::getTotalTests).sum();
-        int failedTests = suites.stream().mapToInt(TestSuiteRun::getFailedTests).sum();
+    /**
+     * A series of {@code metric} over the last {@code period} ({@code <n>d}), one value per day.
+     */
+    public Map<String, Object> getTestTrends(String metric, String period) {
+        return getTestTrends(metric, period, null, null, "day");
+    }
 
-        return totalTests == 0 ? 0.0 : (double) failedTests / totalTests;
+    /**
+     * A time-ordered series of {@code metric} from {@code from} to {@code to}, inclusive, in
+     * {@code hour}, {@code day} or {@code week} buckets. Every bucket of the window is present:
+     * counts of empty buckets are 0, rates and means null. Without {@code from}, the window is
+     * the {@code period} ({@code <n>d}, otherwise 30 days) before {@code to}, which defaults to today.
+     */
+    public Map<String, Object> getTestTrends(String metric, String period, LocalDate from, LocalDate to, String bucket) {
+        TrendMetric trendMetric = TrendMetric.of(metric);
+        Granularity granularity = Granularity.of(bucket);
+        LocalDate toDay = to != null ? to : LocalDate.now();
+        LocalDate fromDay = from != null ? from : toDay.minusDays(parsePeriodDays(period));
+        if (toDay.isBefore(fromDay)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (trendMetric == TrendMetric.FLAKY_RATE && granularity == Granularity.HOUR) {
+            throw new IllegalArgumentException("flakyRate is kept per day; use day or week buckets");
+        }
+        long buckets = granularity.unit.between(granularity.startOf(fromDay.atStartOfDay()), toDay.plusDays(1).atStartOfDay());
+        if (buckets > MAX_TREND_BUCKETS) {
+            throw new IllegalArgumentException("Too many buckets (" + buckets + "); use a coarser bucket or a shorter window");
+        }
+        return metricsCache.get("trends:" + metric + ":" + granularity.name + ":" + fromDay + ":" + toDay + ":" + period,
+            () -> computeTestTrends(trendMetric, period, granularity, fromDay, toDay));
     }
 
-    public double calculateFlakyRate() {
-        // MVP heuristic: A test is flaky if it appears as failed in one run and passed in another
-        // Get all test case runs
-        List<TestCaseRun> allRuns = testCaseRunRepository.findAll();
-
-        if (allRuns.isEmpty()) return 0.0;
-
-        // Group by test name
-        Map<String, List<TestCaseRun>> runsByTest = allRuns.stream()
-            .collect(Collectors.groupingBy(TestCaseRun::getTestName));
-
-        int flakyTests = 0;
-        for (List<TestCaseRun> runs : runsByTest.values()) {
-            if (runs.size() > 1) {
-                List<String> statuses = runs.stream()
-                    .map(TestCaseRun::getStatus)
-                    .distinct()
-                    .collect(Collectors.toList());
-
-                // Flaky if it has both passed and failed statuses
-                if (statuses.contains("passed") && statuses.contains("failed")) {
-                    flakyTests++;
+    /**
+     * Totals of the test case runs of the last {@code hours} hours, to the minute, and the
+     * {@code limit} tests that failed most often in them. Summed over the runs held in memory
+     * by {@link HotWindowService} rather than the day rollups, so it is not cached.
+     */
+    public Map<String, Object> getRecentWindow(int hours, int limit) {
+        if (hours < 1 || limit < 1) {
+            throw new IllegalArgumentException("hours and limit must be positive");
+        }
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusHours(hours);
+        long started = System.nanoTime();
+        HotWindowService.Window window = hotWindowService.aggregate(from, to);
+        long scanMicros = (System.nanoTime() - started) / 1000;
+        CaseRunColumns.WindowTotals totals = window.totals();
+        int[] testIds = window.testIds();
+        int[] runs = window.runs();
+        int[] failures = window.failures();
+
+        // Bounded min-heap of the most failing tests' indexes, fewest failures (then highest ID) on top
+        PriorityQueue<Integer> mostFailing = new PriorityQueue<>(limit + 1,
+            Comparator.<Integer>comparingInt(index -> failures[index])
+                .thenComparing(index -> testIds[index], Comparator.reverseOrder()));
+        int tests = 0;
+        for (int index = 0; index < testIds.length; index++) {
+            if (runs[index] > 0) {
+                tests++;
+            }
+            if (failures[index] > 0) {
+                mostFailing.add(index);
+                if (mostFailing.size() > limit) {
+                    mostFailing.poll();
                 }
             }
         }
+        List<Integer> top = new ArrayList<>(mostFailing);
+        top.sort(mostFailing.comparator().reversed());
+        Map<Integer, String> names = new HashMap<>();
+        for (TestIdentity identity : testIdentityRepository.findAllById(top.stream().map(index -> testIds[index]).toList())) {
+            names.put(identity.getId(), identity.getTestName());
+        }
+        List<Map<String, Object>> failing = new ArrayList<>();
+        for (int index : top) {
+            Map<String, Object> test = new LinkedHashMap<>();
+            test.put("testName", names.get(testIds[index]));
+            test.put("failures", failures[index]);
+            test.put("runs", runs[index]);
+            test.put("failureRate", (double) failures[index] / runs[index]);
+            failing.add(test);
+        }
 
-        return runsByTest.isEmpty() ? 0.0 : (double) flakyTests / runsByTest.size();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("runs", totals.runs);
+        result.put("passed", totals.passed);
+        result.put("failed", totals.failed);
+        result.put("skipped", totals.skipped);
+        result.put("passRate", totals.runs == 0 ? null : (double) totals.passed / totals.runs);
+        result.put("meanDurationMs", totals.runs == 0 ? null : (double) totals.durationMs / totals.runs);
+        result.put("tests", tests);
+        result.put("most_failing", failing);
+        result.put("scanned_rows", totals.scannedRows);
+        result.put("scan_micros", scanMicros);
+        return result;
     }
 
-    public Map<String, Object> calculateApiCoverage(Long specId) {
-        // MVP coverage: endpoints tested if test name contains "METHOD path" pattern
-        List<String> endpoints = apiEndpointRepository.findByApiSpecId(specId)
-            .stream()
-            .map(e -> e.getMethod() + " " + e.getPath())
-            .collect(Collectors.toList());
-
-        List<TestCaseRun> allTests = testCaseRunRepository.findAll();
+    public Map<String, Object> getCacheStats() {
+        return metricsCache.getStats();
+    }
 
-        int testedEndpoints = 0;
-        for (String endpoint : endpoints) {
-            boolean isTestedby = allTests.stream()
-                .anyMatch(t -> t.getTestName().contains(endpoint));
+    private Map<String, Object> computeTestTrends(TrendMetric metric, String period, Granularity granularity,
+                                                  LocalDate from, LocalDate to) {
+        // Gap-filled: one entry per bucket of the window, in time order
+        SortedMap<LocalDateTime, BucketTotals> totalsByBucket = new TreeMap<>();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        for (LocalDateTime bucket = granularity.startOf(from.atStartOfDay()); bucket.isBefore(end); bucket = bucket.plus(1, granularity.unit)) {
+            totalsByBucket.put(bucket, new BucketTotals());
+        }
 
-            if (isTestedby) {
-                testedEndpoints++;
+        if (metric == TrendMetric.FLAKY_RATE) {
+            addFlakyCounts(granularity, from, to, totalsByBucket);
+        } else if (granularity == Granularity.HOUR) {
+            // Hours are finer than the rollups, so these come from the suite runs themselves
+            for (HourlyRunTotals hour : testSuiteRunRepository.sumByHourBetween(from.atStartOfDay(), end)) {
+                totalsByBucket.get(hour.start()).add(hour.suiteRuns(), hour.totalTests(), hour.passedTests(),
+                    hour.failedTests(), hour.durationMs());
+            }
+        } else {
+            for (DailyRunTotals day : metricsDailyRollupRepository.sumByDayBetween(from, to)) {
+                totalsByBucket.get(granularity.startOf(day.day().atStartOfDay())).add(day.suiteRuns(), day.totalTests(),
+                    day.passedTests(), day.failedTests(), day.durationMs());
             }
         }
 
-        double coverage = endpoints.isEmpty() ? 0.0 : (double) testedEndpoints / endpoints.size();
+        Map<String, Object> trend = new LinkedHashMap<>();
+        totalsByBucket.forEach((bucket, totals) -> trend.put(granularity.label(bucket), metric.value.apply(totals)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("metric", metric.name);
+        result.put("period", period);
+        result.put("bucket", granularity.name);
+        result.put("from", from);
+        result.put("to", to);
+        result.put("trend", trend);
+        result.put("data_points", trend.size());
+        return result;
+    }
 
-        return Map.of(
-            "spec_id", specId,
-            "total_endpoints", endpoints.size(),
-            "tested_endpoints", testedEndpoints,
-            "coverage", String.format("%.2f%%", coverage * 100),
-            "coverage_decimal", coverage
-        );
+    /**
+     * Counts, per bucket, the tests that ran and those that both failed and did not fail in it,
+     * from the per-test daily counters. Days arrive in order, so only one bucket's tests are
+     * held at a time.
+     */
+    private void addFlakyCounts(Granularity granularity, LocalDate from, LocalDate to,
+                                SortedMap<LocalDateTime, BucketTotals> totalsByBucket) {
+        Map<Integer, long[]> runsAndFailures = new HashMap<>();
+        LocalDateTime[] current = new LocalDateTime[1];
+        dailyBlobRepository.forEachDayBetween(Table.TEST_DAILY_STATS, from, to, (day, bytes) -> {
+            LocalDateTime bucket = granularity.startOf(day.atStartOfDay());
+            if (!bucket.equals(current[0])) {
+                countFlaky(runsAndFailures, current[0], totalsByBucket);
+                runsAndFailures.clear();
+                current[0] = bucket;
+            }
+            SuiteTestStats.forEach(bytes, (testIdentityId, runs, failures, totalMs, maxMs) -> {
+                long[] counts = runsAndFailures.computeIfAbsent(testIdentityId, id -> new long[2]);
+                counts[0] += runs;
+                counts[1] += failures;
+            });
+        });
+        countFlaky(runsAndFailures, current[0], totalsByBucket);
     }
 
-    public Map<String, Object> getTestTrends(String metric, String period) {
-        // MVP: return data for period (7d, 30d, 90d)
-        int daysWindow = 30;
-        if ("7d".equals(period)) daysWindow = 7;
-        else if ("90d".equals(period)) daysWindow = 90;
+    private static void countFlaky(Map<Integer, long[]> runsAndFailures, LocalDateTime bucket,
+                                   SortedMap<LocalDateTime, BucketTotals> totalsByBucket) {
+        if (bucket == null) {
+            return;
+        }
+        BucketTotals totals = totalsByBucket.get(bucket);
+        totals.testsRun = runsAndFailures.size();
+        totals.flakyTests = runsAndFailures.values().stream().filter(counts -> counts[1] > 0 && counts[1] < counts[0]).count();
+    }
 
-        LocalDateTime from = LocalDateTime.now().minusDays(daysWindow);
-        LocalDateTime to = LocalDateTime.now();
-        List<TestSuiteRun> suites = testSuiteRunRepository.findByTimestampBetween(from, to);
+    /**
+     * Days of a {@code <n>d} period; anything else means {@value #DEFAULT_PERIOD_DAYS} days, as
+     * it always has.
+     */
+    private static long parsePeriodDays(String period) {
+        if (period == null || !period.matches("\\d{1,5}d")) {
+            return DEFAULT_PERIOD_DAYS;
+        }
+        return Long.parseLong(period.substring(0, period.length() - 1));
+    }
+
+    /**
+     * Width of a trend bucket. Weeks start on Monday.
+     */
+    private enum Granularity {
+        HOUR("hour", ChronoUnit.HOURS),
+        DAY("day", ChronoUnit.DAYS),
+        WEEK("week", ChronoUnit.WEEKS);
 
-        Map<String, Double> trend = new HashMap<>();
+        private final String name;
+        private final ChronoUnit unit;
 
-        // Group by date and calculate metric for each day
-        Map<String, List<TestSuiteRun>> byDate = suites.stream()
-            .collect(Collectors.groupingBy(s -> s.getTimestamp().toLocalDate().toString()));
+        Granularity(String name, ChronoUnit unit) {
+            this.name = name;
+            this.unit = unit;
+        }
 
-        for (Map.Entry<String, List<TestSuiteRun>> entry : byDate.entrySet()) {
-            double value = 0.0;
-            if ("passRate".equals(metric)) {
-                value = calculatePassRate(entry.getValue());
-            } else if ("failureRate".equals(metric)) {
-                value = calculateFailureRate(entry.getValue());
+        static Granularity of(String name) {
+            for (Granularity granularity : values()) {
+                if (granularity.name.equals(name)) {
+                    return granularity;
+                }
             }
-            trend.put(entry.getKey(), value);
+            throw new IllegalArgumentException("Unknown bucket: " + name + " (use hour, day or week)");
         }
 
-        return Map.of(
-            "metric", metric,
-            "period", period,
-            "trend", trend,
-            "data_points", trend.size()
-        );
+        LocalDateTime startOf(LocalDateTime timestamp) {
+            return switch (this) {
+                case HOUR -> timestamp.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> timestamp.toLocalDate().atStartOfDay();
+                case WEEK -> timestamp.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            };
+        }
+
+        String label(LocalDateTime bucket) {
+            return this == HOUR ? bucket.toString() : bucket.toLocalDate().toString();
+        }
+    }
+
+    /**
+     * A trend metric and how it is read off a bucket's totals.
+     */
+    private enum TrendMetric {
+        PASS_RATE("passRate", totals -> totals.totalTests == 0 ? null : (double) totals.passedTests / totals.totalTests),
+        FAILURE_RATE("failureRate", totals -> totals.totalTests == 0 ? null : (double) totals.failedTests / totals.totalTests),
+        FLAKY_RATE("flakyRate", totals -> totals.testsRun == 0 ? null : (double) totals.flakyTests / totals.testsRun),
+        TEST_COUNT("testCount", totals -> totals.totalTests),
+        SUITE_RUNS("suiteRuns", totals -> totals.suiteRuns),
+        MEAN_DURATION("meanDurationMs", totals -> totals.suiteRuns == 0 ? null : (double) totals.durationMs / totals.suiteRuns);
+
+        private final String name;
+        private final Function<BucketTotals, Object> value;
+
+        TrendMetric(String name, Function<BucketTotals, Object> value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        static TrendMetric of(String name) {
+            for (TrendMetric metric : values()) {
+                if (metric.name.equals(name)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown metric: " + name
+                + " (use passRate, failureRate, flakyRate, testCount, suiteRuns or meanDurationMs)");
+        }
+    }
+
+    /**
+     * Counters summed over one trend bucket.
+     */
+    private static class BucketTotals {
+        long suiteRuns;
+        long totalTests;
+        long passedTests;
+        long failedTests;
+        long durationMs;
+        long testsRun;
+        long flakyTests;
+
+        void add(long suiteRuns, long totalTests, long passedTests, long failedTests, long durationMs) {
+            this.suiteRuns += suiteRuns;
+            this.totalTests += totalTests;
+            this.passedTests += passedTests;
+            this.failedTests += failedTests;
+            this.durationMs += durationMs;
+        }
     }
 }
@@ -0,0 +1,226 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.MetricsDailyRollupRepository;
+import com.rnd.testinghub.adapters.persistence.RunTotals;
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.domain.TestSuiteRun;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes what each committed upload changed to every subscriber of the live metrics stream:
+ * the new suite results, today's pass rate and the tests that just became flaky. The delta is
+ * computed once per upload and fanned out; idle subscribers hold no thread, and sends run on
+ * virtual threads. A subscriber still busy with an earlier send gets the pending deltas merged
+ * into one, so a slow client never builds up a backlog.
+ */
+@Service
+public class MetricsStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsStreamService.class);
+
+    // Suites kept in one merged delta; older ones are only counted
+    private static final int MAX_SUITES = 100;
+
+    /**
+     * Where one subscriber's events go, e.g. an SSE connection.
+     */
+    public interface Sink {
+        void send(Map<String, Object> delta) throws IOException;
+
+        void ping() throws IOException;
+    }
+
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final MetricsDailyRollupRepository metricsDailyRollupRepository;
+    private final MetricsService metricsService;
+    private final int maxSubscribers;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MetricsStreamService(TestSuiteRunRepository testSuiteRunRepository,
+                                MetricsDailyRollupRepository metricsDailyRollupRepository,
+                                MetricsService metricsService,
+                                @Value("${metrics.stream.max-subscribers:10000}") int maxSubscribers) {
+        if (maxSubscribers < 1) {
+            throw new IllegalArgumentException("metrics.stream.max-subscribers must be positive");
+        }
+        this.testSuiteRunRepository = testSuiteRunRepository;
+        this.metricsDailyRollupRepository = metricsDailyRollupRepository;
+        this.metricsService = metricsService;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Starts sending deltas to {@code sink}; run the returned action once it is closed.
+     */
+    public Runnable subscribe(Sink sink) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many live metrics subscribers (" + maxSubscribers + ")");
+        }
+        Subscriber subscriber = new Subscriber(sink);
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener
+    public void onSuiteRunsCommitted(SuiteRunsCommittedEvent event) {
+        if (subscribers.isEmpty() || event.suiteIds().isEmpty()) {
+            return;
+        }
+        // Off the uploading thread: the upload has committed and should not wait for this
+        senders.execute(() -> {
+            try {
+                Delta delta = deltaOf(event);
+                subscribers.forEach(subscriber -> subscriber.offer(delta));
+            } catch (RuntimeException e) {
+                log.warn("Could not compute the live metrics delta of suites {}", event.suiteIds(), e);
+            }
+        });
+    }
+
+    /**
+     * Keeps idle connections open through proxies and notices clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${metrics.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::ping);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private Delta deltaOf(SuiteRunsCommittedEvent event) {
+        List<Map<String, Object>> suites = testSuiteRunRepository.findAllById(event.suiteIds()).stream()
+            .sorted(Comparator.comparing(TestSuiteRun::getId))
+            .map(MetricsStreamService::suiteOf)
+            .toList();
+        RunTotals today = metricsDailyRollupRepository.sumBetween(LocalDate.now(), LocalDate.now());
+        return new Delta(1, suites, 0, metricsService.calculatePassRate(today), today.totalTests(),
+            new LinkedHashSet<>(event.newFlakyTests()));
+    }
+
+    private static Map<String, Object> suiteOf(TestSuiteRun run) {
+        Map<String, Object> suite = new LinkedHashMap<>();
+        suite.put("id", run.getId());
+        suite.put("suiteName", run.getSuiteName());
+        suite.put("status", run.getStatus());
+        suite.put("totalTests", run.getTotalTests());
+        suite.put("passedTests", run.getPassedTests());
+        suite.put("failedTests", run.getFailedTests());
+        suite.put("skippedTests", run.getSkippedTests());
+        suite.put("durationMs", run.getDurationMs());
+        suite.put("timestamp", run.getTimestamp());
+        return suite;
+    }
+
+    /**
+     * What one or more uploads changed. Merging keeps the newest pass rate, the union of new
+     * flaky tests and the latest {@value #MAX_SUITES} suites.
+     */
+    private record Delta(int uploads, List<Map<String, Object>> suites, int suitesDropped,
+                         double passRateToday, long testsToday, Set<String> newFlakyTests) {
+
+        Delta merge(Delta newer) {
+            List<Map<String, Object>> merged = new ArrayList<>(suites);
+            merged.addAll(newer.suites);
+            int dropped = suitesDropped + newer.suitesDropped + Math.max(0, merged.size() - MAX_SUITES);
+            Set<String> flaky = new LinkedHashSet<>(newFlakyTests);
+            flaky.addAll(newer.newFlakyTests);
+            return new Delta(uploads + newer.uploads, merged.subList(Math.max(0, merged.size() - MAX_SUITES), merged.size()),
+                dropped, newer.passRateToday, newer.testsToday, flaky);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("uploads", uploads);
+            delta.put("suites", suites);
+            delta.put("suites_dropped", suitesDropped);
+            delta.put("pass_rate_today", passRateToday);
+            delta.put("tests_today", testsToday);
+            delta.put("new_flaky_tests", newFlakyTests);
+            return delta;
+        }
+    }
+
+    /**
+     * One subscriber: at most one pending delta and at most one send in flight.
+     */
+    private class Subscriber {
+        private final Sink sink;
+        private final AtomicReference<Delta> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+
+        void offer(Delta delta) {
+            pending.accumulateAndGet(delta, (queued, newer) -> queued == null ? newer : queued.merge(newer));
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void ping() {
+            // A busy subscriber is evidently still there
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(() -> {
+                    try {
+                        sink.ping();
+                    } catch (IOException | RuntimeException e) {
+                        subscribers.remove(this);
+                    }
+                    drain();
+                });
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Delta delta = pending.getAndSet(null);
+                if (delta == null) {
+                    sending.set(false);
+                    // An offer may have come in after the check but before the flag was cleared
+                    if (pending.get() == null || !sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    sink.send(delta.toMap());
+                } catch (IOException | RuntimeException e) {
+                    subscribers.remove(this);
+                    sending.set(false);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -2,37 +2,64 @@ package com.rnd.testinghub.application;
 
 import com.rnd.testinghub.adapters.persistence.ApiEndpointRepository;
 import com.rnd.testinghub.adapters.persistence.ApiSpecRepository;
+import com.rnd.testinghub.adapters.persistence.IngestedUploadRepository;
 import com.rnd.testinghub.domain.ApiEndpoint;
 import com.rnd.testinghub.domain.ApiSpec;
+import com.rnd.testinghub.domain.IngestedUpload;
+import com.rnd.testinghub.infrastructure.ContentDigest;
 import com.rnd.testinghub.infrastructure.parser.OpenApiParser;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class OpenApiIngestionService {
 
+    private static final String UPLOAD_KIND = "openapi";
+
     private final ApiSpecRepository apiSpecRepository;
     private final ApiEndpointRepository apiEndpointRepository;
+    private final IngestedUploadRepository ingestedUploadRepository;
     private final OpenApiParser openApiParser;
+    private final ApplicationEventPublisher eventPublisher;
 
     public OpenApiIngestionService(ApiSpecRepository apiSpecRepository,
                                    ApiEndpointRepository apiEndpointRepository,
-                                   OpenApiParser openApiParser) {
+                                   IngestedUploadRepository ingestedUploadRepository,
+                                   OpenApiParser openApiParser,
+                                   ApplicationEventPublisher eventPublisher) {
         this.apiSpecRepository = apiSpecRepository;
         this.apiEndpointRepository = apiEndpointRepository;
+        this.ingestedUploadRepository = ingestedUploadRepository;
         this.openApiParser = openApiParser;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Parses and stores the spec. A spec with the same content as an earlier upload is not
+     * parsed again; the ID of the spec stored by that upload is returned instead.
+     */
     @Transactional
     public Long ingestOpenApiSpec(String specContent, String specFormat) throws Exception {
+        String contentDigest = ContentDigest.sha256(specContent.getBytes(StandardCharsets.UTF_8));
+        Optional<ApiSpec> previous = ingestedUploadRepository
+            .findByUploadKindAndContentDigest(UPLOAD_KIND, contentDigest)
+            .flatMap(upload -> apiSpecRepository.findFirstByUploadSourceId(upload.getUploadSourceId()));
+        if (previous.isPresent()) {
+            return previous.get().getId();
+        }
+
         // Parse the OpenAPI spec
         OpenApiParser.ApiInfo apiInfo = openApiParser.parse(specContent);
 
-        // Generate upload source ID
+        // Generate upload source ID and claim the digest before anything else is written
         String uploadSourceId = UUID.randomUUID().toString();
+        ingestedUploadRepository.saveAndFlush(new IngestedUpload(UPLOAD_KIND, contentDigest, uploadSourceId));
 
         // Save API spec
         ApiSpec apiSpec = new ApiSpec(
@@ -56,6 +83,7 @@ public class OpenApiIngestionService {
             );
             apiEndpointRepository.save(endpoint);
         }
+        eventPublisher.publishEvent(new MetricsDataChangedEvent(UPLOAD_KIND));
 
         return apiSpec.getId();
     }
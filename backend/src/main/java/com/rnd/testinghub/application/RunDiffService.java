@@ -0,0 +1,213 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.SuiteCaseMergeRepository;
+import com.rnd.testinghub.adapters.persistence.SuiteCaseMergeRepository.CaseOutcome;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.domain.TestIdentity;
+import com.rnd.testinghub.domain.TestSuiteRun;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the test case runs of two suite runs: tests that started or stopped failing, tests
+ * only one of them ran, and tests that got much slower. Both case lists are read in test
+ * identity order and merge-joined in one pass, so memory holds only the reported tests. Suites
+ * of compacted days are not compared: their archive files hold runs in ID order, not test
+ * identity order.
+ */
+@Service
+public class RunDiffService {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final SuiteCaseMergeRepository suiteCaseMergeRepository;
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final TestIdentityRepository testIdentityRepository;
+    private final TestRunArchiveService testRunArchiveService;
+    private final double slowdownFactor;
+    private final long minIncreaseMs;
+
+    public RunDiffService(SuiteCaseMergeRepository suiteCaseMergeRepository,
+                          TestSuiteRunRepository testSuiteRunRepository,
+                          TestIdentityRepository testIdentityRepository,
+                          TestRunArchiveService testRunArchiveService,
+                          @Value("${metrics.diff.slowdown-factor:2.0}") double slowdownFactor,
+                          @Value("${metrics.diff.min-increase-ms:100}") long minIncreaseMs) {
+        if (slowdownFactor <= 1) {
+            throw new IllegalArgumentException("metrics.diff.slowdown-factor must be above 1");
+        }
+        this.suiteCaseMergeRepository = suiteCaseMergeRepository;
+        this.testSuiteRunRepository = testSuiteRunRepository;
+        this.testIdentityRepository = testIdentityRepository;
+        this.testRunArchiveService = testRunArchiveService;
+        this.slowdownFactor = slowdownFactor;
+        this.minIncreaseMs = minIncreaseMs;
+    }
+
+    /**
+     * A test reported in one section of the diff.
+     */
+    private record Change(int testIdentityId, CaseOutcome base, CaseOutcome head) {
+        long increaseMs() {
+            return head.durationMs() - base.durationMs();
+        }
+    }
+
+    /**
+     * The tests of one section: all of them counted, the first {@code limit} kept.
+     */
+    private static class Section {
+        private final int limit;
+        private final List<Change> changes = new ArrayList<>();
+        private int count;
+
+        Section(int limit) {
+            this.limit = limit;
+        }
+
+        void add(Change change) {
+            count++;
+            if (changes.size() < limit) {
+                changes.add(change);
+            }
+        }
+    }
+
+    /**
+     * The differences from suite run {@code baseId} to suite run {@code headId}; at most
+     * {@code limit} tests are listed per section, the slowest-growing ones for {@code slower}.
+     * Null if either suite run does not exist; throws {@link IllegalStateException} if either
+     * was compacted into an archive.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> diff(Long baseId, Long headId, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        TestSuiteRun base = testSuiteRunRepository.findById(baseId).orElse(null);
+        TestSuiteRun head = testSuiteRunRepository.findById(headId).orElse(null);
+        if (base == null || head == null) {
+            return null;
+        }
+        for (TestSuiteRun suite : List.of(base, head)) {
+            if (testRunArchiveService.isArchived(suite)) {
+                throw new IllegalStateException("Suite run " + suite.getId() + " was archived and cannot be compared");
+            }
+        }
+
+        Section newlyFailing = new Section(limit);
+        Section newlyPassing = new Section(limit);
+        Section added = new Section(limit);
+        Section removed = new Section(limit);
+        int[] slowerCount = new int[1];
+        int[] unchanged = new int[1];
+        // Keep only the largest slowdowns while walking both suites
+        Comparator<Change> byIncrease = Comparator.comparingLong(Change::increaseMs)
+            .thenComparing(Change::testIdentityId, Comparator.reverseOrder());
+        PriorityQueue<Change> slower = new PriorityQueue<>(byIncrease);
+
+        suiteCaseMergeRepository.mergeJoin(baseId, headId, (testIdentityId, baseOutcome, headOutcome) -> {
+            Change change = new Change(testIdentityId, baseOutcome, headOutcome);
+            if (baseOutcome == null) {
+                added.add(change);
+            } else if (headOutcome == null) {
+                removed.add(change);
+            } else if (isFailed(headOutcome) && !isFailed(baseOutcome)) {
+                newlyFailing.add(change);
+            } else if (isFailed(baseOutcome) && "passed".equals(headOutcome.status())) {
+                newlyPassing.add(change);
+            } else if (isSlower(baseOutcome, headOutcome)) {
+                slowerCount[0]++;
+                slower.add(change);
+                if (slower.size() > limit) {
+                    slower.poll();
+                }
+            } else {
+                unchanged[0]++;
+            }
+        });
+
+        List<Change> slowest = new ArrayList<>(slower);
+        slowest.sort(byIncrease.reversed());
+
+        Set<Integer> reportedIds = new HashSet<>();
+        for (List<Change> changes : List.of(newlyFailing.changes, newlyPassing.changes, added.changes, removed.changes, slowest)) {
+            changes.forEach(change -> reportedIds.add(change.testIdentityId()));
+        }
+        Map<Integer, String> names = testIdentityRepository.findAllById(reportedIds).stream()
+            .collect(Collectors.toMap(TestIdentity::getId, TestIdentity::getTestName));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("newly_failing", newlyFailing.count);
+        summary.put("newly_passing", newlyPassing.count);
+        summary.put("added", added.count);
+        summary.put("removed", removed.count);
+        summary.put("slower", slowerCount[0]);
+        summary.put("unchanged", unchanged[0]);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("base", suiteOf(base));
+        result.put("head", suiteOf(head));
+        result.put("summary", summary);
+        result.put("newly_failing", describe(newlyFailing.changes, names, change -> Map.of(
+            "baseStatus", change.base().status(),
+            "durationMs", change.head().durationMs())));
+        result.put("newly_passing", describe(newlyPassing.changes, names, change -> Map.of(
+            "durationMs", change.head().durationMs())));
+        result.put("added", describe(added.changes, names, change -> Map.of(
+            "status", change.head().status(),
+            "durationMs", change.head().durationMs())));
+        result.put("removed", describe(removed.changes, names, change -> Map.of(
+            "status", change.base().status())));
+        result.put("slower", describe(slowest, names, change -> Map.of(
+            "baseDurationMs", change.base().durationMs(),
+            "headDurationMs", change.head().durationMs(),
+            "increaseMs", change.increaseMs())));
+        return result;
+    }
+
+    private boolean isSlower(CaseOutcome base, CaseOutcome head) {
+        // Skipped runs take no time worth comparing
+        if ("skipped".equals(base.status()) || "skipped".equals(head.status())) {
+            return false;
+        }
+        long increase = head.durationMs() - base.durationMs();
+        return increase >= minIncreaseMs && head.durationMs() >= base.durationMs() * slowdownFactor;
+    }
+
+    private static boolean isFailed(CaseOutcome outcome) {
+        return "failed".equals(outcome.status());
+    }
+
+    private static Map<String, Object> suiteOf(TestSuiteRun suite) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("id", suite.getId());
+        described.put("suiteName", suite.getSuiteName());
+        described.put("timestamp", suite.getTimestamp());
+        described.put("totalTests", suite.getTotalTests());
+        return described;
+    }
+
+    private static List<Map<String, Object>> describe(List<Change> changes, Map<Integer, String> names,
+                                                      Function<Change, Map<String, Object>> details) {
+        return changes.stream().map(change -> {
+            Map<String, Object> described = new LinkedHashMap<>();
+            described.put("testName", names.get(change.testIdentityId()));
+            described.putAll(details.apply(change));
+            return described;
+        }).toList();
+    }
+}
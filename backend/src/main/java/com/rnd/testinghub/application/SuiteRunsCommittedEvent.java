@@ -0,0 +1,11 @@
+package com.rnd.testinghub.application;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published with the suite runs an upload wrote and the names of the tests its outcomes made
+ * flaky; listeners run after the upload commits.
+ */
+public record SuiteRunsCommittedEvent(List<Long> suiteIds, Set<String> newFlakyTests) {
+}
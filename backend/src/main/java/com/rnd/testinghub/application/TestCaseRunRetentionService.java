@@ -0,0 +1,122 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.TestCaseRunPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the monthly partitions of test_case_run ahead of time and removes raw runs older than
+ * the retention period. Where test_case_run is partitioned (PostgreSQL), expired months are
+ * dropped whole; elsewhere, and for suite runs, rows are deleted in small batches. Archive files
+ * of compacted days before the cutoff are deleted with them. Aggregates such as the daily rollups, counters and sketches are kept.
+ */
+@Service
+public class TestCaseRunRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TestCaseRunRetentionService.class);
+    private static final int DELETE_BATCH = 500;
+
+    private final TestCaseRunPartitionRepository partitionRepository;
+    private final TestRunArchiveService testRunArchiveService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int retentionMonths;
+    private final int partitionsAhead;
+
+    public TestCaseRunRetentionService(TestCaseRunPartitionRepository partitionRepository,
+                                       TestRunArchiveService testRunArchiveService,
+                                       PlatformTransactionManager transactionManager,
+                                       ApplicationEventPublisher eventPublisher,
+                                       @Value("${ingestion.retention.months:0}") int retentionMonths,
+                                       @Value("${ingestion.retention.partitions-ahead:3}") int partitionsAhead) {
+        if (retentionMonths < 0) {
+            throw new IllegalArgumentException("ingestion.retention.months must not be negative");
+        }
+        // test_case_run has no default partition, so next month must exist before it starts
+        if (partitionsAhead < 1) {
+            throw new IllegalArgumentException("ingestion.retention.partitions-ahead must be at least 1");
+        }
+        this.partitionRepository = partitionRepository;
+        this.testRunArchiveService = testRunArchiveService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.retentionMonths = retentionMonths;
+        this.partitionsAhead = partitionsAhead;
+    }
+
+    /**
+     * Creates the coming partitions and applies retention; runs on startup and then daily.
+     */
+    @Scheduled(cron = "${ingestion.retention.cron:0 30 3 * * *}")
+    public void maintain() {
+        boolean partitioned = partitionRepository.isPartitioned();
+        if (partitioned) {
+            createPartitions(YearMonth.now());
+        }
+        if (retentionMonths > 0) {
+            Map<String, Object> removed = removeBefore(YearMonth.now().minusMonths(retentionMonths), partitioned);
+            log.info("Test case run retention: {}", removed);
+        }
+    }
+
+    /**
+     * Removes every suite and test case run from before the start of {@code cutoff}.
+     */
+    public Map<String, Object> removeBefore(YearMonth cutoff) {
+        return removeBefore(cutoff, partitionRepository.isPartitioned());
+    }
+
+    private void createPartitions(YearMonth current) {
+        for (int ahead = 0; ahead <= partitionsAhead; ahead++) {
+            YearMonth month = current.plusMonths(ahead);
+            transactionTemplate.executeWithoutResult(status -> partitionRepository.createPartition(month));
+        }
+    }
+
+    private Map<String, Object> removeBefore(YearMonth cutoff, boolean partitioned) {
+        int partitionsDropped = 0;
+        if (partitioned) {
+            for (YearMonth month : partitionRepository.findPartitionMonths()) {
+                if (!month.isBefore(cutoff)) {
+                    break;
+                }
+                // Detaching concurrently takes transactions of its own
+                partitionRepository.dropPartition(month);
+                partitionsDropped++;
+            }
+        }
+
+        // With the partitions gone, only suite runs (and stray default-partition rows) are left
+        LocalDateTime before = cutoff.atDay(1).atStartOfDay();
+        int suiteRunsDeleted = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> partitionRepository.deleteSuiteRunsBefore(before, DELETE_BATCH));
+            if (deleted == null || deleted == 0) {
+                break;
+            }
+            suiteRunsDeleted += deleted;
+        }
+        int archivesDeleted = testRunArchiveService.removeBefore(cutoff.atDay(1));
+        if (partitionsDropped > 0 || suiteRunsDeleted > 0 || archivesDeleted > 0) {
+            eventPublisher.publishEvent(new MetricsDataChangedEvent("retention"));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("before", before);
+        result.put("partitions_dropped", partitionsDropped);
+        result.put("suite_runs_deleted", suiteRunsDeleted);
+        result.put("archives_deleted", archivesDeleted);
+        return result;
+    }
+}
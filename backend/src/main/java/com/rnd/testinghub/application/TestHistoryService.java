@@ -0,0 +1,113 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.RecentRun;
+import com.rnd.testinghub.adapters.persistence.RecentRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.domain.TestIdentity;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The latest runs of many tests at once, for sparklines. Each test's history is encoded
+ * compactly: one status letter per run and the matching durations, newest first.
+ */
+@Service
+public class TestHistoryService {
+
+    private static final int MAX_TESTS = 1000;
+    private static final int MAX_RUNS = 500;
+    private static final int QUERY_CHUNK = 500;
+
+    private final TestIdentityRepository testIdentityRepository;
+    private final RecentRunRepository recentRunRepository;
+
+    public TestHistoryService(TestIdentityRepository testIdentityRepository,
+                              RecentRunRepository recentRunRepository) {
+        this.testIdentityRepository = testIdentityRepository;
+        this.recentRunRepository = recentRunRepository;
+    }
+
+    /**
+     * Up to {@code limit} of the latest runs of each named test. {@code statuses} holds a
+     * letter per run ({@code P}assed, {@code F}ailed, {@code S}kipped, {@code ?} otherwise),
+     * {@code durations_ms} the durations in the same order. Names without runs are listed
+     * under {@code unknown_tests}.
+     */
+    public Map<String, Object> getRecentRuns(List<String> testNames, int limit) {
+        if (testNames == null || testNames.isEmpty()) {
+            throw new IllegalArgumentException("testNames must not be empty");
+        }
+        if (testNames.size() > MAX_TESTS) {
+            throw new IllegalArgumentException("At most " + MAX_TESTS + " tests per request");
+        }
+        if (limit < 1 || limit > MAX_RUNS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_RUNS);
+        }
+
+        Set<String> names = new LinkedHashSet<>(testNames);
+        Map<Integer, String> namesById = new HashMap<>();
+        for (TestIdentity identity : testIdentityRepository.findByTestNameIn(names)) {
+            namesById.put(identity.getId(), identity.getTestName());
+        }
+
+        Map<String, Map<String, Object>> histories = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(namesById.keySet());
+        for (int start = 0; start < ids.size(); start += QUERY_CHUNK) {
+            List<RecentRun> runs = recentRunRepository.findRecent(ids.subList(start, Math.min(start + QUERY_CHUNK, ids.size())), limit);
+            // Runs arrive grouped by test, newest first
+            for (int from = 0; from < runs.size(); ) {
+                int to = from;
+                while (to < runs.size() && runs.get(to).testIdentityId() == runs.get(from).testIdentityId()) {
+                    to++;
+                }
+                histories.put(namesById.get(runs.get(from).testIdentityId()), encode(runs.subList(from, to)));
+                from = to;
+            }
+        }
+
+        Map<String, Object> tests = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String name : names) {
+            Map<String, Object> history = histories.get(name);
+            if (history != null) {
+                tests.put(name, history);
+            } else {
+                unknown.add(name);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("limit", limit);
+        result.put("tests", tests);
+        result.put("unknown_tests", unknown);
+        return result;
+    }
+
+    private static Map<String, Object> encode(List<RecentRun> runs) {
+        StringBuilder statuses = new StringBuilder(runs.size());
+        long[] durations = new long[runs.size()];
+        for (int i = 0; i < runs.size(); i++) {
+            statuses.append(switch (runs.get(i).status()) {
+                case "passed" -> 'P';
+                case "failed" -> 'F';
+                case "skipped" -> 'S';
+                default -> '?';
+            });
+            durations[i] = runs.get(i).durationMs();
+        }
+
+        Map<String, Object> history = new LinkedHashMap<>();
+        history.put("runs", runs.size());
+        history.put("statuses", statuses.toString());
+        history.put("durations_ms", durations);
+        history.put("last_run", runs.get(0).timestamp());
+        return history;
+    }
+}
@@ -0,0 +1,121 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.domain.TestIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps test names to the IDs of their {@link TestIdentity} rows.
+ * Works like {@link FailureMessageStore}: an LRU cache in front of one IN query per batch,
+ * with unknown names inserted and committed in their own transaction.
+ */
+@Service
+public class TestIdentityStore {
+
+    private final TestIdentityRepository testIdentityRepository;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Integer> idsByName;
+
+    public TestIdentityStore(TestIdentityRepository testIdentityRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${ingestion.test-identity-cache-size:100000}") int cacheSize) {
+        this.testIdentityRepository = testIdentityRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.idsByName = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the test identity ID of each name, inserting identities for names not stored yet.
+     */
+    public Map<String, Integer> resolve(Collection<String> testNames) {
+        return resolve(testNames, new HashSet<>());
+    }
+
+    /**
+     * Like {@link #resolve(Collection)}, and adds the IDs of the identities inserted by this call
+     * to {@code createdIds}; nothing else can refer to those tests yet.
+     */
+    public Map<String, Integer> resolve(Collection<String> testNames, Set<Integer> createdIds) {
+        Map<String, Integer> ids = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (idsByName) {
+            for (String testName : testNames) {
+                Integer id = idsByName.get(testName);
+                if (id != null) {
+                    ids.put(testName, id);
+                } else {
+                    missing.add(testName);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        Map<String, Integer> loaded;
+        try {
+            loaded = newTransaction.execute(status -> lookUpOrInsert(missing, createdIds));
+        } catch (DataIntegrityViolationException e) {
+            // Another upload inserted one of the names first; its row is committed now
+            loaded = newTransaction.execute(status -> lookUpOrInsert(missing, createdIds));
+        }
+
+        synchronized (idsByName) {
+            idsByName.putAll(loaded);
+        }
+        ids.putAll(loaded);
+        return ids;
+    }
+
+    /**
+     * Looks up a single name without inserting it.
+     */
+    public Integer findId(String testName) {
+        synchronized (idsByName) {
+            Integer id = idsByName.get(testName);
+            if (id != null) {
+                return id;
+            }
+        }
+        return testIdentityRepository.findByTestName(testName).map(TestIdentity::getId).orElse(null);
+    }
+
+    private Map<String, Integer> lookUpOrInsert(Set<String> testNames, Set<Integer> createdIds) {
+        Map<String, Integer> ids = new HashMap<>();
+        testIdentityRepository.findByTestNameIn(testNames)
+            .forEach(identity -> ids.put(identity.getTestName(), identity.getId()));
+
+        List<TestIdentity> created = new ArrayList<>();
+        for (String testName : testNames) {
+            if (!ids.containsKey(testName)) {
+                created.add(new TestIdentity(testName));
+            }
+        }
+        testIdentityRepository.saveAllAndFlush(created).forEach(identity -> {
+            ids.put(identity.getTestName(), identity.getId());
+            createdIds.add(identity.getId());
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,217 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.CaseRunArchive;
+import com.rnd.testinghub.adapters.persistence.CaseRunView;
+import com.rnd.testinghub.adapters.persistence.CaseRunViewRepository;
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestRunArchiveRepository;
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.domain.TestRunArchive;
+import com.rnd.testinghub.domain.TestSuiteRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Compacts days of test case runs older than {@code after-days}: the day's per-test counters
+ * and duration sketches are brought up to date from its raw runs, the runs are written to an
+ * archive file, and then removed from test_case_run. Suite runs stay, and case lists of an
+ * archived suite are read back from its day's file on demand.
+ */
+@Service
+public class TestRunArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TestRunArchiveService.class);
+    private static final int DELETE_CHUNK = 50;
+
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final TestCaseRunRepository testCaseRunRepository;
+    private final CaseRunViewRepository caseRunViewRepository;
+    private final TestRunArchiveRepository testRunArchiveRepository;
+    private final CaseRunArchive caseRunArchive;
+    private final TopTestsService topTestsService;
+    private final DurationMetricsService durationMetricsService;
+    private final DistinctTestService distinctTestService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int afterDays;
+
+    public TestRunArchiveService(TestSuiteRunRepository testSuiteRunRepository,
+                                 TestCaseRunRepository testCaseRunRepository,
+                                 CaseRunViewRepository caseRunViewRepository,
+                                 TestRunArchiveRepository testRunArchiveRepository,
+                                 CaseRunArchive caseRunArchive,
+                                 TopTestsService topTestsService,
+                                 DurationMetricsService durationMetricsService,
+                                 DistinctTestService distinctTestService,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${ingestion.compaction.after-days:0}") int afterDays) {
+        if (afterDays < 0) {
+            throw new IllegalArgumentException("ingestion.compaction.after-days must not be negative");
+        }
+        this.testSuiteRunRepository = testSuiteRunRepository;
+        this.testCaseRunRepository = testCaseRunRepository;
+        this.caseRunViewRepository = caseRunViewRepository;
+        this.testRunArchiveRepository = testRunArchiveRepository;
+        this.caseRunArchive = caseRunArchive;
+        this.topTestsService = topTestsService;
+        this.durationMetricsService = durationMetricsService;
+        this.distinctTestService = distinctTestService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.afterDays = afterDays;
+    }
+
+    @Scheduled(cron = "${ingestion.compaction.cron:0 0 4 * * *}")
+    public void compact() {
+        if (afterDays > 0) {
+            log.info("Test case run compaction: {}", compactBefore(LocalDate.now().minusDays(afterDays)));
+        }
+    }
+
+    /**
+     * Compacts every day before {@code before} that is not archived yet, oldest first. Today
+     * and yesterday may still receive uploads, so {@code before} must be yesterday or earlier.
+     */
+    public Map<String, Object> compactBefore(LocalDate before) {
+        if (before.isAfter(LocalDate.now().minusDays(1))) {
+            throw new IllegalArgumentException("'before' must be yesterday or earlier");
+        }
+        LocalDate archivedThrough = testRunArchiveRepository.findLatestDay();
+        LocalDate from = archivedThrough != null
+            ? archivedThrough.plusDays(1)
+            : dayOf(testSuiteRunRepository.findEarliestTimestamp());
+        int days = 0;
+        long caseRuns = 0;
+        for (LocalDate day = from; day != null && day.isBefore(before); day = day.plusDays(1)) {
+            caseRuns += compactDay(day);
+            days++;
+        }
+        if (days > 0) {
+            eventPublisher.publishEvent(new MetricsDataChangedEvent("archive"));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("before", before);
+        result.put("days", days);
+        result.put("case_runs", caseRuns);
+        return result;
+    }
+
+    /**
+     * Deletes the archives of every day before {@code before}. A day's record goes before its
+     * file, so no suite is ever pointed at a missing file. Returns the number of days removed.
+     */
+    public int removeBefore(LocalDate before) {
+        int removed = 0;
+        for (TestRunArchive archive : testRunArchiveRepository.findByDayBefore(before)) {
+            transactionTemplate.executeWithoutResult(status -> testRunArchiveRepository.delete(archive));
+            if (archive.getFileName() != null && !caseRunArchive.delete(archive.getFileName())) {
+                log.warn("Archive file {} of {} was already gone", archive.getFileName(), archive.getDay());
+            }
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Whether the case runs of the suite run were compacted into its day's archive file.
+     */
+    public boolean isArchived(TestSuiteRun suite) {
+        return testRunArchiveRepository.findById(suite.getTimestamp().toLocalDate())
+            .map(archive -> archive.getFileName() != null)
+            .orElse(false);
+    }
+
+    /**
+     * Like {@link CaseRunViewRepository#findPage}, for a suite whose day was archived; empty if
+     * it was not.
+     */
+    public List<CaseRunView> findArchivedPage(Long suiteId, long afterId, String status, int limit) {
+        List<CaseRunView> page = new ArrayList<>();
+        forEachArchived(suiteId, run -> {
+            if (run.id() > afterId && (status == null || status.equals(run.status()))) {
+                page.add(run);
+            }
+            return page.size() < limit;
+        });
+        return page;
+    }
+
+    /**
+     * Hands every archived case run of the suite to {@code consumer}, optionally only those
+     * with {@code status}; nothing if the suite's day was not archived.
+     */
+    public void forEachArchived(Long suiteId, String status, Consumer<CaseRunView> consumer) {
+        forEachArchived(suiteId, run -> {
+            if (status == null || status.equals(run.status())) {
+                consumer.accept(run);
+            }
+            return true;
+        });
+    }
+
+    private long compactDay(LocalDate day) {
+        // The raw runs are about to go, so the day's summaries are recomputed from them first
+        topTestsService.rebuild(day, day);
+        durationMetricsService.rebuild(day, day);
+        distinctTestService.rebuild(day, day);
+
+        List<Long> suiteIds = testSuiteRunRepository.findIdsBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        if (suiteIds.isEmpty()) {
+            testRunArchiveRepository.save(new TestRunArchive(day, null, 0, 0));
+            return 0;
+        }
+        // Suites are written in ID order, each with its runs in ID order
+        long caseRuns = caseRunArchive.write(day, writer -> transactionTemplate.executeWithoutResult(status ->
+            suiteIds.forEach(suiteId -> caseRunViewRepository.forEachInSuite(suiteId, null, writer))));
+        testRunArchiveRepository.save(new TestRunArchive(day, caseRunArchive.fileName(day), suiteIds.size(), caseRuns));
+
+        // Only once the archive is recorded; an interrupted delete leaves rows that are also archived
+        for (int start = 0; start < suiteIds.size(); start += DELETE_CHUNK) {
+            List<Long> chunk = suiteIds.subList(start, Math.min(start + DELETE_CHUNK, suiteIds.size()));
+            transactionTemplate.executeWithoutResult(status -> testCaseRunRepository.deleteBySuiteRunIdIn(chunk));
+        }
+        return caseRuns;
+    }
+
+    /**
+     * Reads the suite's runs from its day's archive until {@code visitor} returns false.
+     */
+    private void forEachArchived(Long suiteId, Predicate<CaseRunView> visitor) {
+        TestSuiteRun suite = testSuiteRunRepository.findById(suiteId).orElse(null);
+        if (suite == null) {
+            return;
+        }
+        TestRunArchive archive = testRunArchiveRepository.findById(suite.getTimestamp().toLocalDate()).orElse(null);
+        if (archive == null || archive.getFileName() == null) {
+            return;
+        }
+        caseRunArchive.read(archive.getFileName(), run -> {
+            if (run.suiteRunId() < suiteId) {
+                return true;
+            }
+            // The suite's runs are contiguous, so the file is done once past them
+            return run.suiteRunId() == suiteId && visitor.test(run);
+        });
+    }
+
+    private static LocalDate dayOf(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toLocalDate() : null;
+    }
+}
@@ -0,0 +1,247 @@
+package com.rnd.testinghub.application;
+
+import com.rnd.testinghub.adapters.persistence.CaseRunStat;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository;
+import com.rnd.testinghub.adapters.persistence.DailyBlobRepository.Table;
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.adapters.persistence.TestRunArchiveRepository;
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.application.DailyBlobStore.Codec;
+import com.rnd.testinghub.domain.TestIdentity;
+import com.rnd.testinghub.infrastructure.SuiteTestStats;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Top-K tests by mean duration, failures or total time consumed. Ingestion adds every upload to
+ * per-test counters kept per suite and day ({@link SuiteTestStats}); a query streams the
+ * counters of its window, sums them per test and keeps only the current top K in a bounded heap.
+ */
+@Service
+public class TopTestsService {
+
+    private static final int DEFAULT_WINDOW_DAYS = 7;
+    private static final Codec<SuiteTestStats> STATS = new Codec<>(
+        SuiteTestStats::fromBytes, SuiteTestStats::toBytes, SuiteTestStats::merge, SuiteTestStats::new);
+
+    /**
+     * What the tests are ranked by.
+     */
+    private enum Ranking {
+        DURATION("duration", Comparator.comparingDouble(TestTotals::meanMs)),
+        FAILURES("failures", Comparator.comparingLong((TestTotals totals) -> totals.failures)),
+        TOTAL_TIME("total-time", Comparator.comparingLong((TestTotals totals) -> totals.totalMs));
+
+        private final String name;
+        private final Comparator<TestTotals> order;
+
+        Ranking(String name, Comparator<TestTotals> order) {
+            this.name = name;
+            // Ties go to the lower test ID, so results are stable
+            this.order = order.thenComparing(totals -> totals.testIdentityId, Comparator.reverseOrder());
+        }
+
+        static Ranking of(String name) {
+            for (Ranking ranking : values()) {
+                if (ranking.name.equals(name)) {
+                    return ranking;
+                }
+            }
+            throw new IllegalArgumentException("Unknown ranking: " + name + " (use duration, failures or total-time)");
+        }
+    }
+
+    /**
+     * Counters of one test summed over the window.
+     */
+    private static class TestTotals {
+        final int testIdentityId;
+        long runs;
+        long failures;
+        long totalMs;
+        long maxMs;
+
+        TestTotals(int testIdentityId) {
+            this.testIdentityId = testIdentityId;
+        }
+
+        double meanMs() {
+            return runs == 0 ? 0.0 : (double) totalMs / runs;
+        }
+    }
+
+    private final DailyBlobRepository dailyBlobRepository;
+    private final DailyBlobStore dailyBlobStore;
+    private final TestCaseRunRepository testCaseRunRepository;
+    private final TestSuiteRunRepository testSuiteRunRepository;
+    private final TestIdentityRepository testIdentityRepository;
+    private final TestRunArchiveRepository testRunArchiveRepository;
+    private final MetricsCache metricsCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TopTestsService(DailyBlobRepository dailyBlobRepository,
+                           DailyBlobStore dailyBlobStore,
+                           TestCaseRunRepository testCaseRunRepository,
+                           TestSuiteRunRepository testSuiteRunRepository,
+                           TestIdentityRepository testIdentityRepository,
+                           TestRunArchiveRepository testRunArchiveRepository,
+                           MetricsCache metricsCache,
+                           ApplicationEventPublisher eventPublisher) {
+        this.dailyBlobRepository = dailyBlobRepository;
+        this.dailyBlobStore = dailyBlobStore;
+        this.testCaseRunRepository = testCaseRunRepository;
+        this.testSuiteRunRepository = testSuiteRunRepository;
+        this.testIdentityRepository = testIdentityRepository;
+        this.testRunArchiveRepository = testRunArchiveRepository;
+        this.metricsCache = metricsCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds an upload's test runs to the counters of {@code day}, in the caller's transaction,
+     * through the {@link DailyBlobStore}.
+     */
+    @Transactional
+    public void recordRuns(LocalDate day, SortedMap<String, SuiteTestStats> statsBySuite) {
+        dailyBlobStore.merge(Table.TEST_DAILY_STATS, day, statsBySuite, STATS);
+    }
+
+    /**
+     * The {@code k} tests ranking highest by {@code by} ({@code duration}, {@code failures} or
+     * {@code total-time}) from {@code from} to {@code to}, inclusive, optionally within one suite.
+     * Without bounds, the last {@value #DEFAULT_WINDOW_DAYS} days.
+     */
+    public Map<String, Object> getTopTests(String by, int k, String suiteName, LocalDate from, LocalDate to) {
+        Ranking ranking = Ranking.of(by);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        LocalDate toDay = to != null ? to : LocalDate.now();
+        LocalDate fromDay = from != null ? from : toDay.minusDays(DEFAULT_WINDOW_DAYS);
+        if (toDay.isBefore(fromDay)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        return metricsCache.get("top-tests:" + ranking.name + ":" + k + ":" + fromDay + ":" + toDay + ":" + suiteName,
+            () -> computeTopTests(ranking, k, suiteName, fromDay, toDay));
+    }
+
+    /**
+     * Recomputes the counters of every day from {@code from} to {@code to} out of the raw test
+     * case runs. Without bounds, every day with runs is rebuilt.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate from, LocalDate to) {
+        LocalDate fromDay = from != null ? from : dayOf(testSuiteRunRepository.findEarliestTimestamp());
+        LocalDate toDay = to != null ? to : dayOf(testSuiteRunRepository.findLatestTimestamp());
+        if (fromDay == null || toDay == null) {
+            return Map.of("days", 0, "rows", 0);
+        }
+        if (toDay.isBefore(fromDay)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        // Compacted days have no raw runs left to rebuild from; their summaries are final
+        LocalDate archivedThrough = testRunArchiveRepository.findLatestDay();
+        if (archivedThrough != null && !fromDay.isAfter(archivedThrough)) {
+            fromDay = archivedThrough.plusDays(1);
+        }
+
+        dailyBlobRepository.deleteBetween(Table.TEST_DAILY_STATS, fromDay, toDay);
+        int days = 0;
+        int rows = 0;
+        for (LocalDate day = fromDay; !day.isAfter(toDay); day = day.plusDays(1)) {
+            Map<String, SuiteTestStats> statsBySuite = new TreeMap<>();
+            for (CaseRunStat run : testCaseRunRepository.findCaseRunStats(day.atStartOfDay(), day.plusDays(1).atStartOfDay())) {
+                statsBySuite.computeIfAbsent(run.suiteName(), suiteName -> new SuiteTestStats())
+                    .add(run.testIdentityId(), run.status(), run.durationMs());
+            }
+            dailyBlobRepository.insert(Table.TEST_DAILY_STATS, day, encode(statsBySuite));
+            days++;
+            rows += statsBySuite.size();
+        }
+        eventPublisher.publishEvent(new MetricsDataChangedEvent("top-tests"));
+
+        return Map.of(
+            "from", fromDay,
+            "to", toDay,
+            "days", days,
+            "rows", rows
+        );
+    }
+
+    private Map<String, Object> computeTopTests(Ranking ranking, int k, String suiteName, LocalDate from, LocalDate to) {
+        Map<Integer, TestTotals> totalsByTest = new HashMap<>();
+        dailyBlobRepository.forEachBetween(Table.TEST_DAILY_STATS, from, to, suiteName, (suite, bytes) ->
+            SuiteTestStats.forEach(bytes, (testIdentityId, runs, failures, totalMs, maxMs) -> {
+                TestTotals totals = totalsByTest.computeIfAbsent(testIdentityId, TestTotals::new);
+                totals.runs += runs;
+                totals.failures += failures;
+                totals.totalMs += totalMs;
+                totals.maxMs = Math.max(totals.maxMs, maxMs);
+            }));
+
+        // Keep only the current top entries while scanning all tests
+        PriorityQueue<TestTotals> top = new PriorityQueue<>(ranking.order);
+        for (TestTotals totals : totalsByTest.values()) {
+            if (ranking == Ranking.FAILURES && totals.failures == 0) {
+                continue;
+            }
+            top.add(totals);
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+
+        List<TestTotals> ranked = new ArrayList<>(top);
+        ranked.sort(ranking.order.reversed());
+        Map<Integer, String> names = testIdentityRepository
+            .findAllById(ranked.stream().map(totals -> totals.testIdentityId).toList())
+            .stream()
+            .collect(Collectors.toMap(TestIdentity::getId, TestIdentity::getTestName));
+
+        List<Map<String, Object>> tests = ranked.stream().map(totals -> {
+            Map<String, Object> test = new LinkedHashMap<>();
+            test.put("testName", names.get(totals.testIdentityId));
+            test.put("runs", totals.runs);
+            test.put("failures", totals.failures);
+            test.put("failureRate", totals.runs == 0 ? 0.0 : (double) totals.failures / totals.runs);
+            test.put("meanDurationMs", totals.meanMs());
+            test.put("maxDurationMs", totals.maxMs);
+            test.put("totalDurationMs", totals.totalMs);
+            return test;
+        }).toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("by", ranking.name);
+        result.put("from", from);
+        result.put("to", to);
+        result.put("suite", suiteName);
+        result.put("total_tests", totalsByTest.size());
+        result.put("tests", tests);
+        return result;
+    }
+
+    private static Map<String, byte[]> encode(Map<String, SuiteTestStats> statsBySuite) {
+        Map<String, byte[]> encoded = new TreeMap<>();
+        statsBySuite.forEach((suiteName, stats) -> encoded.put(suiteName, STATS.encode().apply(stats)));
+        return encoded;
+    }
+
+    private static LocalDate dayOf(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toLocalDate() : null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A test case run that took far longer than its test's moving baseline at the time it was ingested.
+ */
+@Entity
+@Table(name = "duration_regression")
+public class DurationRegression {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "duration_regression_seq")
+    @SequenceGenerator(name = "duration_regression_seq", sequenceName = "duration_regression_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer testIdentityId;
+
+    @Column(nullable = false)
+    private long durationMs;
+
+    @Column(nullable = false)
+    private double baselineMeanMs;
+
+    @Column(nullable = false)
+    private double baselineStdDevMs;
+
+    @Column(nullable = false)
+    private double sigmas; // how many standard deviations above the mean the run was
+
+    @Column(nullable = false)
+    private String uploadSourceId;
+
+    @Column(nullable = false)
+    private LocalDateTime detectedAt;
+
+    public DurationRegression() {
+    }
+
+    public DurationRegression(Integer testIdentityId, long durationMs, double baselineMeanMs, double baselineStdDevMs,
+                              double sigmas, String uploadSourceId, LocalDateTime detectedAt) {
+        this.testIdentityId = testIdentityId;
+        this.durationMs = durationMs;
+        this.baselineMeanMs = baselineMeanMs;
+        this.baselineStdDevMs = baselineStdDevMs;
+        this.sigmas = sigmas;
+        this.uploadSourceId = uploadSourceId;
+        this.detectedAt = detectedAt;
+    }
+
+    public Long getId() { return id; }
+    public Integer getTestIdentityId() { return testIdentityId; }
+    public long getDurationMs() { return durationMs; }
+    public double getBaselineMeanMs() { return baselineMeanMs; }
+    public double getBaselineStdDevMs() { return baselineStdDevMs; }
+    public double getSigmas() { return sigmas; }
+    public String getUploadSourceId() { return uploadSourceId; }
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+}
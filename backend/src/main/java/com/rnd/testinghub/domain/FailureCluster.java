@@ -0,0 +1,70 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Failure messages with the same or a nearly identical normalized signature (see
+ * {@code FailureSignature}). Every failure message belongs to the cluster it was assigned when
+ * it was first stored; the SimHash bands let new messages find near-duplicate clusters.
+ */
+@Entity
+@Table(name = "failure_cluster")
+public class FailureCluster {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "failure_cluster_seq")
+    @SequenceGenerator(name = "failure_cluster_seq", sequenceName = "failure_cluster_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String signatureHash;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String signature;
+
+    private String exceptionType;
+
+    @Column(nullable = false)
+    private long simHash;
+
+    @Column(nullable = false)
+    private int band0;
+
+    @Column(nullable = false)
+    private int band1;
+
+    @Column(nullable = false)
+    private int band2;
+
+    @Column(nullable = false)
+    private int band3;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public FailureCluster() {
+    }
+
+    public FailureCluster(String signatureHash, String signature, String exceptionType, long simHash, int[] bands) {
+        this.signatureHash = signatureHash;
+        this.signature = signature;
+        this.exceptionType = exceptionType;
+        this.simHash = simHash;
+        this.band0 = bands[0];
+        this.band1 = bands[1];
+        this.band2 = bands[2];
+        this.band3 = bands[3];
+    }
+
+    public Long getId() { return id; }
+    public String getSignatureHash() { return signatureHash; }
+    public String getSignature() { return signature; }
+    public String getExceptionType() { return exceptionType; }
+    public long getSimHash() { return simHash; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,48 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A failure or skip message shared by every test case run whose message has the same
+ * normalized hash. The text kept is the one seen first.
+ */
+@Entity
+@Table(name = "failure_message")
+public class FailureMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "failure_message_seq")
+    @SequenceGenerator(name = "failure_message_seq", sequenceName = "failure_message_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String messageHash;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    private Long clusterId; // FailureCluster, assigned when the message is first stored
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public FailureMessage() {
+    }
+
+    public FailureMessage(String messageHash, String message) {
+        this.messageHash = messageHash;
+        this.message = message;
+    }
+
+    public Long getId() { return id; }
+    public String getMessageHash() { return messageHash; }
+    public String getMessage() { return message; }
+    public Long getClusterId() { return clusterId; }
+    public void setClusterId(Long clusterId) { this.clusterId = clusterId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
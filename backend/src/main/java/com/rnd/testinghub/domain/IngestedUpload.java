@@ -0,0 +1,48 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Remembers the content digest of every ingested upload so a repeated upload maps back to
+ * the runs or spec it produced the first time.
+ */
+@Entity
+@Table(name = "ingested_upload")
+public class IngestedUpload {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String uploadKind; // junit or openapi
+
+    @Column(nullable = false)
+    private String contentDigest;
+
+    @Column(nullable = false)
+    private String uploadSourceId;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public IngestedUpload() {
+    }
+
+    public IngestedUpload(String uploadKind, String contentDigest, String uploadSourceId) {
+        this.uploadKind = uploadKind;
+        this.contentDigest = contentDigest;
+        this.uploadSourceId = uploadSourceId;
+    }
+
+    public Long getId() { return id; }
+    public String getUploadKind() { return uploadKind; }
+    public String getContentDigest() { return contentDigest; }
+    public String getUploadSourceId() { return uploadSourceId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,67 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Totals of all runs of one suite on one day.
+ */
+@Entity
+@Table(name = "metrics_daily_rollup")
+public class MetricsDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private String suiteName;
+
+    @Column(nullable = false)
+    private long suiteRuns;
+
+    @Column(nullable = false)
+    private long totalTests;
+
+    @Column(nullable = false)
+    private long passedTests;
+
+    @Column(nullable = false)
+    private long failedTests;
+
+    @Column(nullable = false)
+    private long skippedTests;
+
+    @Column(nullable = false)
+    private long durationMs;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public MetricsDailyRollup() {
+    }
+
+    public MetricsDailyRollup(LocalDate day, String suiteName) {
+        this.day = day;
+        this.suiteName = suiteName;
+    }
+
+    public Long getId() { return id; }
+    public LocalDate getDay() { return day; }
+    public String getSuiteName() { return suiteName; }
+    public long getSuiteRuns() { return suiteRuns; }
+    public long getTotalTests() { return totalTests; }
+    public long getPassedTests() { return passedTests; }
+    public long getFailedTests() { return failedTests; }
+    public long getSkippedTests() { return skippedTests; }
+    public long getDurationMs() { return durationMs; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 @Table(name = "test_case_run")
 public class TestCaseRun {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "test_case_run_seq")
+    @SequenceGenerator(name = "test_case_run_seq", sequenceName = "test_case_run_seq", allocationSize = 500)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -16,8 +17,10 @@ public class TestCaseRun {
     @JsonIgnore
     private TestSuiteRun suiteRun;
 
-    @Column(nullable = false)
-    private String testName;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "test_identity_id", nullable = false)
+    @JsonIgnore
+    private TestIdentity testIdentity;
 
     @Column(nullable = false)
     private String status;
@@ -25,8 +28,10 @@ public class TestCaseRun {
     @Column(nullable = false)
     private Long durationMs;
 
-    @Column(columnDefinition = "TEXT")
-    private String errorMessage;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "failure_message_id")
+    @JsonIgnore
+    private FailureMessage failureMessage;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
@@ -43,12 +48,12 @@ public class TestCaseRun {
     public TestCaseRun() {
     }
 
-    public TestCaseRun(TestSuiteRun suiteRun, String testName, String status, Long durationMs, String errorMessage, LocalDateTime timestamp) {
+    public TestCaseRun(TestSuiteRun suiteRun, TestIdentity testIdentity, String status, Long durationMs, FailureMessage failureMessage, LocalDateTime timestamp) {
         this.suiteRun = suiteRun;
-        this.testName = testName;
+        this.testIdentity = testIdentity;
         this.status = status;
         this.durationMs = durationMs;
-        this.errorMessage = errorMessage;
+        this.failureMessage = failureMessage;
         this.timestamp = timestamp;
     }
 
@@ -56,14 +61,14 @@ public class TestCaseRun {
     public Long getId() { return id; }
     public TestSuiteRun getSuiteRun() { return suiteRun; }
     public void setSuiteRun(TestSuiteRun suiteRun) { this.suiteRun = suiteRun; }
-    public String getTestName() { return testName; }
-    public void setTestName(String testName) { this.testName = testName; }
+    public TestIdentity getTestIdentity() { return testIdentity; }
+    public void setTestIdentity(TestIdentity testIdentity) { this.testIdentity = testIdentity; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     public Long getDurationMs() { return durationMs; }
     public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
-    public String getErrorMessage() { return errorMessage; }
-    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    public FailureMessage getFailureMessage() { return failureMessage; }
+    public void setFailureMessage(FailureMessage failureMessage) { this.failureMessage = failureMessage; }
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     public LocalDateTime getCreatedAt() { return createdAt; }
@@ -71,4 +76,17 @@ public class TestCaseRun {
     public Long getSuiteRunId() {
         return suiteRun != null ? suiteRun.getId() : null;
     }
+
+    @JsonIgnore
+    public Integer getTestIdentityId() {
+        return testIdentity != null ? testIdentity.getId() : null;
+    }
+
+    public String getTestName() {
+        return testIdentity != null ? testIdentity.getTestName() : null;
+    }
+
+    public String getErrorMessage() {
+        return failureMessage != null ? failureMessage.getMessage() : null;
+    }
 }
@@ -0,0 +1,82 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Recent outcomes of one test as a bit set: the last {@value #MAX_OUTCOMES} pass/fail results,
+ * newest in the lowest bit, a set bit meaning failed. Skipped runs are not recorded.
+ * The sign bit is never used, so the bits can be shifted with plain arithmetic in SQL.
+ */
+@Entity
+@Table(name = "test_flakiness")
+public class TestFlakiness {
+    public static final int MAX_OUTCOMES = Long.SIZE - 1;
+
+    /**
+     * Outcomes of one test within one upload, in the order they were read.
+     */
+    public static class Outcomes {
+        private long bits;
+        private int count;
+        private int flips;
+        private boolean firstFailed;
+
+        public void add(String status) {
+            boolean failed = "failed".equals(status);
+            if (!failed && !"passed".equals(status)) {
+                return;
+            }
+            if (count == 0) {
+                firstFailed = failed;
+            } else if (((bits & 1) == 1) != failed) {
+                flips++;
+            }
+            bits = ((bits << 1) | (failed ? 1 : 0)) & Long.MAX_VALUE;
+            count++;
+        }
+
+        public long getBits() { return bits; }
+        public int getCount() { return count; }
+        public int getFlips() { return flips; }
+        public boolean isFirstFailed() { return firstFailed; }
+    }
+
+    @Id
+    private Integer testIdentityId;
+
+    @Column(nullable = false)
+    private long outcomeBits;
+
+    @Column(nullable = false)
+    private int outcomeCount; // number of valid bits in outcomeBits
+
+    @Column(nullable = false)
+    private long flipCount; // pass/fail changes over the test's whole history
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public TestFlakiness() {
+    }
+
+    public TestFlakiness(Integer testIdentityId, Outcomes outcomes) {
+        this.testIdentityId = testIdentityId;
+        this.outcomeBits = outcomes.bits;
+        this.outcomeCount = Math.min(MAX_OUTCOMES, outcomes.count);
+        this.flipCount = outcomes.flips;
+    }
+
+    // Getters
+    public Integer getTestIdentityId() { return testIdentityId; }
+    public long getOutcomeBits() { return outcomeBits; }
+    public int getOutcomeCount() { return outcomeCount; }
+    public long getFlipCount() { return flipCount; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,38 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One distinct {@code classname.name} test, referred to by test case runs through its INT ID.
+ */
+@Entity
+@Table(name = "test_identity")
+public class TestIdentity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "test_identity_seq")
+    @SequenceGenerator(name = "test_identity_seq", sequenceName = "test_identity_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(nullable = false, unique = true, length = 512)
+    private String testName;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public TestIdentity() {
+    }
+
+    public TestIdentity(String testName) {
+        this.testName = testName;
+    }
+
+    public Integer getId() { return id; }
+    public String getTestName() { return testName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,49 @@
+package com.rnd.testinghub.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A day whose test case runs were compacted: written to an archive file and removed from
+ * test_case_run, leaving the day's suite runs and aggregates in place.
+ */
+@Entity
+@Table(name = "test_run_archive")
+public class TestRunArchive {
+    @Id
+    @Column(name = "archive_day")
+    private LocalDate day;
+
+    private String fileName; // null if the day had no runs
+
+    @Column(nullable = false)
+    private int suiteRuns;
+
+    @Column(nullable = false)
+    private long caseRuns;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime archivedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        archivedAt = LocalDateTime.now();
+    }
+
+    public TestRunArchive() {
+    }
+
+    public TestRunArchive(LocalDate day, String fileName, int suiteRuns, long caseRuns) {
+        this.day = day;
+        this.fileName = fileName;
+        this.suiteRuns = suiteRuns;
+        this.caseRuns = caseRuns;
+    }
+
+    public LocalDate getDay() { return day; }
+    public String getFileName() { return fileName; }
+    public int getSuiteRuns() { return suiteRuns; }
+    public long getCaseRuns() { return caseRuns; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "test_suite_run")
 public class TestSuiteRun {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "test_suite_run_seq")
+    @SequenceGenerator(name = "test_suite_run_seq", sequenceName = "test_suite_run_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
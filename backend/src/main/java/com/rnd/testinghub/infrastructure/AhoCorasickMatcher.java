@@ -0,0 +1,97 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds which of a fixed set of patterns occur in a text, in one pass over the text
+ * regardless of how many patterns there are (Aho–Corasick). Immutable once built, so one
+ * matcher can be shared between threads.
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final int[] fallbacks;
+    // Patterns ending at each node, including those ending at its fallback nodes
+    private final int[][] matches;
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        List<List<Integer>> ownMatches = new ArrayList<>();
+        transitions.add(new HashMap<>());
+        ownMatches.add(new ArrayList<>());
+        for (int pattern = 0; pattern < patterns.size(); pattern++) {
+            int node = 0;
+            for (char c : patterns.get(pattern).toCharArray()) {
+                Integer next = transitions.get(node).get(c);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.get(node).put(c, next);
+                    transitions.add(new HashMap<>());
+                    ownMatches.add(new ArrayList<>());
+                }
+                node = next;
+            }
+            ownMatches.get(node).add(pattern);
+        }
+
+        // Breadth first, so every fallback node is complete before it is needed
+        fallbacks = new int[transitions.size()];
+        matches = new int[transitions.size()][];
+        matches[0] = toArray(ownMatches.get(0), NO_MATCHES);
+        Deque<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+        while (!queue.isEmpty()) {
+            int node = queue.removeFirst();
+            matches[node] = toArray(ownMatches.get(node), matches[fallbacks[node]]);
+            transitions.get(node).forEach((c, child) -> {
+                fallbacks[child] = node == 0 ? 0 : next(fallbacks[node], c);
+                queue.addLast(child);
+            });
+        }
+    }
+
+    /**
+     * Calls {@code onMatch} with the index of every pattern found in {@code text}; a pattern that
+     * occurs more than once is reported once per occurrence.
+     */
+    public void forEachMatch(CharSequence text, IntConsumer onMatch) {
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            node = next(node, text.charAt(i));
+            for (int pattern : matches[node]) {
+                onMatch.accept(pattern);
+            }
+        }
+    }
+
+    private int next(int node, char c) {
+        while (true) {
+            Integer next = transitions.get(node).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = fallbacks[node];
+        }
+    }
+
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] merged = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            merged[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+        return merged;
+    }
+}
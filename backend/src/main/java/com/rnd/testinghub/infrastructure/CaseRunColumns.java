@@ -0,0 +1,302 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recent test case runs held in memory column by column: ID, test index, status code, duration
+ * and epoch-millisecond timestamp, each in a primitive array, in chunks of {@value #CHUNK_ROWS}
+ * rows. Window aggregations are plain loops over the arrays. Test identity IDs are mapped to
+ * dense indexes as runs are appended, so per-test sums take arrays as long as the number of
+ * tests held, however large the IDs get; tests whose runs were evicted keep their index until
+ * the columns are replaced.
+ *
+ * <p>One writer appends and evicts under the object's lock; readers take no lock. A reader
+ * sees the chunk list as published when it starts, and each chunk up to its published size.
+ */
+public final class CaseRunColumns {
+
+    public static final byte PASSED = 0;
+    public static final byte FAILED = 1;
+    public static final byte SKIPPED = 2;
+    public static final byte OTHER = 3;
+
+    static final int CHUNK_ROWS = 1 << 16;
+
+    public static byte statusCode(String status) {
+        return switch (status) {
+            case "passed" -> PASSED;
+            case "failed" -> FAILED;
+            case "skipped" -> SKIPPED;
+            default -> OTHER;
+        };
+    }
+
+    /**
+     * Growable columns for staging runs before they are appended, e.g. one upload's runs.
+     */
+    public static final class Batch {
+        private long[] ids = new long[1024];
+        private int[] testIds = new int[1024];
+        private byte[] statuses = new byte[1024];
+        private int[] durations = new int[1024];
+        private long[] timestamps = new long[1024];
+        private int size;
+
+        public void add(long id, int testId, byte status, long durationMs, long timestampMillis) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                testIds = Arrays.copyOf(testIds, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+            }
+            ids[size] = id;
+            testIds[size] = testId;
+            statuses[size] = status;
+            durations[size] = (int) Math.min(durationMs, Integer.MAX_VALUE);
+            timestamps[size] = timestampMillis;
+            size++;
+        }
+
+        public void addAll(Batch other) {
+            for (int row = 0; row < other.size; row++) {
+                add(other.ids[row], other.testIds[row], other.statuses[row], other.durations[row], other.timestamps[row]);
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * The earliest timestamp held, or {@link Long#MAX_VALUE} if empty.
+         */
+        public long minTimestamp() {
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < size; row++) {
+                min = Math.min(min, timestamps[row]);
+            }
+            return min;
+        }
+
+        public long[] sortedIds() {
+            long[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * Sums over the runs of a window; per-test counts go to the caller's arrays, indexed by
+     * test index.
+     */
+    public static final class WindowTotals {
+        public long runs;
+        public long passed;
+        public long failed;
+        public long skipped;
+        public long durationMs;
+        public long scannedRows;
+    }
+
+    private static final class Chunk {
+        final long[] ids = new long[CHUNK_ROWS];
+        final int[] testIndexes = new int[CHUNK_ROWS];
+        final byte[] statuses = new byte[CHUNK_ROWS];
+        final int[] durations = new int[CHUNK_ROWS];
+        final long[] timestamps = new long[CHUNK_ROWS];
+        long maxTimestamp = Long.MIN_VALUE; // only used by the writer
+        volatile int size;
+    }
+
+    private volatile List<Chunk> chunks = List.of();
+    private volatile long coveredFrom;
+    private long rows;
+    // Test index -> test identity ID; entries below testCount are final once published
+    private volatile int[] testIds = new int[1024];
+    private volatile int testCount;
+    // Open addressing: test identity ID + 1 -> test index, 0 for free slots; only the writer uses it
+    private int[] indexKeys = new int[2048];
+    private int[] indexValues = new int[2048];
+
+    public CaseRunColumns(long coveredFrom) {
+        this.coveredFrom = coveredFrom;
+    }
+
+    public synchronized void append(Batch batch) {
+        append(batch, 0, batch.size);
+    }
+
+    /**
+     * Appends the rows of {@code batch} whose ID is not in {@code skipIds} (sorted ascending).
+     */
+    public synchronized void appendExcept(Batch batch, long[] skipIds) {
+        for (int row = 0; row < batch.size; row++) {
+            if (Arrays.binarySearch(skipIds, batch.ids[row]) < 0) {
+                append(batch, row, row + 1);
+            }
+        }
+    }
+
+    /**
+     * Drops the chunks holding only runs before {@code cutoff}, then the oldest chunks until at
+     * most {@code maxRows} are left; the window is complete from {@link #coveredFrom()} on.
+     */
+    public synchronized void evict(long cutoff, long maxRows) {
+        List<Chunk> kept = new ArrayList<>(chunks);
+        boolean changed = kept.removeIf(chunk -> chunk.maxTimestamp < cutoff);
+        long newCoveredFrom = Math.max(coveredFrom, cutoff);
+        long keptRows = kept.stream().mapToLong(chunk -> chunk.size).sum();
+        while (keptRows > maxRows && !kept.isEmpty()) {
+            Chunk oldest = kept.remove(0);
+            keptRows -= oldest.size;
+            newCoveredFrom = Math.max(newCoveredFrom, oldest.maxTimestamp + 1);
+            changed = true;
+        }
+        if (changed) {
+            chunks = List.copyOf(kept);
+        }
+        rows = keptRows;
+        coveredFrom = newCoveredFrom;
+    }
+
+    /**
+     * The earliest timestamp from which every run is held.
+     */
+    public long coveredFrom() {
+        return coveredFrom;
+    }
+
+    /**
+     * The number of test indexes handed out so far.
+     */
+    public int testCount() {
+        return testCount;
+    }
+
+    /**
+     * The test identity IDs of the first {@code count} test indexes, at most {@link #testCount()}.
+     */
+    public int[] testIds(int count) {
+        return Arrays.copyOf(testIds, count);
+    }
+
+    public synchronized long rows() {
+        return rows;
+    }
+
+    /**
+     * Sums the runs in {@code [from, until)}, adding each test's runs and failures to
+     * {@code runsByTest} and {@code failuresByTest}, indexed by test index. Tests indexed past
+     * the arrays' length are only counted in the totals.
+     */
+    public WindowTotals aggregate(long from, long until, int[] runsByTest, int[] failuresByTest) {
+        WindowTotals totals = new WindowTotals();
+        for (Chunk chunk : chunks) {
+            int size = chunk.size;
+            long[] timestamps = chunk.timestamps;
+            int[] testIndexes = chunk.testIndexes;
+            byte[] statuses = chunk.statuses;
+            int[] durations = chunk.durations;
+            for (int row = 0; row < size; row++) {
+                long timestamp = timestamps[row];
+                if (timestamp < from || timestamp >= until) {
+                    continue;
+                }
+                byte status = statuses[row];
+                totals.runs++;
+                totals.durationMs += durations[row];
+                if (status == PASSED) {
+                    totals.passed++;
+                } else if (status == FAILED) {
+                    totals.failed++;
+                } else if (status == SKIPPED) {
+                    totals.skipped++;
+                }
+                int testIndex = testIndexes[row];
+                if (testIndex < runsByTest.length) {
+                    runsByTest[testIndex]++;
+                    if (status == FAILED) {
+                        failuresByTest[testIndex]++;
+                    }
+                }
+            }
+            totals.scannedRows += size;
+        }
+        return totals;
+    }
+
+    private void append(Batch batch, int from, int to) {
+        List<Chunk> current = chunks;
+        Chunk tail = current.isEmpty() ? null : current.get(current.size() - 1);
+        int row = from;
+        while (row < to) {
+            if (tail == null || tail.size == CHUNK_ROWS) {
+                tail = new Chunk();
+                List<Chunk> grown = new ArrayList<>(current);
+                grown.add(tail);
+                current = List.copyOf(grown);
+                chunks = current;
+            }
+            int start = tail.size;
+            int count = Math.min(to - row, CHUNK_ROWS - start);
+            System.arraycopy(batch.ids, row, tail.ids, start, count);
+            System.arraycopy(batch.statuses, row, tail.statuses, start, count);
+            System.arraycopy(batch.durations, row, tail.durations, start, count);
+            System.arraycopy(batch.timestamps, row, tail.timestamps, start, count);
+            for (int i = row; i < row + count; i++) {
+                tail.testIndexes[start + i - row] = indexOf(batch.testIds[i]);
+                tail.maxTimestamp = Math.max(tail.maxTimestamp, batch.timestamps[i]);
+            }
+            // Publishes the rows to readers
+            tail.size = start + count;
+            rows += count;
+            row += count;
+        }
+    }
+
+    private int indexOf(int testId) {
+        int mask = indexKeys.length - 1;
+        int slot = (testId * 0x9e3779b9) & mask;
+        while (indexKeys[slot] != 0) {
+            if (indexKeys[slot] == testId + 1) {
+                return indexValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int index = testCount;
+        if (index == testIds.length) {
+            testIds = Arrays.copyOf(testIds, index * 2);
+        }
+        testIds[index] = testId;
+        indexKeys[slot] = testId + 1;
+        indexValues[slot] = index;
+        // Publishes the index to readers
+        testCount = index + 1;
+        if (testCount * 2 > indexKeys.length) {
+            growIndex();
+        }
+        return index;
+    }
+
+    private void growIndex() {
+        int[] oldKeys = indexKeys;
+        int[] oldValues = indexValues;
+        indexKeys = new int[oldKeys.length * 2];
+        indexValues = new int[oldKeys.length * 2];
+        int mask = indexKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = ((oldKeys[i] - 1) * 0x9e3779b9) & mask;
+                while (indexKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                indexKeys[slot] = oldKeys[i];
+                indexValues[slot] = oldValues[i];
+            }
+        }
+    }
+}
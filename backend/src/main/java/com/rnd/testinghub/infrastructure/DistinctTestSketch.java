@@ -0,0 +1,106 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog estimate of the number of distinct tests, identified by test identity ID, in
+ * {@value #REGISTERS} one-byte registers. The size is fixed however many runs are added, two
+ * sketches merge by taking the larger of each register, and the estimate is within
+ * {@link #STANDARD_ERROR} of the true count for one standard error. Small counts fall back to
+ * linear counting and are practically exact.
+ */
+public final class DistinctTestSketch {
+
+    private static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final byte FORMAT_VERSION = 1;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    /**
+     * Relative standard error of {@link #estimate()}: 1.04 / sqrt(registers).
+     */
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private final byte[] registers;
+
+    public DistinctTestSketch() {
+        this(new byte[REGISTERS]);
+    }
+
+    private DistinctTestSketch(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(int testIdentityId) {
+        long hash = mix(testIdentityId);
+        int register = (int) (hash >>> (64 - PRECISION));
+        // Rank of the first set bit in the remaining bits; the guard bit caps it
+        byte rank = (byte) (Long.numberOfLeadingZeros(hash << PRECISION | 1L << (PRECISION - 1)) + 1);
+        if (rank > registers[register]) {
+            registers[register] = rank;
+        }
+    }
+
+    public void merge(DistinctTestSketch other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Whether no test was ever added.
+     */
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Serializes as a format version byte followed by the registers.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[1 + REGISTERS];
+        bytes[0] = FORMAT_VERSION;
+        System.arraycopy(registers, 0, bytes, 1, REGISTERS);
+        return bytes;
+    }
+
+    public static DistinctTestSketch fromBytes(byte[] bytes) {
+        if (bytes.length != 1 + REGISTERS || bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown distinct test sketch format");
+        }
+        return new DistinctTestSketch(Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+
+    /**
+     * SplitMix64 finalizer, so consecutive IDs spread over all registers.
+     */
+    private static long mix(long value) {
+        long hash = value + 0x9e3779b97f4a7c15L;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,86 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exponentially weighted duration baselines of up to {@value #SIZE} consecutive test identity
+ * IDs, stored as one unit like {@link DurationSketchBlock}.
+ */
+public final class DurationBaselineBlock {
+
+    public static final int SIZE = 1024;
+
+    /**
+     * Moving mean and variance of one test's durations. Each new duration moves the mean by
+     * {@code alpha} of its distance from it, so older runs fade out geometrically and an update
+     * costs the same however long the history is.
+     */
+    public static final class Baseline {
+        private long count;
+        private double mean;
+        private double variance;
+
+        public void add(long durationMs, double alpha) {
+            if (count++ == 0) {
+                mean = durationMs;
+                return;
+            }
+            double difference = durationMs - mean;
+            double increment = alpha * difference;
+            mean += increment;
+            variance = (1 - alpha) * (variance + difference * increment);
+        }
+
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public double getStdDev() { return Math.sqrt(variance); }
+    }
+
+    private final TreeMap<Integer, Baseline> baselines = new TreeMap<>();
+
+    public static int blockOf(int testIdentityId) {
+        return Math.floorDiv(testIdentityId, SIZE);
+    }
+
+    /**
+     * The baseline of a test, created empty if the test has none yet.
+     */
+    public Baseline get(int testIdentityId) {
+        return baselines.computeIfAbsent(testIdentityId, id -> new Baseline());
+    }
+
+    /**
+     * Serializes as (test ID gap, run count, mean, variance) entries, the first two as
+     * variable-length integers.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(baselines.size() * 20);
+        int previous = 0;
+        for (Map.Entry<Integer, Baseline> entry : baselines.entrySet()) {
+            Baseline baseline = entry.getValue();
+            DurationSketch.writeVarLong(out, entry.getKey() - previous);
+            DurationSketch.writeVarLong(out, baseline.count);
+            out.writeBytes(ByteBuffer.allocate(2 * Double.BYTES).putDouble(baseline.mean).putDouble(baseline.variance).array());
+            previous = entry.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static DurationBaselineBlock fromBytes(byte[] bytes) {
+        DurationBaselineBlock block = new DurationBaselineBlock();
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int testIdentityId = 0;
+        while (in.hasRemaining()) {
+            testIdentityId += (int) DurationSketch.readVarLong(in);
+            Baseline baseline = new Baseline();
+            baseline.count = DurationSketch.readVarLong(in);
+            baseline.mean = in.getDouble();
+            baseline.variance = in.getDouble();
+            block.baselines.put(testIdentityId, baseline);
+        }
+        return block;
+    }
+}
@@ -0,0 +1,154 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable histogram of durations in milliseconds, in the style of HdrHistogram: values below
+ * {@value #SUB_BUCKETS} are counted exactly, larger ones in logarithmic buckets that each span
+ * 1/{@value #SUB_BUCKETS} of their lower bound. Quantiles are therefore within about 1% of the
+ * true value, and two sketches merge by adding bucket counts.
+ *
+ * <p>Buckets are kept sparsely, so a sketch of a single value stays a few bytes both in memory
+ * and in its serialized form.
+ */
+public final class DurationSketch {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final byte FORMAT_VERSION = 1;
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public void add(long durationMs) {
+        long value = Math.max(0, durationMs);
+        counts.merge(bucketOf(value), 1L, Long::sum);
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(DurationSketch other) {
+        other.counts.forEach((bucket, bucketCount) -> counts.merge(bucket, bucketCount, Long::sum));
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * The value at quantile {@code q} (0 to 1): the middle of the bucket holding the value of
+     * rank ceil(q * count), kept within the exact minimum and maximum.
+     */
+    public long quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return Math.min(max, Math.max(min, midpointOf(bucket.getKey())));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Serializes as the count, minimum and maximum followed by (bucket gap, bucket count) pairs,
+     * all as variable-length integers.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + counts.size() * 3);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, count);
+        writeVarLong(out, getMin());
+        writeVarLong(out, getMax());
+        int previous = 0;
+        for (Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            writeVarLong(out, bucket.getKey() - previous);
+            writeVarLong(out, bucket.getValue());
+            previous = bucket.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static DurationSketch fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown duration sketch format");
+        }
+        DurationSketch sketch = new DurationSketch();
+        sketch.count = readVarLong(in);
+        long storedMin = readVarLong(in);
+        long storedMax = readVarLong(in);
+        if (sketch.count > 0) {
+            sketch.min = storedMin;
+            sketch.max = storedMax;
+        }
+        int bucket = 0;
+        while (in.hasRemaining()) {
+            bucket += (int) readVarLong(in);
+            sketch.counts.put(bucket, readVarLong(in));
+        }
+        return sketch;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long midpointOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + ((1L << shift) >>> 1);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@link DurationSketch}es of up to {@value #SIZE} consecutive test identity IDs, stored as
+ * one unit so that an upload of thousands of tests writes a handful of blocks instead of one
+ * sketch per test.
+ */
+public final class DurationSketchBlock {
+
+    public static final int SIZE = 1024;
+
+    private final TreeMap<Integer, DurationSketch> sketches = new TreeMap<>();
+
+    public static int blockOf(int testIdentityId) {
+        return Math.floorDiv(testIdentityId, SIZE);
+    }
+
+    public void add(int testIdentityId, long durationMs) {
+        sketches.computeIfAbsent(testIdentityId, id -> new DurationSketch()).add(durationMs);
+    }
+
+    public void merge(DurationSketchBlock other) {
+        other.sketches.forEach((testIdentityId, sketch) ->
+            sketches.computeIfAbsent(testIdentityId, id -> new DurationSketch()).merge(sketch));
+    }
+
+    public Map<Integer, DurationSketch> getSketches() {
+        return sketches;
+    }
+
+    /**
+     * Serializes as (test ID gap, sketch length, sketch) triples, the first two as
+     * variable-length integers.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sketches.size() * 16);
+        int previous = 0;
+        for (Map.Entry<Integer, DurationSketch> entry : sketches.entrySet()) {
+            byte[] sketch = entry.getValue().toBytes();
+            DurationSketch.writeVarLong(out, entry.getKey() - previous);
+            DurationSketch.writeVarLong(out, sketch.length);
+            out.writeBytes(sketch);
+            previous = entry.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static DurationSketchBlock fromBytes(byte[] bytes) {
+        DurationSketchBlock block = new DurationSketchBlock();
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int testIdentityId = 0;
+        while (in.hasRemaining()) {
+            testIdentityId += (int) DurationSketch.readVarLong(in);
+            block.sketches.put(testIdentityId, DurationSketch.fromBytes(readSketch(in)));
+        }
+        return block;
+    }
+
+    /**
+     * The sketch of one test in a serialized block, skipping over the others without decoding
+     * them; empty if the test has none.
+     */
+    public static DurationSketch find(byte[] bytes, int testIdentityId) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int current = 0;
+        while (in.hasRemaining()) {
+            current += (int) DurationSketch.readVarLong(in);
+            if (current == testIdentityId) {
+                return DurationSketch.fromBytes(readSketch(in));
+            }
+            int length = (int) DurationSketch.readVarLong(in);
+            if (current > testIdentityId) {
+                break;
+            }
+            in.position(in.position() + length);
+        }
+        return new DurationSketch();
+    }
+
+    private static byte[] readSketch(ByteBuffer in) {
+        int length = (int) DurationSketch.readVarLong(in);
+        int start = in.position();
+        in.position(start + length);
+        return Arrays.copyOfRange(in.array(), start, start + length);
+    }
+}
@@ -0,0 +1,126 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What a failure message looks like once its variable parts are gone: the first line with
+ * quoted values, numbers, IDs and addresses replaced by placeholders, followed by the top
+ * stack frames without line numbers or test-framework frames.
+ *
+ * <p>{@link #hash()} is equal for failures with the same signature; {@link #simHash()} is a
+ * 64-bit SimHash of the signature's token pairs, so near-identical signatures differ in only a
+ * few bits.
+ */
+public record FailureSignature(String text, String exceptionType, String hash, long simHash) {
+
+    public static final int BANDS = 4;
+
+    private static final int TOP_FRAMES = 5;
+    private static final int MAX_TEXT = 2000;
+
+    private static final Pattern EXCEPTION_TYPE =
+        Pattern.compile("^([A-Za-z_$][\\w$]*(?:\\.[A-Za-z_$][\\w$]*)*(?:Exception|Error|Throwable|Failure|Failed))\\b");
+    private static final Pattern QUOTED = Pattern.compile("\"[^\"]*\"|'[^']*'|<[^<>\\s]*>");
+    private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern HEX = Pattern.compile("(?:0x|@)[0-9a-fA-F]+|\\b[0-9a-f]{16,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+    private static final Pattern FRAME = Pattern.compile("^at\\s+([\\w$.<>/]+)");
+    private static final Pattern TOKEN = Pattern.compile("[\\w$<>]+");
+    private static final String[] FRAMEWORK_FRAMES = {
+        "org.junit.", "junit.framework.", "org.testng.", "org.opentest4j.", "org.assertj.", "org.hamcrest.",
+        "java.base/", "jdk.internal.", "sun.reflect.", "java.lang.reflect.", "org.gradle.", "org.apache.maven.surefire."
+    };
+
+    public static FailureSignature of(String message) {
+        String[] lines = message.strip().split("\\R");
+        String headline = lines[0].strip();
+        Matcher type = EXCEPTION_TYPE.matcher(headline);
+        String exceptionType = type.find() ? type.group(1) : null;
+
+        StringBuilder text = new StringBuilder(normalize(headline));
+        List<String> frames = new ArrayList<>(TOP_FRAMES);
+        for (int i = 1; i < lines.length && frames.size() < TOP_FRAMES; i++) {
+            Matcher frame = FRAME.matcher(lines[i].strip());
+            if (frame.find() && !isFrameworkFrame(frame.group(1))) {
+                frames.add(frame.group(1));
+            }
+        }
+        frames.forEach(frame -> text.append("\nat ").append(frame));
+        String signature = text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) : text.toString();
+
+        return new FailureSignature(
+            signature,
+            exceptionType,
+            ContentDigest.sha256(signature.getBytes(StandardCharsets.UTF_8)),
+            simHash(signature)
+        );
+    }
+
+    /**
+     * The {@code band}-th 16 bits of the SimHash. Two SimHashes at most {@code BANDS - 1} bits
+     * apart agree on at least one band, so near duplicates are found by exact band lookups.
+     */
+    public int band(int band) {
+        return (int) (simHash >>> (band * 16)) & 0xFFFF;
+    }
+
+    public int distance(long otherSimHash) {
+        return Long.bitCount(simHash ^ otherSimHash);
+    }
+
+    private static String normalize(String line) {
+        String normalized = QUOTED.matcher(line).replaceAll("<s>");
+        normalized = UUID.matcher(normalized).replaceAll("<id>");
+        normalized = HEX.matcher(normalized).replaceAll("<x>");
+        return NUMBER.matcher(normalized).replaceAll("<n>");
+    }
+
+    private static boolean isFrameworkFrame(String frame) {
+        for (String prefix : FRAMEWORK_FRAMES) {
+            if (frame.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long simHash(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher token = TOKEN.matcher(text);
+        while (token.find()) {
+            tokens.add(token.group());
+        }
+        int[] weights = new int[64];
+        for (int i = 0; i < tokens.size(); i++) {
+            String shingle = i + 1 < tokens.size() ? tokens.get(i) + ' ' + tokens.get(i + 1) : tokens.get(i);
+            long hash = fnv1a(shingle);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += (hash >>> bit & 1) == 1 ? 1 : -1;
+            }
+        }
+        long simHash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Spread the short inputs over all 64 bits
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
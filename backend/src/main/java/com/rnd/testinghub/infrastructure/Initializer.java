@@ -1,6 +1,8 @@
 package com.rnd.testinghub.infrastructure;
 
+import com.rnd.testinghub.application.HotWindowService;
 import com.rnd.testinghub.application.PracticeService;
+import com.rnd.testinghub.application.TestCaseRunRetentionService;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
@@ -9,13 +11,21 @@ import org.springframework.stereotype.Component;
 public class Initializer {
 
     private final PracticeService practiceService;
+    private final TestCaseRunRetentionService testCaseRunRetentionService;
+    private final HotWindowService hotWindowService;
 
-    public Initializer(PracticeService practiceService) {
+    public Initializer(PracticeService practiceService,
+                       TestCaseRunRetentionService testCaseRunRetentionService,
+                       HotWindowService hotWindowService) {
         this.practiceService = practiceService;
+        this.testCaseRunRetentionService = testCaseRunRetentionService;
+        this.hotWindowService = hotWindowService;
     }
 
     @EventListener(ApplicationReadyEvent.class)
     public void initializeData() {
         practiceService.initializePractices();
+        testCaseRunRetentionService.maintain();
+        hotWindowService.load();
     }
 }
@@ -0,0 +1,102 @@
+package com.rnd.testinghub.infrastructure;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Run count, failures and total and longest duration of every test of one suite on one day,
+ * serialized as a single value so that an upload updates one row per suite.
+ */
+public final class SuiteTestStats {
+
+    /**
+     * Counters of one test.
+     */
+    public static final class Stats {
+        private long runs;
+        private long failures;
+        private long totalMs;
+        private long maxMs;
+
+        public void add(String status, long durationMs) {
+            runs++;
+            if ("failed".equals(status)) {
+                failures++;
+            }
+            totalMs += Math.max(0, durationMs);
+            maxMs = Math.max(maxMs, durationMs);
+        }
+
+        public void add(long runs, long failures, long totalMs, long maxMs) {
+            this.runs += runs;
+            this.failures += failures;
+            this.totalMs += totalMs;
+            this.maxMs = Math.max(this.maxMs, maxMs);
+        }
+
+        public long getRuns() { return runs; }
+        public long getFailures() { return failures; }
+        public long getTotalMs() { return totalMs; }
+        public long getMaxMs() { return maxMs; }
+    }
+
+    /**
+     * Receives the counters of one test while a serialized value is read.
+     */
+    @FunctionalInterface
+    public interface StatsConsumer {
+        void accept(int testIdentityId, long runs, long failures, long totalMs, long maxMs);
+    }
+
+    private final TreeMap<Integer, Stats> stats = new TreeMap<>();
+
+    public void add(int testIdentityId, String status, long durationMs) {
+        stats.computeIfAbsent(testIdentityId, id -> new Stats()).add(status, durationMs);
+    }
+
+    public void merge(SuiteTestStats other) {
+        other.stats.forEach((testIdentityId, counters) -> stats.computeIfAbsent(testIdentityId, id -> new Stats())
+            .add(counters.runs, counters.failures, counters.totalMs, counters.maxMs));
+    }
+
+    /**
+     * Serializes as (test ID gap, runs, failures, total ms, max ms) entries, all as
+     * variable-length integers.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(stats.size() * 8);
+        int previous = 0;
+        for (Map.Entry<Integer, Stats> entry : stats.entrySet()) {
+            Stats counters = entry.getValue();
+            DurationSketch.writeVarLong(out, entry.getKey() - previous);
+            DurationSketch.writeVarLong(out, counters.runs);
+            DurationSketch.writeVarLong(out, counters.failures);
+            DurationSketch.writeVarLong(out, counters.totalMs);
+            DurationSketch.writeVarLong(out, counters.maxMs);
+            previous = entry.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static SuiteTestStats fromBytes(byte[] bytes) {
+        SuiteTestStats suiteStats = new SuiteTestStats();
+        forEach(bytes, (testIdentityId, runs, failures, totalMs, maxMs) -> suiteStats.stats
+            .computeIfAbsent(testIdentityId, id -> new Stats()).add(runs, failures, totalMs, maxMs));
+        return suiteStats;
+    }
+
+    /**
+     * Reads a serialized value without building a {@link SuiteTestStats} for it.
+     */
+    public static void forEach(byte[] bytes, StatsConsumer consumer) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int testIdentityId = 0;
+        while (in.hasRemaining()) {
+            testIdentityId += (int) DurationSketch.readVarLong(in);
+            consumer.accept(testIdentityId, DurationSketch.readVarLong(in), DurationSketch.readVarLong(in),
+                DurationSketch.readVarLong(in), DurationSketch.readVarLong(in));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.rnd.testinghub.infrastructure.parser;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads a .zip or .tar.gz of JUnit XML files. The archive is decompressed as a stream on the
+ * calling thread while the XML entries are parsed in parallel on one thread per core. No entry
+ * is decompressed past {@code ingestion.archive.max-entry-size}, and reading stops while the
+ * entries waiting for a parser or for the handler add up to {@code max-in-flight-size}, so a
+ * small archive cannot expand into more than about the sum of the two.
+ */
+@Service
+public class JunitArchiveParser {
+
+    public static class ParsedFile {
+        public final String name;
+        public final long sizeBytes;
+        public final long parseMillis;
+        public final List<JunitXmlParser.TestSuiteInfo> suites;
+
+        public ParsedFile(String name, long sizeBytes, long parseMillis, List<JunitXmlParser.TestSuiteInfo> suites) {
+            this.name = name;
+            this.sizeBytes = sizeBytes;
+            this.parseMillis = parseMillis;
+            this.suites = suites;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ParsedFileHandler {
+        void onParsedFile(ParsedFile file) throws Exception;
+    }
+
+    private final JunitXmlParser junitXmlParser;
+    private final ExecutorService parseExecutor;
+    private final int maxFilesInFlight;
+    private final int maxEntryBytes;
+    private final long maxBytesInFlight;
+
+    public JunitArchiveParser(JunitXmlParser junitXmlParser,
+                              @Value("${ingestion.archive.max-entry-size:32MB}") DataSize maxEntrySize,
+                              @Value("${ingestion.archive.max-in-flight-size:128MB}") DataSize maxInFlightSize) {
+        if (maxEntrySize.toBytes() < 1 || maxInFlightSize.toBytes() < 1) {
+            throw new IllegalArgumentException("ingestion.archive.max-entry-size and max-in-flight-size must be positive");
+        }
+        this.junitXmlParser = junitXmlParser;
+        // Entries are held as byte arrays until parsed
+        this.maxEntryBytes = (int) Math.min(maxEntrySize.toBytes(), Integer.MAX_VALUE - 8);
+        this.maxBytesInFlight = maxInFlightSize.toBytes();
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.parseExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "junit-archive-parser-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bounds how many decompressed files wait in memory for a parser or for the handler
+        this.maxFilesInFlight = threads * 4;
+    }
+
+    /**
+     * Parses every XML entry of {@code archive}. The handler is called on the calling thread,
+     * in archive order, as soon as each file has been parsed.
+     */
+    public void parse(InputStream archive, ParsedFileHandler handler) throws Exception {
+        InFlightFiles inFlight = new InFlightFiles();
+        BufferedInputStream input = new BufferedInputStream(archive);
+
+        try {
+            if (isZip(input)) {
+                ZipInputStream zip = new ZipInputStream(input);
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (!entry.isDirectory() && isReportFile(entry.getName())) {
+                        submit(entry.getName(), readEntry(entry.getName(), entry.getSize(), zip), inFlight, handler);
+                    }
+                }
+            } else if (isGzip(input)) {
+                TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(input));
+                TarArchiveEntry entry;
+                while ((entry = tar.getNextEntry()) != null) {
+                    if (entry.isFile() && isReportFile(entry.getName())) {
+                        submit(entry.getName(), readEntry(entry.getName(), entry.getSize(), tar), inFlight, handler);
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported archive format, expected .zip or .tar.gz");
+            }
+
+            while (!inFlight.files.isEmpty()) {
+                inFlight.handOverOldest(handler);
+            }
+        } finally {
+            inFlight.files.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Reads the current entry, declared as {@code size} bytes (-1 if unknown), reading no more
+     * than one byte past the limit, as sizes in an archive's headers may lie.
+     */
+    private byte[] readEntry(String name, long size, InputStream entry) throws IOException {
+        if (size > maxEntryBytes) {
+            throw tooLarge(name);
+        }
+        byte[] content = entry.readNBytes(maxEntryBytes + 1);
+        if (content.length > maxEntryBytes) {
+            throw tooLarge(name);
+        }
+        return content;
+    }
+
+    private IllegalArgumentException tooLarge(String name) {
+        return new IllegalArgumentException(name + ": entry is larger than the limit of " + maxEntryBytes + " bytes");
+    }
+
+    private void submit(String name, byte[] content, InFlightFiles inFlight,
+                        ParsedFileHandler handler) throws Exception {
+        // Make room for the new entry first, so the pending ones and it stay within the budget
+        while (!inFlight.files.isEmpty() && inFlight.bytes + content.length > maxBytesInFlight) {
+            inFlight.handOverOldest(handler);
+        }
+        inFlight.files.addLast(parseExecutor.submit(() -> parseFile(name, content)));
+        inFlight.bytes += content.length;
+
+        // Hand over finished files in order, and wait for the oldest one when too many are pending
+        while (!inFlight.files.isEmpty() && (inFlight.files.peekFirst().isDone() || inFlight.files.size() >= maxFilesInFlight)) {
+            inFlight.handOverOldest(handler);
+        }
+    }
+
+    /**
+     * Files of one archive submitted for parsing and not yet handed over, oldest first, and the
+     * decompressed bytes they hold.
+     */
+    private static class InFlightFiles {
+        final Deque<Future<ParsedFile>> files = new ArrayDeque<>();
+        long bytes;
+
+        void handOverOldest(ParsedFileHandler handler) throws Exception {
+            ParsedFile file = await(files.removeFirst());
+            bytes -= file.sizeBytes;
+            handler.onParsedFile(file);
+        }
+    }
+
+    private ParsedFile parseFile(String name, byte[] content) throws Exception {
+        long start = System.nanoTime();
+        List<JunitXmlParser.TestSuiteInfo> suites;
+        try {
+            suites = junitXmlParser.parse(new ByteArrayInputStream(content));
+        } catch (Exception e) {
+            throw new IllegalArgumentException(name + ": " + e.getMessage(), e);
+        }
+        long parseMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ParsedFile(name, content.length, parseMillis, suites);
+    }
+
+    private static ParsedFile await(Future<ParsedFile> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static boolean isReportFile(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        return lowerCaseName.endsWith(".xml") && !lowerCaseName.startsWith("__macosx/");
+    }
+
+    private static boolean isZip(BufferedInputStream input) throws IOException {
+        byte[] magic = peek(input, 4);
+        return magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+    }
+
+    private static boolean isGzip(BufferedInputStream input) throws IOException {
+        byte[] magic = peek(input, 2);
+        return magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+    }
+
+    private static byte[] peek(BufferedInputStream input, int length) throws IOException {
+        input.mark(length);
+        byte[] bytes = input.readNBytes(length);
+        input.reset();
+        return bytes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parseExecutor.shutdownNow();
+    }
+}
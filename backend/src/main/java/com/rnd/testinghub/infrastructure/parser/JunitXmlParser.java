@@ -1,15 +1,14 @@
 package com.rnd.testinghub.infrastructure.parser;
 
 import org.springframework.stereotype.Service;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -50,78 +49,184 @@ public class JunitXmlParser {
         }
     }
 
+    /**
+     * Receives a report piece by piece while it is being read.
+     * Suites are announced with an empty case list when their start tag is read;
+     * every case that follows belongs to the most recently announced suite.
+     */
+    public interface ReportHandler {
+        void onTestSuite(TestSuiteInfo suite) throws Exception;
+
+        void onTestCase(TestCaseInfo testCase) throws Exception;
+    }
+
     public List<TestSuiteInfo> parse(String xmlContent) throws Exception {
         List<TestSuiteInfo> suites = new ArrayList<>();
+        parse(new StringReader(xmlContent), collectingHandler(suites));
+        return suites;
+    }
 
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(new InputSource(new StringReader(xmlContent)));
+    public List<TestSuiteInfo> parse(InputStream input) throws Exception {
+        List<TestSuiteInfo> suites = new ArrayList<>();
+        parse(input, collectingHandler(suites));
+        return suites;
+    }
 
-        NodeList testsuites = doc.getElementsByTagName("testsuite");
+    /**
+     * Streams the report from {@code input}; memory use does not depend on the report size.
+     */
+    public void parse(InputStream input, ReportHandler handler) throws Exception {
+        XMLStreamReader reader = newInputFactory().createXMLStreamReader(input);
+        try {
+            parse(reader, handler);
+        } finally {
+            reader.close();
+        }
+    }
 
-        for (int i = 0; i < testsuites.getLength(); i++) {
-            Element testsuiteElement = (Element) testsuites.item(i);
-            suites.add(parseTestSuite(testsuiteElement));
+    public void parse(Reader input, ReportHandler handler) throws Exception {
+        XMLStreamReader reader = newInputFactory().createXMLStreamReader(input);
+        try {
+            parse(reader, handler);
+        } finally {
+            reader.close();
         }
+    }
 
-        // If no testsuites found, try parsing as a single testsuite
-        if (suites.isEmpty()) {
-            Element root = doc.getDocumentElement();
-            if ("testsuite".equals(root.getTagName())) {
-                suites.add(parseTestSuite(root));
+    private void parse(XMLStreamReader reader, ReportHandler handler) throws Exception {
+        int openSuites = 0;
+        CaseState currentCase = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String tag = reader.getLocalName();
+                if ("testsuite".equals(tag)) {
+                    openSuites++;
+                    handler.onTestSuite(parseTestSuite(reader));
+                } else if ("testcase".equals(tag) && openSuites > 0) {
+                    currentCase = startTestCase(reader);
+                } else if (currentCase != null && ("failure".equals(tag) || "skipped".equals(tag))) {
+                    currentCase.readOutcome(reader, tag);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String tag = reader.getLocalName();
+                if ("testsuite".equals(tag)) {
+                    openSuites--;
+                } else if ("testcase".equals(tag) && currentCase != null) {
+                    handler.onTestCase(currentCase.toTestCaseInfo());
+                    currentCase = null;
+                }
             }
         }
-
-        return suites;
     }
 
-    private TestSuiteInfo parseTestSuite(Element testsuiteElement) {
-        String name = testsuiteElement.getAttribute("name");
-        int tests = Integer.parseInt(testsuiteElement.getAttribute("tests"));
-        int failures = Integer.parseInt(testsuiteElement.getAttribute("failures") != null && !testsuiteElement.getAttribute("failures").isEmpty()
-                ? testsuiteElement.getAttribute("failures") : "0");
-        int skipped = Integer.parseInt(testsuiteElement.getAttribute("skipped") != null && !testsuiteElement.getAttribute("skipped").isEmpty()
-                ? testsuiteElement.getAttribute("skipped") : "0");
-        double time = Double.parseDouble(testsuiteElement.getAttribute("time") != null && !testsuiteElement.getAttribute("time").isEmpty()
-                ? testsuiteElement.getAttribute("time") : "0");
+    private TestSuiteInfo parseTestSuite(XMLStreamReader reader) {
+        String name = attribute(reader, "name", "");
+        int tests = Integer.parseInt(reader.getAttributeValue(null, "tests"));
+        int failures = Integer.parseInt(attribute(reader, "failures", "0"));
+        int skipped = Integer.parseInt(attribute(reader, "skipped", "0"));
+        double time = Double.parseDouble(attribute(reader, "time", "0"));
         long durationMs = (long) (time * 1000);
         int passed = tests - failures - skipped;
 
-        List<TestCaseInfo> cases = new ArrayList<>();
-        NodeList testcases = testsuiteElement.getElementsByTagName("testcase");
+        return new TestSuiteInfo(name, tests, passed, failures, skipped, durationMs, List.of());
+    }
 
-        for (int i = 0; i < testcases.getLength(); i++) {
-            Element testcaseElement = (Element) testcases.item(i);
-            cases.add(parseTestCase(testcaseElement));
-        }
+    private CaseState startTestCase(XMLStreamReader reader) {
+        String classname = attribute(reader, "classname", "");
+        String name = attribute(reader, "name", "");
+        double time = Double.parseDouble(attribute(reader, "time", "0"));
+        long durationMs = (long) (time * 1000);
+
+        String fullTestName = !classname.isEmpty() ? classname + "." + name : name;
 
-        return new TestSuiteInfo(name, tests, passed, failures, skipped, durationMs, cases);
+        return new CaseState(fullTestName, durationMs);
     }
 
-    private TestCaseInfo parseTestCase(Element testcaseElement) {
-        String classname = testcaseElement.getAttribute("classname");
-        String name = testcaseElement.getAttribute("name");
-        double time = Double.parseDouble(testcaseElement.getAttribute("time") != null && !testcaseElement.getAttribute("time").isEmpty()
-                ? testcaseElement.getAttribute("time") : "0");
-        long durationMs = (long) (time * 1000);
+    private static String attribute(XMLStreamReader reader, String name, String defaultValue) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static ReportHandler collectingHandler(List<TestSuiteInfo> suites) {
+        return new ReportHandler() {
+            private List<TestCaseInfo> cases;
 
-        String status = "passed";
-        String errorMessage = null;
+            @Override
+            public void onTestSuite(TestSuiteInfo suite) {
+                cases = new ArrayList<>();
+                suites.add(new TestSuiteInfo(suite.name, suite.tests, suite.passed, suite.failed,
+                        suite.skipped, suite.durationMs, cases));
+            }
+
+            @Override
+            public void onTestCase(TestCaseInfo testCase) {
+                cases.add(testCase);
+            }
+        };
+    }
 
-        NodeList failures = testcaseElement.getElementsByTagName("failure");
-        if (failures.getLength() > 0) {
-            status = "failed";
-            errorMessage = failures.item(0).getTextContent();
+    /**
+     * Outcome of the test case currently being read. A skipped element wins over a failure,
+     * and only the first element of each kind is kept.
+     */
+    private static class CaseState {
+        private final String name;
+        private final long durationMs;
+        private String failureText;
+        private String skippedText;
+
+        CaseState(String name, long durationMs) {
+            this.name = name;
+            this.durationMs = durationMs;
         }
 
-        NodeList skipped = testcaseElement.getElementsByTagName("skipped");
-        if (skipped.getLength() > 0) {
-            status = "skipped";
-            errorMessage = skipped.item(0).getTextContent();
+        void readOutcome(XMLStreamReader reader, String tag) throws XMLStreamException {
+            String text = readText(reader);
+            if ("failure".equals(tag) && failureText == null) {
+                failureText = text;
+            } else if ("skipped".equals(tag) && skippedText == null) {
+                skippedText = text;
+            }
         }
 
-        String fullTestName = classname != null && !classname.isEmpty() ? classname + "." + name : name;
+        TestCaseInfo toTestCaseInfo() {
+            if (skippedText != null) {
+                return new TestCaseInfo(name, "skipped", durationMs, skippedText);
+            }
+            if (failureText != null) {
+                return new TestCaseInfo(name, "failed", durationMs, failureText);
+            }
+            return new TestCaseInfo(name, "passed", durationMs, null);
+        }
 
-        return new TestCaseInfo(fullTestName, status, durationMs, errorMessage);
+        /**
+         * Reads all text below the current element and leaves the reader on its end tag.
+         */
+        private static String readText(XMLStreamReader reader) throws XMLStreamException {
+            StringBuilder text = new StringBuilder();
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                        || event == XMLStreamConstants.SPACE) {
+                    text.append(reader.getText());
+                }
+            }
+            return text.toString();
+        }
     }
 }
@@ -0,0 +1,24 @@
+-- Per day and suite totals, kept up to date by ingestion so metrics read O(days) rows
+
+CREATE TABLE IF NOT EXISTS metrics_daily_rollup (
+    id BIGSERIAL PRIMARY KEY,
+    rollup_day DATE NOT NULL,
+    suite_name VARCHAR(255) NOT NULL,
+    suite_runs BIGINT NOT NULL DEFAULT 0,
+    total_tests BIGINT NOT NULL DEFAULT 0,
+    passed_tests BIGINT NOT NULL DEFAULT 0,
+    failed_tests BIGINT NOT NULL DEFAULT 0,
+    skipped_tests BIGINT NOT NULL DEFAULT 0,
+    duration_ms BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX idx_metrics_daily_rollup_day_suite ON metrics_daily_rollup(rollup_day, suite_name);
+
+-- Existing runs; later backfills are picked up with POST /api/metrics/rollups/rebuild
+INSERT INTO metrics_daily_rollup (rollup_day, suite_name, suite_runs, total_tests, passed_tests,
+                                  failed_tests, skipped_tests, duration_ms, updated_at)
+SELECT CAST(timestamp AS DATE), suite_name, COUNT(*), SUM(total_tests), SUM(passed_tests),
+       SUM(failed_tests), SUM(skipped_tests), SUM(duration_ms), CURRENT_TIMESTAMP
+FROM test_suite_run
+GROUP BY CAST(timestamp AS DATE), suite_name;
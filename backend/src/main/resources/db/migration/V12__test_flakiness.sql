@@ -0,0 +1,12 @@
+-- Recent pass/fail history per test, kept up to date by ingestion.
+-- outcome_bits holds the last (up to 63) pass/fail outcomes, newest in the lowest bit, 1 = failed.
+-- Existing history is loaded with POST /api/metrics/flaky-tests/rebuild.
+
+CREATE TABLE IF NOT EXISTS test_flakiness (
+    test_identity_id INT PRIMARY KEY,
+    outcome_bits BIGINT NOT NULL DEFAULT 0,
+    outcome_count INT NOT NULL DEFAULT 0,
+    flip_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (test_identity_id) REFERENCES test_identity(id)
+);
@@ -0,0 +1,22 @@
+-- Per-day duration histograms (serialized DurationSketch), kept up to date by ingestion.
+-- Percentiles over a window merge one sketch per day instead of sorting the raw durations.
+-- Existing history is loaded with POST /api/metrics/durations/rebuild.
+
+CREATE TABLE IF NOT EXISTS suite_duration_sketch (
+    sketch_day DATE NOT NULL,
+    suite_name VARCHAR(255) NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (sketch_day, suite_name)
+);
+
+-- Sketches of test identity IDs [block_id * 1024, (block_id + 1) * 1024), so an upload
+-- writes one row per block of tests rather than one per test
+CREATE TABLE IF NOT EXISTS test_duration_sketch (
+    sketch_day DATE NOT NULL,
+    block_id INT NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- Keyed by block first: window queries for one test read its days in order
+    PRIMARY KEY (block_id, sketch_day)
+);
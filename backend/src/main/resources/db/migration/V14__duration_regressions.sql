@@ -0,0 +1,25 @@
+-- Moving mean and variance of every test's duration, kept up to date by ingestion, in blocks
+-- of 1024 consecutive test identity IDs (serialized DurationBaselineBlock).
+
+CREATE TABLE IF NOT EXISTS test_duration_baseline (
+    block_id INT PRIMARY KEY,
+    baselines BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Runs flagged as far slower than their test's baseline, served by /api/metrics/slow-regressions
+CREATE SEQUENCE IF NOT EXISTS duration_regression_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS duration_regression (
+    id BIGINT PRIMARY KEY,
+    test_identity_id INT NOT NULL,
+    duration_ms BIGINT NOT NULL,
+    baseline_mean_ms DOUBLE PRECISION NOT NULL,
+    baseline_std_dev_ms DOUBLE PRECISION NOT NULL,
+    sigmas DOUBLE PRECISION NOT NULL,
+    upload_source_id VARCHAR(255) NOT NULL,
+    detected_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (test_identity_id) REFERENCES test_identity(id)
+);
+
+CREATE INDEX idx_duration_regression_detected_at ON duration_regression(detected_at);
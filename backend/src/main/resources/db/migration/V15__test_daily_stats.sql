@@ -0,0 +1,11 @@
+-- Per-test run counts, failures and durations of each suite and day (serialized SuiteTestStats),
+-- kept up to date by ingestion. Top-K queries stream these instead of sorting test_case_run.
+-- Existing history is loaded with POST /api/metrics/top-tests/rebuild.
+
+CREATE TABLE IF NOT EXISTS test_daily_stats (
+    stat_day DATE NOT NULL,
+    suite_name VARCHAR(255) NOT NULL,
+    stats BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (stat_day, suite_name)
+);
@@ -0,0 +1,28 @@
+-- Failure messages grouped by normalized stack signature (FailureSignature). Each message gets
+-- its cluster when it is first stored; SimHash bands find near-duplicate signatures by lookup.
+-- Messages stored before this migration are assigned by POST /api/failures/clusters/rebuild.
+
+CREATE SEQUENCE IF NOT EXISTS failure_cluster_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS failure_cluster (
+    id BIGINT PRIMARY KEY,
+    signature_hash VARCHAR(64) NOT NULL UNIQUE,
+    signature TEXT NOT NULL,
+    exception_type VARCHAR(255),
+    sim_hash BIGINT NOT NULL,
+    band0 INT NOT NULL,
+    band1 INT NOT NULL,
+    band2 INT NOT NULL,
+    band3 INT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_failure_cluster_band0 ON failure_cluster(band0);
+CREATE INDEX idx_failure_cluster_band1 ON failure_cluster(band1);
+CREATE INDEX idx_failure_cluster_band2 ON failure_cluster(band2);
+CREATE INDEX idx_failure_cluster_band3 ON failure_cluster(band3);
+
+ALTER TABLE failure_message ADD COLUMN cluster_id BIGINT;
+ALTER TABLE failure_message ADD CONSTRAINT fk_failure_message_cluster
+    FOREIGN KEY (cluster_id) REFERENCES failure_cluster(id);
+CREATE INDEX idx_failure_message_cluster_id ON failure_message(cluster_id);
@@ -0,0 +1,10 @@
+-- Days whose test case runs were compacted into archive files (one gzipped NDJSON file per day)
+-- and removed from test_case_run. Suite runs and the daily aggregates of those days stay.
+
+CREATE TABLE IF NOT EXISTS test_run_archive (
+    archive_day DATE PRIMARY KEY,
+    file_name VARCHAR(255),
+    suite_runs INT NOT NULL,
+    case_runs BIGINT NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
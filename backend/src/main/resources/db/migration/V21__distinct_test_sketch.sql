@@ -0,0 +1,12 @@
+-- Per-day HyperLogLog sketches of the distinct tests run in each suite (serialized
+-- DistinctTestSketch, 4 KiB each), kept up to date by ingestion. Distinct test counts over
+-- any window merge these instead of counting distinct tests over test_case_run.
+-- Existing history is loaded with POST /api/metrics/distinct-tests/rebuild.
+
+CREATE TABLE IF NOT EXISTS distinct_test_sketch (
+    sketch_day DATE NOT NULL,
+    suite_name VARCHAR(255) NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (sketch_day, suite_name)
+);
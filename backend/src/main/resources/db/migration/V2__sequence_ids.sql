@@ -0,0 +1,5 @@
+-- Pooled sequence IDs for run tables so Hibernate can batch inserts.
+-- Increments match the allocationSize of the entity sequence generators.
+
+CREATE SEQUENCE IF NOT EXISTS test_suite_run_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS test_case_run_seq START WITH 1 INCREMENT BY 500;
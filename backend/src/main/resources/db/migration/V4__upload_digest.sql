@@ -0,0 +1,15 @@
+-- Content digests of ingested uploads, so repeated uploads are not written twice
+
+CREATE TABLE IF NOT EXISTS ingested_upload (
+    id BIGSERIAL PRIMARY KEY,
+    upload_kind VARCHAR(20) NOT NULL,
+    content_digest VARCHAR(64) NOT NULL,
+    upload_source_id VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX idx_ingested_upload_digest ON ingested_upload(upload_kind, content_digest);
+
+-- Duplicate uploads resolve to their runs and specs through the upload source ID
+CREATE INDEX idx_test_suite_run_upload_source_id ON test_suite_run(upload_source_id);
+CREATE INDEX idx_api_spec_upload_source_id ON api_spec(upload_source_id);
@@ -0,0 +1,16 @@
+-- Failure messages stored once per normalized hash instead of once per test case run
+
+CREATE SEQUENCE IF NOT EXISTS failure_message_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS failure_message (
+    id BIGINT PRIMARY KEY,
+    message_hash VARCHAR(64) NOT NULL UNIQUE,
+    message TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE test_case_run ADD COLUMN failure_message_id BIGINT;
+ALTER TABLE test_case_run ADD CONSTRAINT fk_test_case_run_failure_message
+    FOREIGN KEY (failure_message_id) REFERENCES failure_message(id);
+
+CREATE INDEX idx_test_case_run_failure_message_id ON test_case_run(failure_message_id);
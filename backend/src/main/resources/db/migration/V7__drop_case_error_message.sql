@@ -0,0 +1,3 @@
+-- Messages live in failure_message from V5 on; on PostgreSQL V6 has copied them over
+
+ALTER TABLE test_case_run DROP COLUMN error_message;
@@ -0,0 +1,12 @@
+-- Test names stored once in a dictionary; test_case_run refers to them by a compact INT key.
+-- The backfill, index and foreign key are vendor specific (V9), the old column goes in V10.
+
+CREATE SEQUENCE IF NOT EXISTS test_identity_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS test_identity (
+    id INT PRIMARY KEY,
+    test_name VARCHAR(512) NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE test_case_run ADD COLUMN test_identity_id INT;
@@ -0,0 +1,128 @@
+package com.rnd.testinghub;
+
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.application.TestIdentityStore;
+import com.rnd.testinghub.domain.TestCaseRun;
+import com.rnd.testinghub.domain.TestIdentity;
+import com.rnd.testinghub.domain.TestSuiteRun;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Compares insert rates, so it runs through the {@code benchmarkTest} Gradle task only. Both
+ * sides persist the same {@link TestCaseRun} entities; only how they reach the database differs.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:throughputdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class BulkPersistenceThroughputTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkPersistenceThroughputTest.class);
+
+    private static final int CASES = 20_000;
+    // Matches hibernate.jdbc.batch_size, so each flush sends one full batch
+    private static final int FLUSH_INTERVAL = 500;
+
+    @Autowired
+    private TestCaseRunRepository testCaseRunRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TestIdentityStore testIdentityStore;
+
+    @Test
+    void testBatchedInsertsOutperformRowAtATimeInserts() {
+        Integer testId = testIdentityStore.resolve(List.of("com.example.ThroughputTest.test")).get("com.example.ThroughputTest.test");
+
+        // Warm up both paths, so neither pays for class loading and JIT compilation
+        insertRowAtATime(testId, "warm-up");
+        insertBatched(testId, "warm-up");
+
+        long start = System.nanoTime();
+        insertRowAtATime(testId, "before");
+        double rowAtATimeRowsPerSec = rowsPerSecond(start);
+
+        start = System.nanoTime();
+        insertBatched(testId, "after");
+        double batchedRowsPerSec = rowsPerSecond(start);
+
+        log.info("Inserted {} test case runs: row at a time {} rows/sec, batched {} rows/sec",
+            CASES, Math.round(rowAtATimeRowsPerSec), Math.round(batchedRowsPerSec));
+        assertThat(testCaseRunRepository.count()).isEqualTo(4L * CASES);
+        assertThat(batchedRowsPerSec).isGreaterThan(rowAtATimeRowsPerSec);
+    }
+
+    /**
+     * Before: IDENTITY keys made Hibernate send each INSERT as soon as the entity was persisted,
+     * one statement and round trip per row, which a batch size of 1 and a flush per row reproduce.
+     */
+    private void insertRowAtATime(Integer testId, String uploadSourceId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            TestSuiteRun suiteRun = persistSuiteRun("RowAtATime", uploadSourceId);
+            for (int i = 0; i < CASES; i++) {
+                entityManager.persist(caseRun(suiteRun, testId));
+                entityManager.flush();
+                entityManager.clear();
+                suiteRun = entityManager.getReference(TestSuiteRun.class, suiteRun.getId());
+            }
+        });
+    }
+
+    /**
+     * After: pooled sequence IDs let the inserts queue up and go out as JDBC batches.
+     */
+    private void insertBatched(Integer testId, String uploadSourceId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TestSuiteRun suiteRun = persistSuiteRun("Batched", uploadSourceId);
+            for (int i = 0; i < CASES; i++) {
+                entityManager.persist(caseRun(suiteRun, testId));
+                if ((i + 1) % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    suiteRun = entityManager.getReference(TestSuiteRun.class, suiteRun.getId());
+                }
+            }
+        });
+    }
+
+    private TestSuiteRun persistSuiteRun(String suiteName, String uploadSourceId) {
+        TestSuiteRun suiteRun = new TestSuiteRun(suiteName, "passed", CASES, CASES, 0, 0, 0L, LocalDateTime.now(), uploadSourceId);
+        entityManager.persist(suiteRun);
+        entityManager.flush();
+        return suiteRun;
+    }
+
+    private TestCaseRun caseRun(TestSuiteRun suiteRun, Integer testId) {
+        return new TestCaseRun(suiteRun, entityManager.getReference(TestIdentity.class, testId), "passed", 1L, null, LocalDateTime.now());
+    }
+
+    private static double rowsPerSecond(long startNanos) {
+        return CASES / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+    }
+}
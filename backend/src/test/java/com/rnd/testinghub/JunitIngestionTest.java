@@ -1,20 +1,53 @@
 package com.rnd.testinghub;
 
+import com.rnd.testinghub.adapters.persistence.CaseRunView;
+import com.rnd.testinghub.adapters.persistence.FailureMessageRepository;
 import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
 import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.application.FailureMessageStore;
 import com.rnd.testinghub.application.JunitIngestionService;
+import com.rnd.testinghub.application.TestCaseRunRetentionService;
+import com.rnd.testinghub.application.TestRunArchiveService;
 import com.rnd.testinghub.domain.TestCaseRun;
+import com.rnd.testinghub.domain.TestIdentity;
 import com.rnd.testinghub.domain.TestSuiteRun;
+import com.rnd.testinghub.infrastructure.parser.JunitArchiveParser;
+import com.rnd.testinghub.infrastructure.parser.JunitXmlParser;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -26,15 +59,33 @@ import static org.assertj.core.api.Assertions.*;
 })
 class JunitIngestionTest {
 
+    @Autowired
+    private MockMvc mockMvc;
+
     @Autowired
     private JunitIngestionService junitIngestionService;
 
+    @Autowired
+    private JunitXmlParser junitXmlParser;
+
     @Autowired
     private TestSuiteRunRepository testSuiteRunRepository;
 
     @Autowired
     private TestCaseRunRepository testCaseRunRepository;
 
+    @Autowired
+    private FailureMessageRepository failureMessageRepository;
+
+    @Autowired
+    private TestIdentityRepository testIdentityRepository;
+
+    @Autowired
+    private TestCaseRunRetentionService testCaseRunRetentionService;
+
+    @Autowired
+    private TestRunArchiveService testRunArchiveService;
+
     private String sampleJunitXml;
 
     @BeforeEach
@@ -95,6 +146,112 @@ class JunitIngestionTest {
             .allMatch(c -> c.getStatus().equals("skipped"));
     }
 
+    @Test
+    void testCaseListsArePagedByCursorAndStreamedAsNdjson() throws Exception {
+        StringBuilder report = new StringBuilder("<testsuite name=\"PagedTests\" tests=\"7\">");
+        for (int i = 0; i < 7; i++) {
+            report.append("<testcase classname=\"com.example.PagedTest\" name=\"case").append(i).append("\" time=\"0.1\">")
+                .append(i % 3 == 0 ? "<failure>boom</failure>" : "").append("</testcase>");
+        }
+        Long suiteId = junitIngestionService.ingestJunitReport(report.append("</testsuite>").toString()).get(0);
+
+        List<String> names = new ArrayList<>();
+        Object cursor = null;
+        do {
+            Map<String, Object> page = junitIngestionService.getTestCasePage(suiteId, (Long) cursor, 3, null);
+            ((List<?>) page.get("cases")).forEach(testCase -> names.add(((CaseRunView) testCase).testName()));
+            cursor = page.get("next_cursor");
+        } while (cursor != null);
+        assertThat(names).containsExactly(IntStream.range(0, 7).mapToObj(i -> "com.example.PagedTest.case" + i).toArray(String[]::new));
+
+        mockMvc.perform(get("/api/junit/" + suiteId + "/cases?status=failed&limit=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(2))
+            .andExpect(jsonPath("$.cases[0].testName").value("com.example.PagedTest.case0"))
+            .andExpect(jsonPath("$.cases[0].errorMessage").value("boom"))
+            .andExpect(jsonPath("$.cases[1].testName").value("com.example.PagedTest.case3"))
+            .andExpect(jsonPath("$.next_cursor").isNumber());
+        mockMvc.perform(get("/api/junit/" + suiteId + "/cases?limit=0"))
+            .andExpect(status().isBadRequest());
+
+        MvcResult streaming = mockMvc.perform(get("/api/junit/" + suiteId + "/cases?format=ndjson&status=failed"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String ndjson = mockMvc.perform(asyncDispatch(streaming))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn().getResponse().getContentAsString();
+        assertThat(ndjson.lines()).hasSize(3)
+            .allMatch(line -> line.contains("\"status\":\"failed\""))
+            .last().asString().contains("com.example.PagedTest.case6");
+    }
+
+    @Test
+    void testHistoryReturnsTheLatestRunsOfManyTestsAtOnce() throws Exception {
+        String[] outcomes = {"", "<failure>boom</failure>", "", "<skipped/>"};
+        for (int run = 0; run < outcomes.length; run++) {
+            junitIngestionService.ingestJunitReport("<testsuite name=\"HistoryTests\" tests=\"2\">"
+                + "<testcase classname=\"com.example.HistoryTest\" name=\"changes\" time=\"0." + (run + 1) + "\">"
+                + outcomes[run] + "</testcase>"
+                + (run == 0 ? "<testcase classname=\"com.example.HistoryTest\" name=\"once\" time=\"0.05\"/>" : "")
+                + "</testsuite>");
+        }
+
+        mockMvc.perform(post("/api/junit/history")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"testNames\": [\"com.example.HistoryTest.changes\", \"com.example.HistoryTest.once\", "
+                    + "\"com.example.HistoryTest.never\"], \"limit\": 3}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tests['com.example.HistoryTest.changes'].runs").value(3))
+            .andExpect(jsonPath("$.tests['com.example.HistoryTest.changes'].statuses").value("SPF"))
+            .andExpect(jsonPath("$.tests['com.example.HistoryTest.changes'].durations_ms[0]").value(400))
+            .andExpect(jsonPath("$.tests['com.example.HistoryTest.changes'].durations_ms[2]").value(200))
+            .andExpect(jsonPath("$.tests['com.example.HistoryTest.once'].statuses").value("P"))
+            .andExpect(jsonPath("$.unknown_tests[0]").value("com.example.HistoryTest.never"));
+        mockMvc.perform(post("/api/junit/history")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"testNames\": [\"com.example.HistoryTest.once\"], \"limit\": 0}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testDiffReportsWhatChangedBetweenTwoRuns() throws Exception {
+        String testCase = "<testcase classname=\"com.example.DiffTest\" name=\"%s\" time=\"%s\">%s</testcase>";
+        Long base = junitIngestionService.ingestJunitReport("<testsuite name=\"DiffTests\" tests=\"6\">"
+            + testCase.formatted("breaks", "0.1", "")
+            + testCase.formatted("recovers", "0.1", "<failure>boom</failure>")
+            + testCase.formatted("slowsDown", "0.1", "")
+            + testCase.formatted("goesAway", "0.1", "")
+            + testCase.formatted("steady", "0.5", "")
+            + testCase.formatted("ignored", "0", "<skipped/>")
+            + "</testsuite>").get(0);
+        Long head = junitIngestionService.ingestJunitReport("<testsuite name=\"DiffTests\" tests=\"6\">"
+            + testCase.formatted("breaks", "0.1", "<failure>boom</failure>")
+            + testCase.formatted("recovers", "0.1", "")
+            + testCase.formatted("slowsDown", "0.5", "")
+            + testCase.formatted("steady", "0.55", "")
+            + testCase.formatted("ignored", "0", "<skipped/>")
+            + testCase.formatted("arrives", "0.1", "")
+            + "</testsuite>").get(0);
+
+        mockMvc.perform(get("/api/junit/diff?base=" + base + "&head=" + head))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.summary.newly_failing").value(1))
+            .andExpect(jsonPath("$.summary.newly_passing").value(1))
+            .andExpect(jsonPath("$.summary.added").value(1))
+            .andExpect(jsonPath("$.summary.removed").value(1))
+            .andExpect(jsonPath("$.summary.slower").value(1))
+            .andExpect(jsonPath("$.summary.unchanged").value(2))
+            .andExpect(jsonPath("$.newly_failing[0].testName").value("com.example.DiffTest.breaks"))
+            .andExpect(jsonPath("$.newly_passing[0].testName").value("com.example.DiffTest.recovers"))
+            .andExpect(jsonPath("$.added[0].testName").value("com.example.DiffTest.arrives"))
+            .andExpect(jsonPath("$.removed[0].testName").value("com.example.DiffTest.goesAway"))
+            .andExpect(jsonPath("$.slower[0].testName").value("com.example.DiffTest.slowsDown"))
+            .andExpect(jsonPath("$.slower[0].increaseMs").value(400));
+        mockMvc.perform(get("/api/junit/diff?base=" + base + "&head=-1"))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCalculatedStats() throws Exception {
         List<Long> suiteIds = junitIngestionService.ingestJunitReport(sampleJunitXml);
@@ -108,4 +265,275 @@ class JunitIngestionTest {
         assertThat(suite.getSkippedTests()).isEqualTo(1);
         assertThat(suite.getStatus()).isEqualTo("failed");
     }
+
+    @Test
+    void testFailureMessagesAreSharedAcrossLineNumberChanges() throws Exception {
+        String report = """
+            <testsuite name="StackTraceSuite" tests="2" failures="2">
+                <testcase classname="com.example.StackTest" name="first">
+                    <failure>java.lang.AssertionError: expected &lt;1&gt; (state@1a2b3c)
+                        at com.example.StackTest.first(StackTest.java:%d)</failure>
+                </testcase>
+                <testcase classname="com.example.StackTest" name="second">
+                    <failure>java.lang.IllegalStateException: closed</failure>
+                </testcase>
+            </testsuite>
+            """;
+
+        Long firstSuiteId = junitIngestionService.ingestJunitReport(report.formatted(42)).get(0);
+        long messagesAfterFirstUpload = failureMessageRepository.count();
+        Long secondSuiteId = junitIngestionService.ingestJunitReport(report.formatted(57).replace("1a2b3c", "9f8e7d")).get(0);
+
+        assertThat(failureMessageRepository.count()).isEqualTo(messagesAfterFirstUpload);
+        List<TestCaseRun> firstCases = junitIngestionService.getTestCasesForSuite(firstSuiteId);
+        List<TestCaseRun> secondCases = junitIngestionService.getTestCasesForSuite(secondSuiteId);
+        assertThat(secondCases)
+            .extracting(c -> c.getFailureMessage().getId())
+            .containsExactlyInAnyOrderElementsOf(firstCases.stream().map(c -> c.getFailureMessage().getId()).toList());
+        assertThat(secondCases)
+            .extracting(TestCaseRun::getErrorMessage)
+            .anyMatch(message -> message.contains("StackTest.java:42"))
+            .contains("java.lang.IllegalStateException: closed");
+        assertThat(FailureMessageStore.hash("at A.b(A.java:1)")).isNotEqualTo(FailureMessageStore.hash("at A.c(A.java:1)"));
+    }
+
+    @Test
+    void testRunsOfTheSameTestShareOneIdentity() throws Exception {
+        Long firstSuiteId = junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "IdentitySuite1")).get(0);
+        Long secondSuiteId = junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "IdentitySuite2")).get(0);
+
+        TestIdentity testPass = testIdentityRepository.findByTestName("com.example.SampleTest.testPass").orElseThrow();
+        assertThat(testCaseRunRepository.findByTestIdentityId(testPass.getId()))
+            .extracting(TestCaseRun::getSuiteRunId)
+            .contains(firstSuiteId, secondSuiteId);
+        assertThat(testCaseRunRepository.findDistinctTestNames())
+            .contains("com.example.SampleTest.testPass", "com.example.SampleTest.testFail", "com.example.SampleTest.testSkip");
+    }
+
+    @Test
+    void testRepeatedUploadIsNotIngestedTwice() throws Exception {
+        String report = sampleJunitXml.replace("SampleTests", "RepeatedSuite");
+
+        List<Long> firstIds = junitIngestionService.ingestJunitReport(report);
+        long casesAfterFirstUpload = testCaseRunRepository.count();
+        List<Long> secondIds = junitIngestionService.ingestJunitReport(report);
+
+        assertThat(secondIds).isEqualTo(firstIds);
+        assertThat(testCaseRunRepository.count()).isEqualTo(casesAfterFirstUpload);
+        assertThat(junitIngestionService.ingestJunitReport(report.replace("time=\"1.5\"", "time=\"1.6\"")))
+            .isNotEqualTo(firstIds);
+    }
+
+    @Test
+    void testRepeatedArchiveUploadIsReportedAsDuplicate() throws Exception {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("TEST-DuplicateArchive.xml"));
+            zip.write(sampleJunitXml.replace("SampleTests", "DuplicateArchive").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "reports.zip", "application/zip", archive.toByteArray());
+
+        String uploadSourceId = mockMvc.perform(multipart("/api/junit/upload-archive").file(file))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.duplicate").value(false))
+            .andReturn().getResponse().getContentAsString()
+            .replaceAll(".*\"uploadSourceId\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(multipart("/api/junit/upload-archive").file(file))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.duplicate").value(true))
+            .andExpect(jsonPath("$.uploadSourceId").value(uploadSourceId))
+            .andExpect(jsonPath("$.suiteIds.length()").value(1));
+    }
+
+    @Test
+    void testAsyncUploadIsAcceptedAndCompletes() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "junit.xml", "application/xml",
+            sampleJunitXml.getBytes(StandardCharsets.UTF_8));
+
+        String response = mockMvc.perform(multipart("/api/junit/upload").file(file).param("async", "true"))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.jobId").exists())
+            .andReturn().getResponse().getContentAsString();
+        String jobId = response.replaceAll(".*\"jobId\":\"([^\"]+)\".*", "$1");
+
+        String jobStatus = "queued";
+        for (int attempt = 0; attempt < 100 && !jobStatus.equals("succeeded") && !jobStatus.equals("failed"); attempt++) {
+            Thread.sleep(50);
+            jobStatus = mockMvc.perform(get("/api/jobs/" + jobId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()
+                .replaceAll(".*\"status\":\"([a-z]+)\".*", "$1");
+        }
+
+        assertThat(jobStatus).isEqualTo("succeeded");
+        mockMvc.perform(get("/api/jobs/" + jobId))
+            .andExpect(jsonPath("$.suiteIds").isArray())
+            .andExpect(jsonPath("$.progress").value("100.00%"));
+    }
+
+    @Test
+    void testZipArchiveIngestsEveryReportUnderOneUpload() throws Exception {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int i = 1; i <= 3; i++) {
+                zip.putNextEntry(new ZipEntry("reports/TEST-Archive" + i + ".xml"));
+                zip.write(sampleJunitXml.replace("SampleTests", "ArchiveSuite" + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.putNextEntry(new ZipEntry("reports/readme.txt"));
+            zip.write("not a report".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        Map<String, Object> result = junitIngestionService.ingestJunitArchive(new ByteArrayResource(archive.toByteArray()));
+
+        assertThat(result.get("totalFiles")).isEqualTo(3);
+        @SuppressWarnings("unchecked")
+        List<Long> suiteIds = (List<Long>) result.get("suiteIds");
+        assertThat(suiteIds).hasSize(3);
+        assertThat(suiteIds)
+            .extracting(id -> testSuiteRunRepository.findById(id).orElseThrow().getUploadSourceId())
+            .containsOnly((String) result.get("uploadSourceId"));
+        assertThat(suiteIds)
+            .extracting(id -> testCaseRunRepository.findBySuiteRunId(id).size())
+            .containsOnly(3);
+    }
+
+    @Test
+    void testTarGzArchiveUploadEndpoint() throws Exception {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(archive))) {
+            byte[] report = sampleJunitXml.replace("SampleTests", "TarSuite").getBytes(StandardCharsets.UTF_8);
+            TarArchiveEntry entry = new TarArchiveEntry("TEST-TarSuite.xml");
+            entry.setSize(report.length);
+            tar.putArchiveEntry(entry);
+            tar.write(report);
+            tar.closeArchiveEntry();
+        }
+
+        MockMultipartFile file = new MockMultipartFile("file", "reports.tar.gz", "application/gzip", archive.toByteArray());
+
+        mockMvc.perform(multipart("/api/junit/upload-archive").file(file))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.suiteIds.length()").value(1))
+            .andExpect(jsonPath("$.files[0].file").value("TEST-TarSuite.xml"))
+            .andExpect(jsonPath("$.files[0].cases").value(3))
+            .andExpect(jsonPath("$.files[0].parseMillis").isNumber());
+    }
+
+    @Test
+    void testArchiveEntriesAreReadWithinTheMemoryLimits() throws Exception {
+        JunitArchiveParser parser = new JunitArchiveParser(junitXmlParser, DataSize.ofMegabytes(1), DataSize.ofMegabytes(2));
+        try {
+            // Five entries of 600KB each exceed the 2MB in flight, so reading waits for the parsers
+            String padding = "\n<!--" + "x".repeat(600 * 1024) + "-->\n";
+            ByteArrayOutputStream archive = new ByteArrayOutputStream();
+            try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+                for (int i = 1; i <= 5; i++) {
+                    zip.putNextEntry(new ZipEntry("TEST-Padded" + i + ".xml"));
+                    zip.write((sampleJunitXml.replace("SampleTests", "PaddedSuite" + i) + padding).getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            }
+            List<String> suiteNames = new ArrayList<>();
+            parser.parse(new ByteArrayInputStream(archive.toByteArray()),
+                file -> file.suites.forEach(suite -> suiteNames.add(suite.name)));
+            assertThat(suiteNames).containsExactly("PaddedSuite1", "PaddedSuite2", "PaddedSuite3", "PaddedSuite4", "PaddedSuite5");
+
+            // A few KB that decompress past the 1MB entry limit are refused, not read whole
+            ByteArrayOutputStream bomb = new ByteArrayOutputStream();
+            try (ZipOutputStream zip = new ZipOutputStream(bomb)) {
+                zip.putNextEntry(new ZipEntry("TEST-Bomb.xml"));
+                byte[] zeros = new byte[64 * 1024];
+                for (int i = 0; i < 32; i++) {
+                    zip.write(zeros);
+                }
+                zip.closeEntry();
+            }
+            assertThatThrownBy(() -> parser.parse(new ByteArrayInputStream(bomb.toByteArray()), file -> { }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("TEST-Bomb.xml: entry is larger than the limit");
+        } finally {
+            parser.shutdown();
+        }
+    }
+
+    @Test
+    void testRetentionRemovesRunsOlderThanTheCutoffMonth() throws Exception {
+        Long expiredId = junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "ExpiredTests")).get(0);
+        Long keptId = junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "KeptTests")).get(0);
+        TestSuiteRun expired = testSuiteRunRepository.findById(expiredId).orElseThrow();
+        expired.setTimestamp(expired.getTimestamp().minusMonths(14));
+        testSuiteRunRepository.save(expired);
+        for (TestCaseRun caseRun : testCaseRunRepository.findBySuiteRunId(expiredId)) {
+            caseRun.setTimestamp(expired.getTimestamp());
+            testCaseRunRepository.save(caseRun);
+        }
+
+        Map<String, Object> removed = testCaseRunRetentionService.removeBefore(YearMonth.now().minusMonths(12));
+
+        assertThat(removed).containsEntry("suite_runs_deleted", 1).containsEntry("partitions_dropped", 0);
+        assertThat(testSuiteRunRepository.findById(expiredId)).isEmpty();
+        assertThat(testCaseRunRepository.findBySuiteRunId(expiredId)).isEmpty();
+        assertThat(testSuiteRunRepository.findById(keptId)).isPresent();
+        assertThat(testCaseRunRepository.findBySuiteRunId(keptId)).hasSize(3);
+
+        // With its runs gone, the same report is no longer a duplicate
+        List<Long> reingestedIds = junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "ExpiredTests"));
+        assertThat(reingestedIds).hasSize(1).doesNotContain(expiredId);
+        assertThat(testCaseRunRepository.findBySuiteRunId(reingestedIds.get(0))).hasSize(3);
+    }
+
+    @Test
+    void testCompactedRunsAreArchivedAndStillListed() throws Exception {
+        Long suiteId = junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "ArchivedTests")).get(0);
+        TestSuiteRun suite = testSuiteRunRepository.findById(suiteId).orElseThrow();
+        suite.setTimestamp(suite.getTimestamp().minusDays(10));
+        testSuiteRunRepository.save(suite);
+        for (TestCaseRun caseRun : testCaseRunRepository.findBySuiteRunId(suiteId)) {
+            caseRun.setTimestamp(suite.getTimestamp());
+            testCaseRunRepository.save(caseRun);
+        }
+
+        Map<String, Object> compacted = testRunArchiveService.compactBefore(LocalDate.now().minusDays(5));
+
+        assertThat(compacted.get("case_runs")).isEqualTo(3L);
+        assertThat(testCaseRunRepository.findBySuiteRunId(suiteId)).isEmpty();
+        assertThat(testSuiteRunRepository.findById(suiteId)).isPresent();
+
+        // Archived runs are read back from the day's file
+        List<String> names = new ArrayList<>();
+        Object cursor = null;
+        do {
+            Map<String, Object> page = junitIngestionService.getTestCasePage(suiteId, (Long) cursor, 2, null);
+            ((List<?>) page.get("cases")).forEach(testCase -> names.add(((CaseRunView) testCase).testName()));
+            cursor = page.get("next_cursor");
+        } while (cursor != null);
+        assertThat(names).containsExactly(
+            "com.example.SampleTest.testPass", "com.example.SampleTest.testFail", "com.example.SampleTest.testSkip");
+        mockMvc.perform(get("/api/junit/" + suiteId + "/cases?status=failed"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(1))
+            .andExpect(jsonPath("$.cases[0].testName").value("com.example.SampleTest.testFail"));
+
+        MvcResult streaming = mockMvc.perform(get("/api/junit/" + suiteId + "/cases?format=ndjson"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String ndjson = mockMvc.perform(asyncDispatch(streaming))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertThat(ndjson.lines()).hasSize(3);
+
+        // Days already archived are not compacted again
+        assertThat(testRunArchiveService.compactBefore(LocalDate.now().minusDays(5)).get("days")).isEqualTo(0);
+
+        // Archived runs are not in test identity order, so they cannot be diffed
+        mockMvc.perform(get("/api/junit/diff?base=" + suiteId + "&head=" + suiteId))
+            .andExpect(status().isConflict());
+        // Days that may still receive uploads are never compacted
+        mockMvc.perform(post("/api/junit/compact?before=" + LocalDate.now()))
+            .andExpect(status().isBadRequest());
+    }
 }
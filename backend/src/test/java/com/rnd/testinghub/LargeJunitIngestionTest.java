@@ -0,0 +1,82 @@
+package com.rnd.testinghub;
+
+import com.rnd.testinghub.adapters.persistence.MetricsDailyRollupRepository;
+import com.rnd.testinghub.adapters.persistence.RunTotals;
+import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestFlakinessRepository;
+import com.rnd.testinghub.adapters.persistence.TestIdentityRepository;
+import com.rnd.testinghub.application.JunitIngestionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs through the {@code largeIngestionTest} Gradle task, which limits the heap to 256 MB. The
+ * database is a file, so the rows written do not count against the heap; what the upload holds
+ * per distinct test does.
+ */
+@Tag("large-ingestion")
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "ingestion.test-identity-cache-size=10000",
+    "metrics.hot-window.max-rows=10000"
+})
+class LargeJunitIngestionTest {
+
+    // About 1,000 suites of 1,000 distinct tests each
+    private static final long REPORT_BYTES = 100L * 1024 * 1024;
+
+    @Autowired
+    private JunitIngestionService junitIngestionService;
+
+    @Autowired
+    private TestCaseRunRepository testCaseRunRepository;
+
+    @Autowired
+    private TestIdentityRepository testIdentityRepository;
+
+    @Autowired
+    private TestFlakinessRepository testFlakinessRepository;
+
+    @Autowired
+    private MetricsDailyRollupRepository metricsDailyRollupRepository;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory(Files.createDirectories(Path.of("build", "tmp")), "large-ingestion");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + directory.toAbsolutePath().resolve("db"));
+    }
+
+    @Test
+    void testIngestionHeapStaysFlatForManyDistinctTests() throws Exception {
+        LargeJunitReportTest.GeneratedReportStream report = new LargeJunitReportTest.GeneratedReportStream(REPORT_BYTES);
+
+        List<Long> suiteIds = junitIngestionService.ingestJunitReport(report, "large-ingestion");
+
+        long cases = report.suites * LargeJunitReportTest.CASES_PER_SUITE;
+        // Held for the whole upload at a few hundred bytes per test, the aggregates would not fit
+        assertThat(cases).isGreaterThan(Runtime.getRuntime().maxMemory() / 512);
+        assertThat(suiteIds).hasSize((int) report.suites);
+        assertThat(testCaseRunRepository.count()).isEqualTo(cases);
+        assertThat(testIdentityRepository.count()).isEqualTo(cases);
+        // Every test's outcomes were recorded, over several rounds
+        assertThat(testFlakinessRepository.count()).isEqualTo(cases);
+        RunTotals today = metricsDailyRollupRepository.sumBetween(LocalDate.now(), LocalDate.now());
+        assertThat(today.totalTests()).isEqualTo(cases);
+    }
+}
@@ -0,0 +1,120 @@
+package com.rnd.testinghub;
+
+import com.rnd.testinghub.infrastructure.parser.JunitXmlParser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs through the {@code largeReportTest} Gradle task, which limits the heap to 64 MB.
+ */
+@Tag("large-report")
+class LargeJunitReportTest {
+
+    private static final long REPORT_BYTES = 500L * 1024 * 1024;
+    static final int CASES_PER_SUITE = 1000;
+
+    @Test
+    void testStreamingParserHandlesReportLargerThanHeap() throws Exception {
+        assertThat(REPORT_BYTES).isGreaterThan(Runtime.getRuntime().maxMemory());
+
+        GeneratedReportStream report = new GeneratedReportStream(REPORT_BYTES);
+        long[] counts = new long[4]; // suites, cases, failed, skipped
+
+        new JunitXmlParser().parse(report, new JunitXmlParser.ReportHandler() {
+            @Override
+            public void onTestSuite(JunitXmlParser.TestSuiteInfo suite) {
+                counts[0]++;
+            }
+
+            @Override
+            public void onTestCase(JunitXmlParser.TestCaseInfo testCase) {
+                counts[1]++;
+                if ("failed".equals(testCase.status)) counts[2]++;
+                if ("skipped".equals(testCase.status)) counts[3]++;
+            }
+        });
+
+        assertThat(report.bytesGenerated).isGreaterThanOrEqualTo(REPORT_BYTES);
+        assertThat(counts[0]).isEqualTo(report.suites);
+        assertThat(counts[1]).isEqualTo(report.suites * CASES_PER_SUITE);
+        assertThat(counts[2]).isEqualTo(report.suites * (CASES_PER_SUITE / 50));
+        assertThat(counts[3]).isEqualTo(report.suites * (CASES_PER_SUITE / 100));
+    }
+
+    /**
+     * Produces a JUnit report of roughly the requested size on the fly, one suite at a time.
+     */
+    static class GeneratedReportStream extends InputStream {
+        private static final String STACK_TRACE = ("java.lang.AssertionError: expected:&lt;200&gt; but was:&lt;500&gt;\n"
+                + "\tat com.example.generated.ApiTest.verify(ApiTest.java:42)\n").repeat(8);
+
+        private final long targetBytes;
+        private byte[] chunk = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuites>\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+        private boolean finished;
+        long bytesGenerated;
+        long suites;
+
+        GeneratedReportStream(long targetBytes) {
+            this.targetBytes = targetBytes;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position == chunk.length && !nextChunk()) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean nextChunk() {
+            if (finished) {
+                return false;
+            }
+            bytesGenerated += chunk.length;
+            if (bytesGenerated >= targetBytes) {
+                chunk = "</testsuites>\n".getBytes(StandardCharsets.UTF_8);
+                finished = true;
+            } else {
+                chunk = suiteXml(suites++).getBytes(StandardCharsets.UTF_8);
+            }
+            position = 0;
+            return true;
+        }
+
+        private static String suiteXml(long index) {
+            StringBuilder xml = new StringBuilder(512 * 1024);
+            xml.append("<testsuite name=\"com.example.generated.Suite").append(index)
+                .append("\" tests=\"").append(CASES_PER_SUITE)
+                .append("\" failures=\"").append(CASES_PER_SUITE / 50)
+                .append("\" skipped=\"").append(CASES_PER_SUITE / 100)
+                .append("\" time=\"12.5\">\n");
+            for (int i = 0; i < CASES_PER_SUITE; i++) {
+                xml.append("  <testcase classname=\"com.example.generated.Suite").append(index)
+                    .append("\" name=\"test").append(i).append("\" time=\"0.012\"");
+                if (i % 50 == 0) {
+                    xml.append(">\n    <failure message=\"expected 200\">").append(STACK_TRACE).append("</failure>\n  </testcase>\n");
+                } else if (i % 100 == 1) {
+                    xml.append(">\n    <skipped message=\"disabled\"/>\n  </testcase>\n");
+                } else {
+                    xml.append("/>\n");
+                }
+            }
+            return xml.append("</testsuite>\n").toString();
+        }
+    }
+}
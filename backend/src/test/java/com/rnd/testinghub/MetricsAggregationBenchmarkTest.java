@@ -0,0 +1,145 @@
+package com.rnd.testinghub;
+
+import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.application.MetricsCache;
+import com.rnd.testinghub.application.MetricsRollupService;
+import com.rnd.testinghub.application.MetricsService;
+import com.rnd.testinghub.domain.TestSuiteRun;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Seeds 10M test case runs and the suite runs reporting them, and compares summing the raw case
+ * runs or materialized {@link TestSuiteRun} entities with the aggregate projections behind
+ * {@link MetricsService}. Compares wall-clock times, so it runs through the {@code benchmarkTest}
+ * Gradle task only.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@TestPropertySource(properties = {
+    // Without the query cache, H2 would answer the timed queries from the warm-up's results
+    "spring.datasource.url=jdbc:h2:mem:aggregationdb;QUERY_CACHE_SIZE=0",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class MetricsAggregationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsAggregationBenchmarkTest.class);
+
+    private static final long CASE_ROWS = 10_000_000L;
+    private static final int CASES_PER_SUITE = 100;
+    private static final long SEED_CHUNK = 500_000L;
+    private static final int DAYS = 30;
+    private static final String SUITE_TIMESTAMP = "DATEADD('HOUR', -MOD(%s, " + (DAYS * 24) + "), CURRENT_TIMESTAMP)";
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private MetricsRollupService metricsRollupService;
+
+    @Autowired
+    private MetricsCache metricsCache;
+
+    @Autowired
+    private TestSuiteRunRepository testSuiteRunRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testProjectionsOutperformEntitySums() {
+        long suiteRows = CASE_ROWS / CASES_PER_SUITE;
+        jdbcTemplate.update(
+            "INSERT INTO test_suite_run (id, suite_name, status, total_tests, passed_tests, failed_tests, " +
+            "skipped_tests, duration_ms, timestamp, upload_source_id, created_at, updated_at) " +
+            "SELECT X, 'Suite' || MOD(X, 50), 'mixed', ?, ? - MOD(X, 7), MOD(X, 7), 0, 1000, " +
+            SUITE_TIMESTAMP.formatted("X") + ", 'seed', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, ?)",
+            CASES_PER_SUITE, CASES_PER_SUITE, suiteRows);
+        jdbcTemplate.update(
+            "INSERT INTO test_identity (id, test_name, created_at) " +
+            "SELECT X, 'com.example.Seed.test' || X, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, ?)",
+            CASES_PER_SUITE);
+        // Case I of suite S is test I; the first MOD(S, 7) cases of a suite failed, as its counts say.
+        // Inserted in chunks, so no single statement holds millions of rows of undo log
+        for (long first = 1; first <= CASE_ROWS; first += SEED_CHUNK) {
+            jdbcTemplate.update(
+                "INSERT INTO test_case_run (id, suite_run_id, test_identity_id, status, duration_ms, timestamp, created_at) " +
+                "SELECT X, S, I, CASE WHEN I <= MOD(S, 7) THEN 'failed' ELSE 'passed' END, 10, " +
+                SUITE_TIMESTAMP.formatted("S") + ", CURRENT_TIMESTAMP " +
+                "FROM (SELECT X, (X - 1) / ? + 1 AS S, MOD(X - 1, ?) + 1 AS I FROM SYSTEM_RANGE(?, ?))",
+                CASES_PER_SUITE, CASES_PER_SUITE, first, Math.min(first + SEED_CHUNK - 1, CASE_ROWS));
+        }
+        metricsRollupService.rebuild(null, null);
+
+        // Warm all paths up once, then time the second call
+        caseRunSums();
+        entitySums();
+        metricsService.calculateSummaryMetrics(DAYS);
+
+        // Before rollups: every case run of the window counted by the database
+        long start = System.nanoTime();
+        long[] caseTotals = caseRunSums();
+        long caseMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Before: every suite run of the window loaded as an entity and summed in Java
+        start = System.nanoTime();
+        long[] entityTotals = entitySums();
+        long entityMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // After: SUM queries over the daily rollups return a single record
+        metricsCache.invalidateAll();
+        start = System.nanoTime();
+        Map<String, Object> summary = metricsService.calculateSummaryMetrics(DAYS);
+        metricsService.getTestTrends("passRate", "30d");
+        long projectionMillis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("Summed {} test case runs: case runs {} ms, suite run entities {} ms, rollup projections {} ms",
+            CASE_ROWS, caseMillis, entityMillis, projectionMillis);
+
+        assertThat(caseTotals[0]).isEqualTo(CASE_ROWS);
+        assertThat(caseTotals).containsExactly(entityTotals);
+        assertThat(entityTotals[0]).isEqualTo(suiteRows * CASES_PER_SUITE);
+        assertThat(summary.get("total_tests_executed")).isEqualTo(entityTotals[0]);
+        assertThat(summary.get("total_failed")).isEqualTo(entityTotals[1]);
+        assertThat(projectionMillis).isLessThan(entityMillis);
+        assertThat(projectionMillis).isLessThan(caseMillis);
+    }
+
+    private long[] caseRunSums() {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*), SUM(CASE WHEN status = 'failed' THEN 1 ELSE 0 END) FROM test_case_run WHERE timestamp >= ?",
+            (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)},
+            LocalDate.now().minusDays(DAYS).atStartOfDay());
+    }
+
+    private long[] entitySums() {
+        return transactionTemplate.execute(status -> {
+            List<TestSuiteRun> runs = testSuiteRunRepository.findByTimestampAfter(
+                LocalDate.now().minusDays(DAYS).atStartOfDay());
+            return new long[] {
+                runs.stream().mapToLong(TestSuiteRun::getTotalTests).sum(),
+                runs.stream().mapToLong(TestSuiteRun::getFailedTests).sum()
+            };
+        });
+    }
+}
@@ -1,9 +1,16 @@
 package com.rnd.testinghub;
 
+import com.rnd.testinghub.adapters.persistence.MetricsDailyRollupRepository;
 import com.rnd.testinghub.adapters.persistence.TestCaseRunRepository;
+import com.rnd.testinghub.adapters.persistence.TestFlakinessRepository;
 import com.rnd.testinghub.adapters.persistence.TestSuiteRunRepository;
+import com.rnd.testinghub.application.DurationMetricsService;
+import com.rnd.testinghub.application.HotWindowService;
 import com.rnd.testinghub.application.JunitIngestionService;
+import com.rnd.testinghub.application.MetricsCache;
 import com.rnd.testinghub.application.MetricsService;
+import com.rnd.testinghub.application.MetricsStreamService;
+import com.rnd.testinghub.application.OpenApiIngestionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,11 +19,34 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -40,9 +70,33 @@ class MetricsTest {
     @Autowired
     private JunitIngestionService junitIngestionService;
 
+    @Autowired
+    private OpenApiIngestionService openApiIngestionService;
+
+    @Autowired
+    private MetricsCache metricsCache;
+
+    @Autowired
+    private DurationMetricsService durationMetricsService;
+
     @Autowired
     private TestSuiteRunRepository testSuiteRunRepository;
 
+    @Autowired
+    private MetricsDailyRollupRepository metricsDailyRollupRepository;
+
+    @Autowired
+    private HotWindowService hotWindowService;
+
+    @Autowired
+    private MetricsStreamService metricsStreamService;
+
+    @Autowired
+    private TestFlakinessRepository testFlakinessRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private String sampleJunitXml;
 
     @BeforeEach
@@ -73,9 +127,9 @@ class MetricsTest {
             .containsKey("pass_rate")
             .containsKey("failure_rate")
             .containsKey("total_tests_executed");
-        assertThat(metrics.get("total_tests_executed")).isEqualTo(4);
-        assertThat(metrics.get("total_passed")).isEqualTo(3);
-        assertThat(metrics.get("total_failed")).isEqualTo(1);
+        assertThat(metrics.get("total_tests_executed")).isEqualTo(4L);
+        assertThat(metrics.get("total_passed")).isEqualTo(3L);
+        assertThat(metrics.get("total_failed")).isEqualTo(1L);
     }
 
     @Test
@@ -115,7 +169,547 @@ class MetricsTest {
 
         // Before ingesting any data, should return empty/zero metrics
         assertThat(metrics).containsKey("pass_rate");
-        assertThat(metrics.get("total_tests_executed")).isEqualTo(0);
-        assertThat(metrics.get("total_run_suites")).isEqualTo(0);
+        assertThat(metrics.get("total_tests_executed")).isEqualTo(0L);
+        assertThat(metrics.get("total_run_suites")).isEqualTo(0L);
+    }
+
+    @Test
+    void testRollupsCanBeRebuiltFromSuiteRuns() throws Exception {
+        junitIngestionService.ingestJunitReport(sampleJunitXml);
+        junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "OtherTests"));
+        assertThat(metricsDailyRollupRepository.count()).isEqualTo(2);
+
+        metricsDailyRollupRepository.deleteAll();
+        assertThat(metricsService.calculateSummaryMetrics(30).get("total_tests_executed")).isEqualTo(0L);
+
+        mockMvc.perform(post("/api/metrics/rollups/rebuild"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.inserted").value(2));
+
+        var metrics = metricsService.calculateSummaryMetrics(30);
+        assertThat(metrics.get("total_run_suites")).isEqualTo(2L);
+        assertThat(metrics.get("total_tests_executed")).isEqualTo(8L);
+        assertThat(metrics.get("total_failed")).isEqualTo(2L);
+    }
+
+    @Test
+    void testFlakyTestsAreRankedFromRecentOutcomes() throws Exception {
+        String flaky = "<testcase classname=\"com.example.FlakyTest\" name=\"sometimes\" time=\"0.1\">%s</testcase>";
+        String stable = "<testcase classname=\"com.example.FlakyTest\" name=\"always\" time=\"0.1\"/>";
+        String[] outcomes = {"", "<failure>boom</failure>", "", "<failure>boom</failure>"};
+        for (int run = 0; run < outcomes.length; run++) {
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Run" + run + "\" tests=\"2\">"
+                + flaky.formatted(outcomes[run]) + stable + "</testsuite>");
+        }
+
+        assertThat(metricsService.calculateFlakyRate()).isEqualTo(0.5);
+        mockMvc.perform(get("/api/metrics/flaky-tests?window=3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.flaky_tests").value(1))
+            .andExpect(jsonPath("$.tests[0].testName").value("com.example.FlakyTest.sometimes"))
+            .andExpect(jsonPath("$.tests[0].runs").value(3))
+            .andExpect(jsonPath("$.tests[0].failures").value(2))
+            .andExpect(jsonPath("$.tests[0].flips").value(2))
+            .andExpect(jsonPath("$.tests[0].totalFlips").value(3));
+        mockMvc.perform(get("/api/metrics/flaky-tests?window=1"))
+            .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/metrics/flaky-tests/rebuild"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tests").value(2));
+        assertThat(metricsService.calculateFlakyRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testRolledBackUploadsDoNotCountTowardsFlakiness() throws Exception {
+        String flaky = "<testcase classname=\"com.example.FlakyTest\" name=\"sometimes\" time=\"0.1\">%s</testcase>";
+        String stable = "<testcase classname=\"com.example.FlakyTest\" name=\"always\" time=\"0.1\"/>";
+        String[] outcomes = {"", "<failure>boom</failure>"};
+        for (int run = 0; run < outcomes.length; run++) {
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Run" + run + "\" tests=\"2\">"
+                + flaky.formatted(outcomes[run]) + stable + "</testsuite>");
+        }
+
+        // The new test's flakiness row is created in its own transaction and outlives the rollback, empty
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                junitIngestionService.ingestJunitReport("<testsuite name=\"RolledBack\" tests=\"1\">"
+                    + "<testcase classname=\"com.example.FlakyTest\" name=\"rolledBack\" time=\"0.1\"/></testsuite>");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+        assertThat(testFlakinessRepository.count()).isEqualTo(3);
+
+        assertThat(metricsService.calculateFlakyRate()).isEqualTo(0.5);
+        mockMvc.perform(get("/api/metrics/flaky-tests"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_tests").value(2))
+            .andExpect(jsonPath("$.flaky_tests").value(1))
+            .andExpect(jsonPath("$.flaky_rate").value(0.5));
+    }
+
+    @Test
+    void testApiCoverageFollowsNewTestNames() throws Exception {
+        Long specId = openApiIngestionService.ingestOpenApiSpec("""
+            openapi: 3.0.0
+            info:
+              title: Users API
+              version: 1.0.0
+            paths:
+              /api/users:
+                get:
+                  summary: List users
+                post:
+                  summary: Create user
+              /api/users/{id}:
+                delete:
+                  summary: Delete user
+            """, "yaml");
+        String report = "<testsuite name=\"UsersApi\" tests=\"1\"><testcase classname=\"com.example.UsersApiTest\" name=\"%s\"/></testsuite>";
+        junitIngestionService.ingestJunitReport(report.formatted("GET /api/users returns all users"));
+
+        var coverage = metricsService.calculateApiCoverage(specId);
+        assertThat(coverage.get("total_endpoints")).isEqualTo(3);
+        assertThat(coverage.get("tested_endpoints")).isEqualTo(1);
+
+        // Matched against the cached spec as the names arrive
+        junitIngestionService.ingestJunitReport(report.formatted("POST /api/users then DELETE /api/users/{id}"));
+        junitIngestionService.ingestJunitReport(report.formatted("PUT /api/users is not in the spec"));
+
+        mockMvc.perform(get("/api/metrics/api-coverage/" + specId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tested_endpoints").value(3))
+            .andExpect(jsonPath("$.coverage").value("100.00%"));
+    }
+
+    @Test
+    void testDurationPercentilesMergeUploadsAndSurviveRebuild() throws Exception {
+        for (int run = 1; run <= 100; run++) {
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Timed\" tests=\"1\" time=\"" + run + "\">"
+                + "<testcase classname=\"com.example.TimedTest\" name=\"step\" time=\"" + run / 10.0 + "\"/>"
+                + "</testsuite>");
+        }
+        junitIngestionService.ingestJunitReport("<testsuite name=\"Quick\" tests=\"1\" time=\"0.5\">"
+            + "<testcase classname=\"com.example.QuickTest\" name=\"step\" time=\"0.5\"/></testsuite>");
+
+        mockMvc.perform(get("/api/metrics/durations/suites"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_suites").value(2))
+            .andExpect(jsonPath("$.suites[0].suiteName").value("Timed"))
+            .andExpect(jsonPath("$.suites[0].runs").value(100))
+            .andExpect(jsonPath("$.suites[0].max_ms").value(100_000))
+            .andExpect(jsonPath("$.suites[1].suiteName").value("Quick"))
+            .andExpect(jsonPath("$.suites[1].p99_ms").value(500));
+        assertDurations("com.example.TimedTest.step", 100, 5_000, 9_000, 9_900);
+
+        // Moving half of the runs a day back changes the days, not the window's percentiles
+        testSuiteRunRepository.findAll().stream()
+            .filter(run -> run.getDurationMs() <= 50_000)
+            .forEach(run -> {
+                run.setTimestamp(run.getTimestamp().minusDays(1));
+                testSuiteRunRepository.save(run);
+            });
+        mockMvc.perform(post("/api/metrics/durations/rebuild"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.days").value(2))
+            .andExpect(jsonPath("$.suite_sketches").value(3));
+        assertDurations("com.example.TimedTest.step", 100, 5_000, 9_000, 9_900);
+
+        mockMvc.perform(get("/api/metrics/durations/tests?name=com.example.TimedTest.step&from="
+                + LocalDate.now() + "&to=" + LocalDate.now()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.runs").value(50));
+        mockMvc.perform(get("/api/metrics/durations/tests?name=com.example.Unknown.step"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.runs").value(0));
+        mockMvc.perform(get("/api/metrics/durations/suites?from=" + LocalDate.now() + "&to=" + LocalDate.now().minusDays(1)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSlowRunsAreFlaggedAgainstMovingBaselines() throws Exception {
+        String report = "<testsuite name=\"Nightly\" tests=\"2\">"
+            + "<testcase classname=\"com.example.NightlyTest\" name=\"slowsDown\" time=\"%s\"/>"
+            + "<testcase classname=\"com.example.NightlyTest\" name=\"jitters\" time=\"%s\"/>"
+            + "</testsuite>";
+        for (int run = 0; run < 10; run++) {
+            junitIngestionService.ingestJunitReport(report.formatted(0.100 + run % 3 * 0.002, 0.050 + run % 2 * 0.001));
+        }
+        mockMvc.perform(get("/api/metrics/slow-regressions"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_regressions").value(0));
+
+        // 5x slower is flagged; +60 ms on a 50 ms test is many sigmas but below the minimum increase
+        junitIngestionService.ingestJunitReport(report.formatted(0.5, 0.110));
+
+        mockMvc.perform(get("/api/metrics/slow-regressions"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_regressions").value(1))
+            .andExpect(jsonPath("$.regressions[0].testName").value("com.example.NightlyTest.slowsDown"))
+            .andExpect(jsonPath("$.regressions[0].durationMs").value(500))
+            .andExpect(jsonPath("$.regressions[0].sigmas").value(greaterThan(4.0)))
+            .andExpect(jsonPath("$.regressions[0].slowdown").value(closeTo(5.0, 0.1)));
+        mockMvc.perform(get("/api/metrics/slow-regressions?days=0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testTrendsAreGapFilledAndOrderedInEveryBucket() throws Exception {
+        junitIngestionService.ingestJunitReport(sampleJunitXml);
+        junitIngestionService.ingestJunitReport("<testsuite name=\"SampleTests\" tests=\"2\" time=\"0.5\">"
+            + "<testcase classname=\"com.example.SampleTest\" name=\"testFail\" time=\"0.3\"/>"
+            + "<testcase classname=\"com.example.SampleTest\" name=\"testPass1\" time=\"0.2\"/>"
+            + "</testsuite>");
+        junitIngestionService.ingestJunitReport(sampleJunitXml.replace("SampleTests", "OtherTests"));
+        testSuiteRunRepository.findAll().stream()
+            .filter(run -> run.getSuiteName().equals("OtherTests"))
+            .forEach(run -> {
+                run.setTimestamp(run.getTimestamp().minusDays(2));
+                testSuiteRunRepository.save(run);
+            });
+        mockMvc.perform(post("/api/metrics/rollups/rebuild")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/metrics/top-tests/rebuild")).andExpect(status().isOk());
+
+        LocalDate today = LocalDate.now();
+        Map<String, Object> counts = metricsService.getTestTrends("testCount", null, today.minusDays(3), today, "day");
+        assertThat(trendOf(counts)).containsExactly(
+            entry(today.minusDays(3).toString(), 0L),
+            entry(today.minusDays(2).toString(), 4L),
+            entry(today.minusDays(1).toString(), 0L),
+            entry(today.toString(), 6L));
+
+        Map<String, Object> passRates = metricsService.getTestTrends("passRate", null, today.minusDays(1), today, "day");
+        assertThat(trendOf(passRates)).containsExactly(
+            entry(today.minusDays(1).toString(), null),
+            entry(today.toString(), 5.0 / 6));
+
+        // testFail both failed and passed today: one flaky test out of the four that ran
+        mockMvc.perform(get("/api/metrics/trends?metric=flakyRate&from=" + today + "&to=" + today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.trend['" + today + "']").value(0.25));
+
+        Map<String, Object> weeks = metricsService.getTestTrends("testCount", null, today.minusDays(2), today, "week");
+        assertThat(trendOf(weeks).values().stream().mapToLong(value -> (Long) value).sum()).isEqualTo(10);
+
+        String hour = testSuiteRunRepository.findAll().stream()
+            .filter(run -> run.getSuiteName().equals("SampleTests"))
+            .findFirst().orElseThrow()
+            .getTimestamp().truncatedTo(ChronoUnit.HOURS).toString();
+        mockMvc.perform(get("/api/metrics/trends?metric=suiteRuns&bucket=hour&from=" + today + "&to=" + today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data_points").value(24))
+            .andExpect(jsonPath("$.trend['" + hour + "']").value(2));
+
+        mockMvc.perform(get("/api/metrics/trends?metric=flakyRate&bucket=hour"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/trends?bucket=month"))
+            .andExpect(status().isBadRequest());
+        // Unknown periods fall back to the last 30 days, as they did before buckets existed
+        mockMvc.perform(get("/api/metrics/trends?metric=passRate&period=3y"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.from").value(today.minusDays(30).toString()))
+            .andExpect(jsonPath("$.data_points").value(31));
+    }
+
+    @Test
+    void testTopTestsAreRankedByDurationFailuresAndTotalTime() throws Exception {
+        for (int run = 0; run < 3; run++) {
+            String failure = run < 2 ? "<failure message=\"boom\"/>" : "";
+            // The hostname keeps identical reports from being skipped as duplicate uploads
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Api\" tests=\"2\" hostname=\"ci-" + run + "\">"
+                + "<testcase classname=\"com.example.ApiTest\" name=\"breaks\" time=\"0.1\">" + failure + "</testcase>"
+                + "<testcase classname=\"com.example.ApiTest\" name=\"crawls\" time=\"0.3\"/>"
+                + "</testsuite>");
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Ui\" tests=\"2\" hostname=\"ci-" + run + "\">"
+                + "<testcase classname=\"com.example.UiTest\" name=\"renders\" time=\"1.0\"/>"
+                + "<testcase classname=\"com.example.UiTest\" name=\"clicks\" time=\"0.01\">"
+                + (run == 0 ? "<failure message=\"missed\"/>" : "") + "</testcase>"
+                + "</testsuite>");
+        }
+
+        mockMvc.perform(get("/api/metrics/top-tests?by=duration&k=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_tests").value(4))
+            .andExpect(jsonPath("$.tests.length()").value(2))
+            .andExpect(jsonPath("$.tests[0].testName").value("com.example.UiTest.renders"))
+            .andExpect(jsonPath("$.tests[0].meanDurationMs").value(1000.0))
+            .andExpect(jsonPath("$.tests[1].testName").value("com.example.ApiTest.crawls"));
+        mockMvc.perform(get("/api/metrics/top-tests?by=failures"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tests.length()").value(2))
+            .andExpect(jsonPath("$.tests[0].testName").value("com.example.ApiTest.breaks"))
+            .andExpect(jsonPath("$.tests[0].failures").value(2))
+            .andExpect(jsonPath("$.tests[0].runs").value(3))
+            .andExpect(jsonPath("$.tests[1].testName").value("com.example.UiTest.clicks"));
+        mockMvc.perform(get("/api/metrics/top-tests?by=total-time&k=1&suite=Api"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_tests").value(2))
+            .andExpect(jsonPath("$.tests[0].testName").value("com.example.ApiTest.crawls"))
+            .andExpect(jsonPath("$.tests[0].totalDurationMs").value(900));
+
+        // Moving the Ui runs a day back takes them out of a window of today only
+        testSuiteRunRepository.findAll().stream()
+            .filter(run -> run.getSuiteName().equals("Ui"))
+            .forEach(run -> {
+                run.setTimestamp(run.getTimestamp().minusDays(1));
+                testSuiteRunRepository.save(run);
+            });
+        mockMvc.perform(post("/api/metrics/top-tests/rebuild"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(2));
+        mockMvc.perform(get("/api/metrics/top-tests?by=duration&from=" + LocalDate.now() + "&to=" + LocalDate.now()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_tests").value(2))
+            .andExpect(jsonPath("$.tests[0].testName").value("com.example.ApiTest.crawls"));
+        mockMvc.perform(get("/api/metrics/top-tests?by=slowness"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testDistinctTestsAreEstimatedFromMergedSketches() throws Exception {
+        for (int run = 0; run < 3; run++) {
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Api\" tests=\"2\" hostname=\"ci-" + run + "\">"
+                + "<testcase classname=\"com.example.ApiTest\" name=\"creates\" time=\"0.1\"/>"
+                + "<testcase classname=\"com.example.ApiTest\" name=\"reads\" time=\"0.1\"/>"
+                + "</testsuite>");
+        }
+        // The smoke suite reruns one of the Api tests; across suites it is counted once
+        junitIngestionService.ingestJunitReport("<testsuite name=\"Smoke\" tests=\"2\">"
+            + "<testcase classname=\"com.example.ApiTest\" name=\"creates\" time=\"0.1\"/>"
+            + "<testcase classname=\"com.example.SmokeTest\" name=\"pings\" time=\"0.1\"/>"
+            + "</testsuite>");
+        StringBuilder large = new StringBuilder("<testsuite name=\"Large\" tests=\"2000\">");
+        for (int test = 0; test < 2000; test++) {
+            large.append("<testcase classname=\"com.example.LargeTest\" name=\"case").append(test).append("\" time=\"0.001\"/>");
+        }
+        junitIngestionService.ingestJunitReport(large.append("</testsuite>").toString());
+
+        mockMvc.perform(get("/api/metrics/distinct-tests?suite=Api"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.distinct_tests").value(2));
+        mockMvc.perform(get("/api/metrics/distinct-tests?limit=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.lower_bound").value(lessThanOrEqualTo(2003)))
+            .andExpect(jsonPath("$.upper_bound").value(greaterThanOrEqualTo(2003)))
+            .andExpect(jsonPath("$.total_suites").value(3))
+            .andExpect(jsonPath("$.suites.length()").value(2))
+            .andExpect(jsonPath("$.suites[0].suiteName").value("Large"))
+            .andExpect(jsonPath("$.suites[1].suiteName").value("Api"));
+
+        // Moving the large suite a day back takes it out of a window of today only
+        testSuiteRunRepository.findAll().stream()
+            .filter(run -> run.getSuiteName().equals("Large"))
+            .forEach(run -> {
+                run.setTimestamp(run.getTimestamp().minusDays(1));
+                testSuiteRunRepository.save(run);
+            });
+        mockMvc.perform(post("/api/metrics/distinct-tests/rebuild"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.days").value(2))
+            .andExpect(jsonPath("$.rows").value(3));
+        mockMvc.perform(get("/api/metrics/distinct-tests?from=" + LocalDate.now() + "&to=" + LocalDate.now()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.distinct_tests").value(3))
+            .andExpect(jsonPath("$.total_suites").value(2));
+        mockMvc.perform(get("/api/metrics/distinct-tests?limit=0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testFailuresWithTheSameStackSignatureShareACluster() throws Exception {
+        // Ports, IDs and line numbers differ from run to run; the cause does not
+        String[] tests = {"connects", "queries", "migrates"};
+        for (int run = 0; run < 3; run++) {
+            String connectionRefused = "java.net.ConnectException: Connection refused to db-" + (7 + run)
+                + ":" + (5432 + run) + " (request " + java.util.UUID.randomUUID() + ")\n"
+                + "\tat com.example.db.Pool.open(Pool.java:" + (40 + run) + ")\n"
+                + "\tat com.example.db.Pool.borrow(Pool.java:" + (12 + run) + ")\n"
+                + "\tat org.junit.jupiter.engine.execution.MethodInvocation.proceed(MethodInvocation.java:60)";
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Db\" tests=\"1\" hostname=\"ci-" + run + "\">"
+                + "<testcase classname=\"com.example.DbTest\" name=\"" + tests[run] + "\" time=\"0.1\">"
+                + "<failure>" + connectionRefused + "</failure></testcase>"
+                + "</testsuite>");
+        }
+        junitIngestionService.ingestJunitReport("<testsuite name=\"Api\" tests=\"1\">"
+            + "<testcase classname=\"com.example.ApiTest\" name=\"creates\" time=\"0.1\">"
+            + "<failure>java.lang.AssertionError: expected:&lt;201&gt; but was:&lt;500&gt;\n"
+            + "\tat com.example.ApiTest.creates(ApiTest.java:31)</failure></testcase>"
+            + "</testsuite>");
+
+        mockMvc.perform(get("/api/failures/clusters?days=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total_clusters").value(2))
+            .andExpect(jsonPath("$.clusters.length()").value(2))
+            .andExpect(jsonPath("$.clusters[0].exceptionType").value("java.net.ConnectException"))
+            .andExpect(jsonPath("$.clusters[0].failures").value(3))
+            .andExpect(jsonPath("$.clusters[0].tests").value(3))
+            .andExpect(jsonPath("$.clusters[1].exceptionType").value("java.lang.AssertionError"))
+            .andExpect(jsonPath("$.clusters[1].failures").value(1));
+        mockMvc.perform(post("/api/failures/clusters/rebuild"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.messages").value(0))
+            .andExpect(jsonPath("$.clusters").value(2));
+        mockMvc.perform(get("/api/failures/clusters?limit=0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testRecentWindowIsSummedFromRunsHeldInMemory() throws Exception {
+        junitIngestionService.ingestJunitReport(sampleJunitXml);
+        junitIngestionService.ingestJunitReport(sampleJunitXml.replace("name=\"SampleTests\"",
+            "name=\"SampleTests\" hostname=\"ci-2\""));
+
+        mockMvc.perform(get("/api/metrics/recent?hours=1&limit=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.runs").value(8))
+            .andExpect(jsonPath("$.passed").value(6))
+            .andExpect(jsonPath("$.failed").value(2))
+            .andExpect(jsonPath("$.tests").value(4))
+            .andExpect(jsonPath("$.passRate").value(closeTo(0.75, 0.0001)))
+            .andExpect(jsonPath("$.most_failing.length()").value(1))
+            .andExpect(jsonPath("$.most_failing[0].testName").value("com.example.SampleTest.testFail"))
+            .andExpect(jsonPath("$.most_failing[0].failures").value(2));
+
+        // Reloading from the database holds the same runs, not a second copy
+        hotWindowService.load();
+        mockMvc.perform(get("/api/metrics/recent?hours=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.runs").value(8))
+            .andExpect(jsonPath("$.failed").value(2));
+        mockMvc.perform(get("/api/metrics/recent?hours=1000"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testMetricsCacheIsDroppedWhenAnUploadCommits() throws Exception {
+        assertThat(metricsService.calculateSummaryMetrics(30).get("total_tests_executed")).isEqualTo(0L);
+        assertThat(metricsService.calculateSummaryMetrics(30).get("total_tests_executed")).isEqualTo(0L);
+
+        junitIngestionService.ingestJunitReport(sampleJunitXml);
+        assertThat(metricsService.calculateSummaryMetrics(30).get("total_tests_executed")).isEqualTo(4L);
+
+        mockMvc.perform(get("/api/metrics/cache/stats"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.hits").value(1))
+            .andExpect(jsonPath("$.misses").value(2))
+            .andExpect(jsonPath("$.invalidations").value(1));
+    }
+
+    @Test
+    void testCommittedUploadsArePushedToStreamSubscribers() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/metrics/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // A slow subscriber gets the uploads it missed while busy merged into one event
+        CountDownLatch release = new CountDownLatch(1);
+        List<Map<String, Object>> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = metricsStreamService.subscribe(new MetricsStreamService.Sink() {
+            @Override
+            public void send(Map<String, Object> delta) {
+                received.add(delta);
+                awaitQuietly(release);
+            }
+
+            @Override
+            public void ping() {
+            }
+        });
+
+        for (int run = 0; run < 3; run++) {
+            junitIngestionService.ingestJunitReport("<testsuite name=\"Api\" tests=\"1\" hostname=\"ci-" + run + "\">"
+                + "<testcase classname=\"com.example.ApiTest\" name=\"breaks\" time=\"0.1\">"
+                + (run == 1 ? "<failure message=\"boom\"/>" : "") + "</testcase>"
+                + "</testsuite>");
+            if (run == 0) {
+                awaitCondition(() -> received.size() == 1);
+            }
+        }
+        // The SSE client keeps up, so it gets one event per upload
+        awaitCondition(() -> countOf(contentOf(stream), "event:metrics") == 3);
+        release.countDown();
+        awaitCondition(() -> received.size() == 2);
+        unsubscribe.run();
+
+        assertThat(received.get(0).get("uploads")).isEqualTo(1);
+        assertThat(received.get(1).get("uploads")).isEqualTo(2);
+        assertThat((List<?>) received.get(1).get("suites")).hasSize(2);
+        assertThat(received.get(1).get("new_flaky_tests")).isEqualTo(Set.of("com.example.ApiTest.breaks"));
+        assertThat(received.get(1).get("tests_today")).isEqualTo(3L);
+
+        String events = contentOf(stream);
+        assertThat(events).startsWith("event:ready");
+        assertThat(events).contains("\"suiteName\":\"Api\"");
+        assertThat(events).contains("\"new_flaky_tests\":[\"com.example.ApiTest.breaks\"]");
+        assertThat(metricsStreamService.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentCacheMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Map<String, Object>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> metricsCache.get("slow", () -> {
+                    loads.incrementAndGet();
+                    awaitQuietly(release);
+                    return Map.of("value", 42);
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<Map<String, Object>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).containsEntry("value", 42);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    private void assertDurations(String testName, long runs, long p50, long p90, long p99) throws Exception {
+        Map<String, Object> durations = durationMetricsService.getTestDurations(testName, null, null);
+        assertThat(durations.get("runs")).isEqualTo(runs);
+        // The sketches are accurate to within about 1.6%
+        assertThat((Long) durations.get("p50_ms")).isCloseTo(p50, withinPercentage(2));
+        assertThat((Long) durations.get("p90_ms")).isCloseTo(p90, withinPercentage(2));
+        assertThat((Long) durations.get("p99_ms")).isCloseTo(p99, withinPercentage(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> trendOf(Map<String, Object> trends) {
+        return (Map<String, Object>) trends.get("trend");
+    }
+
+    private static String contentOf(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int countOf(String text, String part) {
+        return text.split(Pattern.quote(part), -1).length - 1;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -121,4 +121,16 @@ class OpenApiIngestionTest {
             .andExpect(jsonPath("$.specId").value(specId))
             .andExpect(jsonPath("$.total").value(5));
     }
+
+    @Test
+    void testRepeatedSpecUploadReturnsExistingSpec() throws Exception {
+        String spec = sampleOpenApiSpec.replace("Test API", "Repeated API");
+
+        Long firstId = openApiIngestionService.ingestOpenApiSpec(spec, "yaml");
+        long endpointsAfterFirstUpload = apiEndpointRepository.count();
+        Long secondId = openApiIngestionService.ingestOpenApiSpec(spec, "yaml");
+
+        assertThat(secondId).isEqualTo(firstId);
+        assertThat(apiEndpointRepository.count()).isEqualTo(endpointsAfterFirstUpload);
+    }
 }